@@ -0,0 +1,169 @@
+package com.firmament.immigration.loadtest;
+
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Session;
+import io.gatling.javaapi.core.Simulation;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static io.gatling.javaapi.http.HttpDsl.*;
+
+/**
+ * The booking funnel end to end, as the frontend drives it: month view, day view, create the
+ * appointment on a free slot, create the payment intent, Stripe's payment_intent.succeeded
+ * webhook, then a document upload. Users start evenly over the ramp, so concurrency climbs to
+ * loadtest.users; each runs loadtest.bookings-per-user bookings.
+ * <pre>
+ * mvn -Ploadtest test-compile gatling:test [-Dloadtest.users=500 -Dloadtest.virtual-threads=true ...]
+ * </pre>
+ * The report (target/gatling) has p50, p95 and p99 per request and errors over time. Another
+ * user taking the chosen slot first is an expected outcome, counted and printed at the end
+ * rather than reported as an error. See {@link LoadTestSettings} for every knob.
+ */
+public class BookingSimulation extends Simulation {
+
+    private static final String SLOT_TAKEN = "Selected time is not available. Please choose another time.";
+    private static final byte[] SAMPLE_PDF = CloudinaryStub.samplePdf();
+
+    // Where clients book from, with the currency they pay in
+    private static final List<Map.Entry<String, String>> ORIGINS = List.of(
+            Map.entry("America/Montreal", "CAD"),
+            Map.entry("America/Toronto", "CAD"),
+            Map.entry("America/Vancouver", "CAD"),
+            Map.entry("Africa/Casablanca", "MAD"),
+            Map.entry("Europe/Paris", "CAD"));
+
+    private final LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+    private final LoadTestEnvironment environment =
+            settings.baseUrl().isBlank() ? LoadTestEnvironment.start(settings) : null;
+    private final AtomicLong bookingIds = new AtomicLong();
+    private final AtomicLong bookings = new AtomicLong();
+    private final AtomicLong slotsTaken = new AtomicLong();
+
+    private final HttpProtocolBuilder protocol = http
+            .baseUrl(environment != null ? environment.baseUrl() : settings.baseUrl())
+            .acceptHeader("application/json")
+            .contentTypeHeader("application/json");
+
+    private final ChainBuilder browse = exec(this::chooseDay)
+            .exec(http("month").get("/api/availability/month/#{year}/#{month}")
+                    .queryParam("timezone", "#{timezone}")
+                    .check(status().is(200)))
+            .pause(settings.thinkTime())
+            .exec(http("day").get("/api/availability/day/#{date}")
+                    .queryParam("timezone", "#{timezone}")
+                    .check(status().is(200),
+                            jsonPath("$.availableSlots[?(@.available60Min == true)].startTime")
+                                    .findAll().optional().saveAs("freeSlots")))
+            .pause(settings.thinkTime());
+
+    private final ChainBuilder book = exec(this::chooseSlot)
+            .exec(http("create appointment").post("/api/appointments")
+                    .body(StringBody("""
+                            {"firstName": "Load", "lastName": "User #{bookingId}", "email": "load-#{bookingId}@example.com",
+                             "phone": "+1 514 555 0100", "country": "Canada", "appointmentDate": "#{appointmentDate}",
+                             "duration": 60, "consultationType": "Permanent residence",
+                             "clientPresentation": "Load test booking", "currency": "#{currency}", "userTimezone": "#{timezone}"}"""))
+                    .check(status().in(201, 400).saveAs("createStatus"),
+                            jsonPath("$.id").optional().saveAs("appointmentId"))
+                    .checkIf((response, session) -> response.status().code() == 400)
+                    .then(jsonPath("$.message").is(SLOT_TAKEN)))
+            .doIfOrElse(session -> session.contains("appointmentId")).then(
+                    pause(settings.thinkTime())
+                            .exec(http("payment intent").post("/api/payments/create-intent/#{appointmentId}")
+                                    .check(status().is(200), jsonPath("$.clientSecret").saveAs("clientSecret")))
+                            .exec(this::signWebhook)
+                            .exec(http("payment webhook").post("/api/payments/webhook")
+                                    .header("Stripe-Signature", "#{webhookSignature}")
+                                    .body(StringBody("#{webhookPayload}"))
+                                    .check(status().is(200)))
+                            .pause(settings.thinkTime())
+                            .exec(http("document upload").post("/api/documents/upload/#{appointmentId}")
+                                    .bodyPart(ByteArrayBodyPart("files", session -> uniquePdf())
+                                            .fileName("passport.pdf")
+                                            .contentType("application/pdf"))
+                                    .asMultipartForm()
+                                    .check(status().is(200)))
+                            .exec(session -> {
+                                bookings.incrementAndGet();
+                                return session;
+                            })
+            ).orElse(
+                    exec(session -> {
+                        if (session.contains("createStatus") && session.getInt("createStatus") == 400) {
+                            slotsTaken.incrementAndGet();
+                        }
+                        return session;
+                    })
+            );
+
+    private final ScenarioBuilder booking = scenario("Booking")
+            .repeat(settings.bookingsPerUser()).on(
+                    exec(browse)
+                            .doIf(session -> session.contains("freeSlots")).then(book)
+                            .exec(session -> session.removeAll("freeSlots", "appointmentId", "createStatus")));
+
+    {
+        setUp(booking.injectOpen(rampUsers(settings.users()).during(settings.ramp())))
+                .protocols(protocol)
+                .assertions(global().failedRequests().percent().lte(settings.maxErrorPercent()));
+    }
+
+    // A random day in the horizon, seen from a random client location
+    private Session chooseDay(Session session) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map.Entry<String, String> origin = ORIGINS.get(random.nextInt(ORIGINS.size()));
+        LocalDate date = LocalDate.now(ZoneId.of(origin.getKey())).plusDays(1 + random.nextInt(settings.horizonDays()));
+        return session.set("timezone", origin.getKey())
+                .set("currency", origin.getValue())
+                .set("date", date.toString())
+                .set("year", date.getYear())
+                .set("month", date.getMonthValue());
+    }
+
+    // One of the free hour slots of that day, as an offset date-time in the client's zone
+    private Session chooseSlot(Session session) {
+        List<String> freeSlots = session.getList("freeSlots");
+        LocalTime start = LocalTime.parse(freeSlots.get(ThreadLocalRandom.current().nextInt(freeSlots.size())));
+        ZoneId zone = ZoneId.of(session.getString("timezone"));
+        return session.set("bookingId", bookingIds.incrementAndGet())
+                .set("appointmentDate", LocalDate.parse(session.getString("date")).atTime(start).atZone(zone).toOffsetDateTime().toString());
+    }
+
+    // What Stripe posts once the client has paid; the intent id is the client secret's prefix
+    private Session signWebhook(Session session) {
+        String clientSecret = session.getString("clientSecret");
+        String paymentIntentId = clientSecret.substring(0, clientSecret.indexOf("_secret_"));
+        String payload = StripeStub.succeededEvent(paymentIntentId, session.getString("appointmentId"));
+        return session.set("webhookPayload", payload)
+                .set("webhookSignature", StripeStub.signature(payload, LoadTestEnvironment.WEBHOOK_SECRET));
+    }
+
+    // Every upload differs, so content deduplication does not skip the storage call
+    private static byte[] uniquePdf() {
+        byte[] suffix = ("\n%load-test " + ThreadLocalRandom.current().nextLong() + "\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] pdf = new byte[SAMPLE_PDF.length + suffix.length];
+        System.arraycopy(SAMPLE_PDF, 0, pdf, 0, SAMPLE_PDF.length);
+        System.arraycopy(suffix, 0, pdf, SAMPLE_PDF.length, suffix.length);
+        return pdf;
+    }
+
+    @Override
+    public void after() {
+        System.out.printf("%nBookings completed: %d, slot taken by another user first: %d%n", bookings.get(), slotsTaken.get());
+        if (environment != null) {
+            System.out.println(environment.summary());
+            environment.close();
+        }
+    }
+}
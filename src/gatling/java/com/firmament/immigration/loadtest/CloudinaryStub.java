@@ -0,0 +1,140 @@
+package com.firmament.immigration.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for the Cloudinary upload API (upload and destroy) and its CDN, reached through the
+ * upload_prefix of cloudinary.url. Uploaded bytes are counted and dropped; every download
+ * serves the same one-page PDF, which is enough for the thumbnail worker to render.
+ */
+public class CloudinaryStub implements AutoCloseable {
+
+    public static final String CLOUD_NAME = "loadtest";
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final byte[] SAMPLE_PDF = samplePdf();
+
+    private final HttpServer server;
+    private final InjectedLatency latency;
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicLong uploads = new AtomicLong();
+    private final AtomicLong uploadedBytes = new AtomicLong();
+
+    public CloudinaryStub(InjectedLatency latency) throws IOException {
+        this.latency = latency;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/v1_1/", this::api);
+        server.createContext("/" + CLOUD_NAME + "/", this::download);
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long uploads() {
+        return uploads.get();
+    }
+
+    public long uploadedBytes() {
+        return uploadedBytes.get();
+    }
+
+    // /v1_1/{cloud}/{resource type}/{action}
+    private void api(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            long bytes;
+            try (InputStream body = exchange.getRequestBody()) {
+                bytes = body.transferTo(OutputStream.nullOutputStream());
+            }
+            latency.pause();
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            String resourceType = path.length > 3 ? path[3] : "raw";
+            String action = path.length > 4 ? path[4] : "";
+            ObjectNode response = JSON.createObjectNode();
+            switch (action) {
+                case "upload" -> {
+                    uploads.incrementAndGet();
+                    uploadedBytes.addAndGet(bytes);
+                    long version = Instant.now().getEpochSecond();
+                    String publicId = "appointments/load_" + ids.incrementAndGet();
+                    String format = "image".equals(resourceType) ? "jpg" : "pdf";
+                    response.put("public_id", publicId)
+                            .put("version", version)
+                            .put("resource_type", resourceType)
+                            .put("format", format)
+                            .put("bytes", bytes)
+                            .put("created_at", Instant.now().toString())
+                            .put("secure_url", baseUrl() + "/" + CLOUD_NAME + "/" + resourceType + "/upload/v" + version
+                                    + "/" + publicId + "." + format);
+                }
+                case "destroy" -> response.put("result", "ok");
+                default -> {
+                    respond(exchange, 404, "application/json",
+                            "{\"error\":{\"message\":\"Unsupported action\"}}".getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+            }
+            respond(exchange, 200, "application/json", JSON.writeValueAsBytes(response));
+        }
+    }
+
+    private void download(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            respond(exchange, 200, "application/pdf", SAMPLE_PDF);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    /**
+     * A small valid one-page PDF
+     */
+    public static byte[] samplePdf() {
+        try (PDDocument document = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.beginText();
+                content.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 14);
+                content.newLineAtOffset(72, 700);
+                content.showText("Passport - load test sample");
+                content.endText();
+            }
+            document.save(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,24 @@
+package com.firmament.immigration.loadtest;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Response time of a stand-in, spread evenly between half and one and a half times the mean so
+ * concurrent calls do not all finish in lockstep
+ */
+record InjectedLatency(Duration mean) {
+
+    void pause() {
+        long meanNanos = mean.toNanos();
+        if (meanNanos <= 0) {
+            return;
+        }
+        long nanos = meanNanos / 2 + ThreadLocalRandom.current().nextLong(meanNanos + 1);
+        try {
+            Thread.sleep(Duration.ofNanos(nanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
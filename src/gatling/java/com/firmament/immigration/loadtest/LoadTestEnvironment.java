@@ -0,0 +1,192 @@
+package com.firmament.immigration.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The stand-ins for Stripe, SMTP and Cloudinary, plus the application started in its own JVM
+ * and wired to them, so load generation and the stand-ins do not compete with it for heap and
+ * JIT. Data lives in the default in-memory H2 database unless app args say otherwise. Rate
+ * limiting is off, and SQL and per-session statistics logging too; the application log goes to
+ * target/loadtest/app.log.
+ * <p>
+ * {@link #main} starts the same environment and keeps it up until interrupted, for poking at it
+ * by hand or attaching a profiler.
+ */
+public class LoadTestEnvironment implements AutoCloseable {
+
+    public static final String WEBHOOK_SECRET = "whsec_loadtest";
+
+    private static final Path WORK_DIR = Path.of("target", "loadtest");
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(3);
+    // Startup leftovers (JIT, first scheduler runs) finish before load starts
+    private static final Duration SETTLE = Duration.ofSeconds(10);
+
+    private final StripeStub stripe;
+    private final SmtpStub smtp;
+    private final CloudinaryStub cloudinary;
+    private final Process application;
+    private final String baseUrl;
+
+    private LoadTestEnvironment(LoadTestSettings settings) throws IOException {
+        stripe = new StripeStub(new InjectedLatency(settings.stripeLatency()));
+        smtp = new SmtpStub(new InjectedLatency(settings.smtpLatency()));
+        cloudinary = new CloudinaryStub(new InjectedLatency(settings.cloudinaryLatency()));
+
+        int port = freePort();
+        baseUrl = "http://127.0.0.1:" + port;
+        List<String> command = new ArrayList<>(List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Xmx" + settings.appHeap(),
+                "-cp", applicationClasspath(),
+                "com.firmament.immigration.ImmigrationBackendApplication",
+                "--server.port=" + port,
+                "--spring.threads.virtual.enabled=" + settings.virtualThreads(),
+                "--spring.jpa.show-sql=false",
+                "--logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+                "--app.rate-limit.enabled=false",
+                "--app.jwt.secret=" + UUID.randomUUID() + UUID.randomUUID(),
+                "--app.admin.username=admin",
+                "--app.admin.password=unused",
+                "--stripe.api.key=sk_test_loadtest",
+                "--stripe.api.base=" + stripe.baseUrl(),
+                "--stripe.webhook.secret=" + WEBHOOK_SECRET,
+                "--cloudinary.url=cloudinary://loadtest:loadtest@" + CloudinaryStub.CLOUD_NAME
+                        + "?upload_prefix=" + cloudinary.baseUrl(),
+                "--spring.mail.host=127.0.0.1",
+                "--spring.mail.port=" + smtp.port(),
+                "--spring.mail.username=",
+                "--spring.mail.password=",
+                "--spring.mail.properties.mail.smtp.auth=false",
+                "--spring.mail.properties.mail.smtp.starttls.enable=false",
+                "--app.email.from=appointments@loadtest.invalid",
+                "--app.upload.path=" + WORK_DIR.resolve("uploads")));
+        if (!settings.appArgs().isBlank()) {
+            command.addAll(Arrays.asList(settings.appArgs().trim().split("\\s+")));
+        }
+        Files.createDirectories(WORK_DIR);
+        application = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(WORK_DIR.resolve("app.log").toFile())
+                .start();
+        Runtime.getRuntime().addShutdownHook(new Thread(application::destroyForcibly));
+    }
+
+    public static LoadTestEnvironment start(LoadTestSettings settings) {
+        try {
+            LoadTestEnvironment environment = new LoadTestEnvironment(settings);
+            try {
+                environment.awaitHealthy();
+            } catch (RuntimeException e) {
+                environment.close();
+                throw e;
+            }
+            return environment;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public String baseUrl() {
+        return baseUrl;
+    }
+
+    public String summary() {
+        return String.format("stand-ins saw %d Stripe calls, %d emails, %d Cloudinary uploads (%.1f MB)",
+                stripe.requests(), smtp.messages(), cloudinary.uploads(), cloudinary.uploadedBytes() / 1e6);
+    }
+
+    private void awaitHealthy() {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest health = HttpRequest.newBuilder(URI.create(baseUrl + "/api/health")).build();
+        Instant deadline = Instant.now().plus(STARTUP_TIMEOUT);
+        while (Instant.now().isBefore(deadline)) {
+            if (!application.isAlive()) {
+                throw new IllegalStateException("Application exited with " + application.exitValue()
+                        + ", see " + WORK_DIR.resolve("app.log"));
+            }
+            try {
+                if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    sleep(SETTLE);
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            sleep(Duration.ofMillis(500));
+        }
+        throw new IllegalStateException("Application not healthy after " + STARTUP_TIMEOUT + ", see " + WORK_DIR.resolve("app.log"));
+    }
+
+    // Compiled classes and runtime dependencies, written by the loadtest profile; test classes
+    // and devtools stay out
+    private static String applicationClasspath() throws IOException {
+        Path dependencies = WORK_DIR.resolve("app.classpath");
+        if (!Files.exists(dependencies)) {
+            throw new IllegalStateException(dependencies + " is missing, run through the loadtest profile (mvn -Ploadtest test-compile gatling:test)");
+        }
+        return Path.of("target", "classes").toAbsolutePath() + File.pathSeparator + Files.readString(dependencies).trim();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        application.destroy();
+        try {
+            if (!application.waitFor(30, TimeUnit.SECONDS)) {
+                application.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            application.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+        stripe.close();
+        cloudinary.close();
+        try {
+            smtp.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        try (LoadTestEnvironment environment = start(settings)) {
+            System.out.println("Application up at " + environment.baseUrl() + " (virtual threads: "
+                    + settings.virtualThreads() + "), Ctrl-C to stop");
+            Thread.currentThread().join();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.firmament.immigration.loadtest;
+
+import java.time.Duration;
+
+/**
+ * Load test knobs, read from -Dloadtest.* system properties (mvn passes them through to Gatling)
+ *
+ * @param users           virtual users, started evenly over the ramp
+ * @param bookingsPerUser booking flows each user runs one after the other
+ * @param ramp            time to reach full concurrency
+ * @param thinkTime       pause between two pages of the same user
+ * @param horizonDays     bookings are spread over this many days from tomorrow
+ * @param virtualThreads  run the application with spring.threads.virtual.enabled
+ * @param stripeLatency   mean response time of the Stripe stand-in
+ * @param smtpLatency     mean time the SMTP stand-in takes to accept a message
+ * @param cloudinaryLatency mean response time of the Cloudinary stand-in
+ * @param appHeap         -Xmx of the application JVM
+ * @param appArgs         extra application arguments, e.g. "--spring.datasource.url=jdbc:postgresql://..."
+ * @param baseUrl         test an application that is already running (with its own stand-ins) instead
+ * @param maxErrorPercent the run fails above this share of failed requests
+ */
+public record LoadTestSettings(int users, int bookingsPerUser, Duration ramp, Duration thinkTime, int horizonDays,
+                               boolean virtualThreads, Duration stripeLatency, Duration smtpLatency,
+                               Duration cloudinaryLatency, String appHeap, String appArgs, String baseUrl,
+                               double maxErrorPercent) {
+
+    public static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("loadtest.users", 200),
+                Integer.getInteger("loadtest.bookings-per-user", 5),
+                Duration.ofSeconds(Long.getLong("loadtest.ramp-seconds", 60)),
+                Duration.ofMillis(Long.getLong("loadtest.think-time-ms", 500)),
+                Integer.getInteger("loadtest.horizon-days", 120),
+                Boolean.getBoolean("loadtest.virtual-threads"),
+                Duration.ofMillis(Long.getLong("loadtest.stripe-latency-ms", 300)),
+                Duration.ofMillis(Long.getLong("loadtest.smtp-latency-ms", 150)),
+                Duration.ofMillis(Long.getLong("loadtest.cloudinary-latency-ms", 400)),
+                System.getProperty("loadtest.app-heap", "1g"),
+                System.getProperty("loadtest.app-args", ""),
+                System.getProperty("loadtest.base-url", ""),
+                Double.parseDouble(System.getProperty("loadtest.max-error-percent", "1")));
+    }
+}
@@ -0,0 +1,152 @@
+package com.firmament.immigration.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.stripe.Stripe;
+import com.stripe.net.Webhook;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for the Stripe API calls PaymentServiceImpl makes: creating and retrieving payment
+ * intents. The application reaches it through stripe.api.base. Webhook events are not pushed
+ * from here; the load test builds and signs them ({@link #succeededEvent}, {@link #signature}),
+ * as Stripe would after the client pays.
+ */
+public class StripeStub implements AutoCloseable {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final String INTENTS = "/v1/payment_intents";
+
+    private final HttpServer server;
+    private final InjectedLatency latency;
+    private final Map<String, ObjectNode> intents = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+
+    public StripeStub(InjectedLatency latency) throws IOException {
+        this.latency = latency;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext(INTENTS, this::handle);
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long requests() {
+        return requests.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            latency.pause();
+            String path = exchange.getRequestURI().getPath();
+            if ("POST".equals(exchange.getRequestMethod()) && path.equals(INTENTS)) {
+                respond(exchange, 200, create(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8)));
+            } else if ("GET".equals(exchange.getRequestMethod()) && path.startsWith(INTENTS + "/")) {
+                ObjectNode intent = intents.get(path.substring(INTENTS.length() + 1));
+                if (intent == null) {
+                    respond(exchange, 404, error("No such payment_intent"));
+                } else {
+                    respond(exchange, 200, intent.deepCopy().put("status", "succeeded"));
+                }
+            } else {
+                respond(exchange, 404, error("Unrecognized request URL"));
+            }
+        }
+    }
+
+    // Form-encoded parameters, metadata as metadata[key]=value
+    private ObjectNode create(String form) {
+        String id = "pi_load_" + ids.incrementAndGet();
+        ObjectNode intent = JSON.createObjectNode()
+                .put("id", id)
+                .put("object", "payment_intent")
+                .put("client_secret", id + "_secret_load")
+                .put("status", "requires_payment_method")
+                .put("created", Instant.now().getEpochSecond())
+                .put("livemode", false);
+        ObjectNode metadata = intent.putObject("metadata");
+        for (String pair : form.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            if (key.startsWith("metadata[")) {
+                metadata.put(key.substring("metadata[".length(), key.length() - 1), value);
+            } else if ("amount".equals(key)) {
+                intent.put(key, Long.parseLong(value));
+            } else {
+                intent.put(key, value);
+            }
+        }
+        intents.put(id, intent);
+        return intent;
+    }
+
+    private static ObjectNode error(String message) {
+        ObjectNode body = JSON.createObjectNode();
+        body.putObject("error").put("type", "invalid_request_error").put("message", message);
+        return body;
+    }
+
+    private static void respond(HttpExchange exchange, int status, ObjectNode body) throws IOException {
+        byte[] bytes = JSON.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Request-Id", "req_load");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    /**
+     * The payment_intent.succeeded event Stripe sends once the client has paid, in the API
+     * version of the bundled client so the application can read its data object
+     */
+    public static String succeededEvent(String paymentIntentId, String appointmentId) {
+        ObjectNode event = JSON.createObjectNode()
+                .put("id", "evt_" + paymentIntentId)
+                .put("object", "event")
+                .put("api_version", Stripe.API_VERSION)
+                .put("created", Instant.now().getEpochSecond())
+                .put("type", "payment_intent.succeeded")
+                .put("livemode", false);
+        event.putObject("data").putObject("object")
+                .put("id", paymentIntentId)
+                .put("object", "payment_intent")
+                .put("status", "succeeded")
+                .putObject("metadata").put("appointmentId", appointmentId);
+        return event.toString();
+    }
+
+    /**
+     * Stripe-Signature header for a webhook payload
+     */
+    public static String signature(String payload, String secret) {
+        long timestamp = Webhook.Util.getTimeNow();
+        try {
+            return "t=" + timestamp + ",v1=" + Webhook.Util.computeHmacSha256(secret, timestamp + "." + payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,171 @@
+package com.firmament.immigration.benchmark;
+
+import com.firmament.immigration.config.ReadReplicaRouter;
+import com.firmament.immigration.entity.BlockedPeriod;
+import com.firmament.immigration.repository.AppointmentRepository;
+import com.firmament.immigration.repository.BlockedPeriodRepository;
+import com.firmament.immigration.service.AvailabilityVersionTracker;
+import com.firmament.immigration.service.impl.AvailabilityServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Availability computation in {@link AvailabilityServiceImpl} for next month, with the blocked
+ * periods served from memory so only the service's own work is measured. Every weekday holds
+ * back-to-back bookings from 9:00 Montreal time. Caches are not involved: the service is used
+ * without its Spring proxy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvailabilityBenchmark {
+
+    private static final ZoneId BUSINESS_ZONE = ZoneId.of("America/Montreal");
+    private static final int[] DURATIONS = {60, 30, 90};
+
+    private static final MethodHandle IS_SLOT_FREE;
+
+    static {
+        try {
+            IS_SLOT_FREE = MethodHandles.privateLookupIn(AvailabilityServiceImpl.class, MethodHandles.lookup())
+                    .findVirtual(AvailabilityServiceImpl.class, "isSlotFree",
+                            MethodType.methodType(boolean.class, LocalTime.class, int.class, List.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Param({"0", "4", "12"})
+    public int bookingsPerDay;
+
+    // Tokyo's local day spans two UTC dates and is far from the business hours
+    @Param({"America/Montreal", "Asia/Tokyo"})
+    public String timezone;
+
+    private AvailabilityServiceImpl service;
+    private LocalDate busiestDay;
+    private int year;
+    private int month;
+    private List<LocalTime[]> dayRanges;
+    private LocalTime probe;
+
+    @Setup
+    public void setUp() {
+        LocalDate firstDay = LocalDate.now().plusMonths(1).withDayOfMonth(1);
+        year = firstDay.getYear();
+        month = firstDay.getMonthValue();
+        busiestDay = firstDay.with(TemporalAdjusters.firstInMonth(DayOfWeek.WEDNESDAY));
+
+        NavigableMap<ZonedDateTime, List<BlockedPeriod>> byStart = new TreeMap<>();
+        for (LocalDate day = firstDay; day.getMonthValue() == month; day = day.plusDays(1)) {
+            if (day.getDayOfWeek().getValue() > 5) {
+                continue;
+            }
+            ZonedDateTime start = day.atTime(9, 0).atZone(BUSINESS_ZONE);
+            for (int i = 0; i < bookingsPerDay; i++) {
+                ZonedDateTime utcStart = start.withZoneSameInstant(ZoneOffset.UTC);
+                ZonedDateTime utcEnd = utcStart.plusMinutes(DURATIONS[i % DURATIONS.length]);
+                BlockedPeriod period = BlockedPeriod.builder()
+                        .date(utcStart.toLocalDate())
+                        .startDateTime(utcStart)
+                        .endDateTime(utcEnd)
+                        .originalTimezone(BUSINESS_ZONE.getId())
+                        .reason("APPOINTMENT")
+                        .build();
+                byStart.computeIfAbsent(utcStart, k -> new ArrayList<>()).add(period);
+                start = utcEnd.withZoneSameInstant(BUSINESS_ZONE);
+            }
+        }
+
+        // No Redis and no replicas: the tracker only hands out version tags
+        DefaultListableBeanFactory noBeans = new DefaultListableBeanFactory();
+        AvailabilityVersionTracker tracker = new AvailabilityVersionTracker(noBeans.getBeanProvider(StringRedisTemplate.class),
+                new ConcurrentMapCacheManager(), noBeans.getBeanProvider(ReadReplicaRouter.class), false);
+        service = new AvailabilityServiceImpl(inMemory(byStart), unused(AppointmentRepository.class), new ModelMapper(), tracker,
+                new SimpleMeterRegistry());
+
+        ZoneId zone = ZoneId.of(timezone);
+        ZonedDateTime dayStart = busiestDay.atStartOfDay(zone);
+        dayRanges = byStart.subMap(dayStart.minusDays(2).withZoneSameInstant(ZoneOffset.UTC), true,
+                        dayStart.plusDays(1).withZoneSameInstant(ZoneOffset.UTC), false).values().stream()
+                .flatMap(List::stream)
+                .filter(bp -> bp.getEndDateTime().isAfter(dayStart))
+                .map(bp -> new LocalTime[]{
+                        bp.getStartDateTime().withZoneSameInstant(zone).toLocalTime(),
+                        bp.getEndDateTime().withZoneSameInstant(zone).toLocalTime()})
+                .toList();
+        // Last slot of the day in the local zone: every range has to be checked before answering
+        probe = LocalTime.of(22, 30);
+    }
+
+    @Benchmark
+    public Object dayAvailability() {
+        return service.getAvailableTimesForDay(busiestDay, timezone);
+    }
+
+    @Benchmark
+    public Object monthAvailability() {
+        return service.getMonthAvailability(year, month, timezone);
+    }
+
+    @Benchmark
+    public boolean isSlotFree() throws Throwable {
+        return (boolean) IS_SLOT_FREE.invokeExact(service, probe, 90, dayRanges);
+    }
+
+    // Answers the two queries the computations issue from the fixture; default methods run as
+    // they would on the Spring Data proxy
+    private static BlockedPeriodRepository inMemory(NavigableMap<ZonedDateTime, List<BlockedPeriod>> byStart) {
+        InvocationHandler handler = (proxy, method, args) -> switch (method.getName()) {
+            case "findOverlapping" -> byStart.subMap((ZonedDateTime) args[2], true, (ZonedDateTime) args[1], false)
+                    .values().stream()
+                    .flatMap(List::stream)
+                    .filter(bp -> bp.getEndDateTime().isAfter((ZonedDateTime) args[0]))
+                    .toList();
+            case "findByDateBetweenAndStartDateTimeBetween" -> byStart.subMap((ZonedDateTime) args[2], true, (ZonedDateTime) args[3], true)
+                    .values().stream()
+                    .flatMap(List::stream)
+                    .filter(bp -> !bp.getDate().isBefore((LocalDate) args[0]) && !bp.getDate().isAfter((LocalDate) args[1]))
+                    .toList();
+            default -> {
+                if (method.isDefault()) {
+                    yield InvocationHandler.invokeDefault(proxy, method, args);
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        };
+        return (BlockedPeriodRepository) Proxy.newProxyInstance(
+                BlockedPeriodRepository.class.getClassLoader(), new Class<?>[]{BlockedPeriodRepository.class}, handler);
+    }
+
+    private static <T> T unused(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            throw new UnsupportedOperationException(method.getName());
+        }));
+    }
+}
@@ -0,0 +1,101 @@
+package com.firmament.immigration.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Compares two JMH JSON result files, benchmark by benchmark:
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.result=jmh-baseline.json    (on the reference commit)
+ * mvn -Pjmh test-compile exec:exec                                      (on the change)
+ * mvn -Pjmh test-compile exec:exec@compare -Djmh.baseline=jmh-baseline.json [-Djmh.max-regression=10]
+ * </pre>
+ * A change only counts when the two scores are further apart than their error margins added
+ * together. With a maximum regression in percent, the exit status is 1 if any benchmark got
+ * slower by more than that, so the comparison can gate a local run.
+ */
+public class BenchmarkComparison {
+
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <current.json> [max regression %]");
+            System.exit(2);
+        }
+        Map<String, JsonNode> baseline = load(new File(args[0]));
+        Map<String, JsonNode> current = load(new File(args[1]));
+        double maxRegression = args.length > 2 && !args[2].isBlank() ? Double.parseDouble(args[2]) : Double.NaN;
+
+        System.out.printf("%-80s %15s %15s %9s %12s %12s%n", "Benchmark", "Baseline", "Current", "Change", "B/op before", "B/op after");
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            JsonNode after = entry.getValue();
+            if (before == null) {
+                System.out.printf("%-80s %15s %15s%n", entry.getKey(), "-", score(after.path("primaryMetric")));
+                continue;
+            }
+            JsonNode beforeMetric = before.path("primaryMetric");
+            JsonNode afterMetric = after.path("primaryMetric");
+            double base = beforeMetric.path("score").asDouble();
+            double now = afterMetric.path("score").asDouble();
+            double margin = errorOf(beforeMetric) + errorOf(afterMetric);
+            // Throughput: higher is better; every other mode measures time
+            double improvement = ("thrpt".equals(after.path("mode").asText()) ? now - base : base - now) / base * 100;
+            String change = Math.abs(now - base) <= margin ? "~" : String.format("%+.1f%%", improvement);
+            if (Math.abs(now - base) > margin && -improvement > maxRegression) {
+                change += " !";
+                regressions++;
+            }
+            System.out.printf("%-80s %15s %15s %9s %12s %12s%n", entry.getKey(), score(beforeMetric), score(afterMetric),
+                    change, allocation(before), allocation(after));
+        }
+        baseline.keySet().stream()
+                .filter(key -> !current.containsKey(key))
+                .forEach(key -> System.out.printf("%-80s %15s %15s%n", key, score(baseline.get(key).path("primaryMetric")), "-"));
+
+        if (regressions > 0) {
+            System.out.printf("%n%d benchmark(s) regressed by more than %.1f%%%n", regressions, maxRegression);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            results.put(key(result), result);
+        }
+        return results;
+    }
+
+    // Short class and method name, then the parameters: AvailabilityBenchmark.dayAvailability(bookingsPerDay=4, ...)
+    private static String key(JsonNode result) {
+        String benchmark = result.path("benchmark").asText();
+        String[] parts = benchmark.split("\\.");
+        String name = parts.length > 1 ? parts[parts.length - 2] + "." + parts[parts.length - 1] : benchmark;
+        StringJoiner params = new StringJoiner(", ", "(", ")").setEmptyValue("");
+        result.path("params").properties().forEach(param -> params.add(param.getKey() + "=" + param.getValue().asText()));
+        return name + params;
+    }
+
+    private static double errorOf(JsonNode metric) {
+        double error = metric.path("scoreError").asDouble(0);
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    private static String score(JsonNode metric) {
+        return String.format("%.3f %s", metric.path("score").asDouble(), metric.path("scoreUnit").asText());
+    }
+
+    private static String allocation(JsonNode result) {
+        JsonNode allocation = result.path("secondaryMetrics").path(ALLOCATION);
+        return allocation.isMissingNode() ? "-" : String.format("%.0f", allocation.path("score").asDouble());
+    }
+}
@@ -0,0 +1,123 @@
+package com.firmament.immigration.benchmark;
+
+import com.firmament.immigration.config.CacheValueSerializer;
+import com.firmament.immigration.config.TwoLevelCacheProperties;
+import com.firmament.immigration.dto.response.AppointmentResponse;
+import com.firmament.immigration.dto.response.DayAvailabilityResponse;
+import com.firmament.immigration.dto.response.DocumentResponse;
+import com.firmament.immigration.dto.response.TimeSlotDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis cache value codecs on the two DTOs we cache or are likely to: a day of availability and
+ * an appointment with documents. Bytes per entry are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheCodecBenchmark {
+
+    @Param({"jdk", "json", "json+lz4", "smile", "smile+lz4"})
+    public String codec;
+
+    @Param({"day", "appointment"})
+    public String payload;
+
+    private RedisSerializer<Object> serializer;
+    private Object value;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        serializer = switch (codec) {
+            case "jdk" -> RedisSerializer.java();
+            case "json" -> new CacheValueSerializer(TwoLevelCacheProperties.Codec.JSON, 0, 1);
+            case "json+lz4" -> new CacheValueSerializer(TwoLevelCacheProperties.Codec.JSON, 1024, 1);
+            case "smile" -> new CacheValueSerializer(TwoLevelCacheProperties.Codec.SMILE, 0, 1);
+            case "smile+lz4" -> new CacheValueSerializer(TwoLevelCacheProperties.Codec.SMILE, 1024, 1);
+            default -> throw new IllegalArgumentException(codec);
+        };
+        value = "day".equals(payload) ? day() : appointment();
+        bytes = serializer.serialize(value);
+        if (!value.equals(serializer.deserialize(bytes))) {
+            throw new IllegalStateException(codec + " does not round-trip " + payload);
+        }
+        System.out.printf("%n%s %s: %d bytes per entry%n", codec, payload, bytes.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(bytes);
+    }
+
+    private static DayAvailabilityResponse day() {
+        DayAvailabilityResponse response = new DayAvailabilityResponse();
+        response.setDate(LocalDate.of(2026, 11, 16));
+        response.setTimezone("America/Montreal");
+        List<TimeSlotDto> slots = new ArrayList<>();
+        for (int i = 0; i < 47; i++) {
+            TimeSlotDto slot = new TimeSlotDto();
+            slot.setStartTime(LocalTime.MIDNIGHT.plusMinutes(i * 30L));
+            boolean busy = i >= 18 && i < 21; // one 90-minute booking mid-morning
+            slot.setAvailable30Min(!busy);
+            slot.setAvailable60Min(!busy && i != 17 && i != 46);
+            slot.setAvailable90Min(!busy && i < 16 || i > 20 && i < 45);
+            slots.add(slot);
+        }
+        response.setAvailableSlots(slots);
+        return response;
+    }
+
+    private static AppointmentResponse appointment() {
+        AppointmentResponse response = new AppointmentResponse();
+        response.setId("5f0c6a8e-2b1d-4a9e-9d7b-3c2f1e0a4b6d");
+        response.setFirstName("Amina");
+        response.setLastName("Benali");
+        response.setEmail("amina.benali@example.com");
+        response.setPhone("+1 514 555 0142");
+        response.setCountry("Morocco");
+        response.setAppointmentDate(ZonedDateTime.of(2026, 11, 16, 14, 30, 0, 0, ZoneOffset.UTC));
+        response.setUserTimezone("America/Montreal");
+        response.setDuration(60);
+        response.setConsultationType("Permanent residence");
+        response.setClientPresentation("Software engineer currently on a work permit, looking at Express Entry and PEQ options.");
+        response.setAmount(new BigDecimal("150.00"));
+        response.setCurrency("CAD");
+        response.setStatus("CONFIRMED");
+        response.setPaymentIntentId("pi_3QabcDEFghiJKLmn0a1b2c3d");
+        response.setCreatedAt(LocalDateTime.of(2026, 11, 2, 9, 12, 44));
+        response.setUpdatedAt(LocalDateTime.of(2026, 11, 2, 9, 15, 3));
+        List<DocumentResponse> documents = new ArrayList<>();
+        for (String name : List.of("passport.pdf", "work-permit.pdf", "resume.pdf")) {
+            DocumentResponse document = new DocumentResponse();
+            document.setId("doc-" + name.hashCode());
+            document.setFileName(name);
+            document.setFileType("application/pdf");
+            document.setFileSize(482_113L);
+            document.setUploadedAt(LocalDateTime.of(2026, 11, 2, 9, 20, 0));
+            document.setUrl("https://res.cloudinary.com/demo/raw/upload/v1730538000/appointments/" + name);
+            documents.add(document);
+        }
+        response.setDocuments(documents);
+        return response;
+    }
+}
@@ -0,0 +1,106 @@
+package com.firmament.immigration.benchmark;
+
+import com.firmament.immigration.dto.response.AppointmentResponse;
+import com.firmament.immigration.dto.response.BlockedPeriodResponse;
+import com.firmament.immigration.entity.Appointment;
+import com.firmament.immigration.entity.AppointmentStatus;
+import com.firmament.immigration.entity.BlockedPeriod;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to response mapping with the shared {@link ModelMapper}, as AppointmentServiceImpl and
+ * AvailabilityServiceImpl do it, against copying the appointment field by field.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    private ModelMapper modelMapper;
+    private Appointment appointment;
+    private BlockedPeriod blockedPeriod;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+
+        appointment = new Appointment();
+        appointment.setId("0192f1c4-8a7e-7b3d-9f21-5c6d7e8f9a0b");
+        appointment.setFirstName("Amina");
+        appointment.setLastName("Benali");
+        appointment.setEmail("amina.benali@example.com");
+        appointment.setPhone("+212 6 12 34 56 78");
+        appointment.setCountry("Morocco");
+        appointment.setAppointmentDate(ZonedDateTime.of(2026, 11, 16, 14, 30, 0, 0, ZoneOffset.UTC));
+        appointment.setUserTimezone("Africa/Casablanca");
+        appointment.setDuration(60);
+        appointment.setConsultationType("Permanent residence");
+        appointment.setClientPresentation("Software engineer currently on a work permit, looking at Express Entry and PEQ options.");
+        appointment.setAmount(new BigDecimal("1100.00"));
+        appointment.setCurrency("MAD");
+        appointment.setStatus(AppointmentStatus.CONFIRMED);
+        appointment.setPaymentIntentId("pi_3QabcDEFghiJKLmn0a1b2c3d");
+        appointment.setCreatedAt(LocalDateTime.of(2026, 11, 2, 9, 12, 44));
+        appointment.setUpdatedAt(LocalDateTime.of(2026, 11, 2, 9, 15, 3));
+
+        ZonedDateTime start = appointment.getAppointmentDate();
+        blockedPeriod = BlockedPeriod.builder()
+                .date(start.toLocalDate())
+                .startDateTime(start)
+                .endDateTime(start.plusMinutes(appointment.getDuration()))
+                .originalTimezone(appointment.getUserTimezone())
+                .reason("APPOINTMENT")
+                .appointment(appointment)
+                .build();
+        blockedPeriod.setId("0192f1c4-8a7f-7c10-8e2d-1a2b3c4d5e6f");
+
+        if (!byHand().equals(modelMapper.map(appointment, AppointmentResponse.class))) {
+            throw new IllegalStateException("The hand-written copy does not match ModelMapper");
+        }
+    }
+
+    @Benchmark
+    public AppointmentResponse appointment() {
+        return modelMapper.map(appointment, AppointmentResponse.class);
+    }
+
+    @Benchmark
+    public BlockedPeriodResponse blockedPeriod() {
+        BlockedPeriodResponse response = modelMapper.map(blockedPeriod, BlockedPeriodResponse.class);
+        response.setAppointmentId(blockedPeriod.getAppointment().getId());
+        return response;
+    }
+
+    @Benchmark
+    public AppointmentResponse byHand() {
+        AppointmentResponse response = new AppointmentResponse();
+        response.setId(appointment.getId());
+        response.setFirstName(appointment.getFirstName());
+        response.setLastName(appointment.getLastName());
+        response.setEmail(appointment.getEmail());
+        response.setPhone(appointment.getPhone());
+        response.setCountry(appointment.getCountry());
+        response.setAppointmentDate(appointment.getAppointmentDate());
+        response.setUserTimezone(appointment.getUserTimezone());
+        response.setDuration(appointment.getDuration());
+        response.setConsultationType(appointment.getConsultationType());
+        response.setClientPresentation(appointment.getClientPresentation());
+        response.setAmount(appointment.getAmount());
+        response.setCurrency(appointment.getCurrency());
+        response.setStatus(appointment.getStatus().name());
+        response.setPaymentIntentId(appointment.getPaymentIntentId());
+        response.setCreatedAt(appointment.getCreatedAt());
+        response.setUpdatedAt(appointment.getUpdatedAt());
+        return response;
+    }
+}
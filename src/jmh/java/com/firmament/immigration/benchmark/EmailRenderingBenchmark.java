@@ -0,0 +1,160 @@
+package com.firmament.immigration.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.firmament.immigration.entity.Appointment;
+import com.firmament.immigration.entity.AppointmentStatus;
+import com.firmament.immigration.service.impl.EmailServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building each email {@link EmailServiceImpl} sends: date formatting, Thymeleaf rendering of the
+ * real templates (cached, as in production) and MIME encoding. The mail sender writes the message
+ * to nowhere instead of SMTP. {@code render} is the template alone, with every variable the
+ * emails set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailRenderingBenchmark {
+
+    @Param({"confirmation", "receipt", "reminder", "documents", "cancellation"})
+    public String email;
+
+    private EmailServiceImpl service;
+    private SpringTemplateEngine templateEngine;
+    private Appointment appointment;
+    private List<String> fileNames;
+    private String template;
+    private Context variables;
+
+    @Setup
+    public void setUp() {
+        // One line per email sent would dominate the measurement
+        ((Logger) LoggerFactory.getLogger(EmailServiceImpl.class)).setLevel(Level.WARN);
+
+        // What Spring Boot's Thymeleaf auto-configuration sets up
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setCacheable(true);
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+
+        DiscardingMailSender mailSender = new DiscardingMailSender();
+        service = new EmailServiceImpl(mailSender, templateEngine, new SimpleMeterRegistry(), ObservationRegistry.NOOP);
+        ReflectionTestUtils.setField(service, "fromEmail", "appointments@firmament-immigration.com");
+        ReflectionTestUtils.setField(service, "fromName", "Firmament Immigration");
+        ReflectionTestUtils.setField(service, "companyName", "Firmament Immigration");
+        ReflectionTestUtils.setField(service, "frontendUrl", "https://firmament-immigration.com");
+
+        appointment = new Appointment();
+        appointment.setId("0192f1c4-8a7e-7b3d-9f21-5c6d7e8f9a0b");
+        appointment.setFirstName("Amina");
+        appointment.setLastName("Benali");
+        appointment.setEmail("amina.benali@example.com");
+        appointment.setCountry("Morocco");
+        appointment.setAppointmentDate(ZonedDateTime.of(2026, 11, 16, 14, 30, 0, 0, ZoneOffset.UTC));
+        appointment.setUserTimezone("Africa/Casablanca");
+        appointment.setDuration(60);
+        appointment.setConsultationType("Permanent residence");
+        appointment.setAmount(new BigDecimal("1100.00"));
+        appointment.setCurrency("MAD");
+        appointment.setStatus(AppointmentStatus.CONFIRMED);
+        appointment.setPaymentIntentId("pi_3QabcDEFghiJKLmn0a1b2c3d");
+        fileNames = List.of("passport.pdf", "work-permit.pdf", "resume.pdf");
+
+        template = switch (email) {
+            case "confirmation" -> "appointment-confirmation";
+            case "receipt" -> "payment-receipt";
+            case "reminder" -> "appointment-reminder";
+            case "documents" -> "document-confirmation";
+            case "cancellation" -> "appointment-cancellation";
+            default -> throw new IllegalArgumentException(email);
+        };
+        variables = new Context();
+        variables.setVariable("firstName", appointment.getFirstName());
+        variables.setVariable("appointmentDate", "Monday, November 16, 2026 at 3:30 PM WET");
+        variables.setVariable("appointmentTime", "3:30 PM");
+        variables.setVariable("timezone", appointment.getUserTimezone());
+        variables.setVariable("timezoneAbbr", "WET");
+        variables.setVariable("duration", appointment.getDuration());
+        variables.setVariable("consultationType", appointment.getConsultationType());
+        variables.setVariable("appointmentId", appointment.getId());
+        variables.setVariable("viewLink", "https://firmament-immigration.com/appointments/" + appointment.getId());
+        variables.setVariable("joinLink", "https://firmament-immigration.com/appointments/" + appointment.getId());
+        variables.setVariable("amount", appointment.getAmount());
+        variables.setVariable("currency", appointment.getCurrency());
+        variables.setVariable("paymentId", appointment.getPaymentIntentId());
+        variables.setVariable("paymentDate", "November 2, 2026 at 10:15 AM WET");
+        variables.setVariable("fileNames", fileNames);
+
+        // EmailServiceImpl only logs failures, which would otherwise look like very fast sends
+        send();
+        if (mailSender.sent == 0) {
+            throw new IllegalStateException("The " + email + " email was not built, see the log above");
+        }
+    }
+
+    @Benchmark
+    public void send() {
+        switch (email) {
+            case "confirmation" -> service.sendAppointmentConfirmation(appointment);
+            case "receipt" -> service.sendPaymentReceipt(appointment, appointment.getPaymentIntentId());
+            case "reminder" -> service.sendAppointmentReminder(appointment);
+            case "documents" -> service.sendDocumentUploadConfirmation(appointment, fileNames);
+            case "cancellation" -> service.sendCancellationNotification(appointment);
+            default -> throw new IllegalArgumentException(email);
+        }
+    }
+
+    @Benchmark
+    public String render() {
+        return templateEngine.process(template, variables);
+    }
+
+    /**
+     * Encodes the message as SMTP would receive it, then drops it
+     */
+    static class DiscardingMailSender extends JavaMailSenderImpl {
+
+        private int sent;
+
+        @Override
+        public void send(MimeMessage... mimeMessages) {
+            for (MimeMessage message : mimeMessages) {
+                try {
+                    message.writeTo(OutputStream.nullOutputStream());
+                    sent++;
+                } catch (IOException | MessagingException e) {
+                    throw new MailPreparationException(e);
+                }
+            }
+        }
+    }
+}
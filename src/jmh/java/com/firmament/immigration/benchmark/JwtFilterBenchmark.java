@@ -0,0 +1,141 @@
+package com.firmament.immigration.benchmark;
+
+import com.firmament.immigration.config.JwtAuthenticationFilter;
+import com.firmament.immigration.service.TokenRevocationService;
+import com.firmament.immigration.service.impl.TokenRevocationServiceImpl;
+import com.firmament.immigration.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of authenticating one admin request in {@link JwtAuthenticationFilter}: the previous
+ * implementation (four verifications, key rebuilt each time) against a single parse, with and
+ * without the verified-token cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "benchmark-secret-0123456789-benchmark-secret-0123456789";
+    private static final long EXPIRATION = 86_400_000L;
+
+    private String authorization;
+    private OncePerRequestFilter legacyFilter;
+    private JwtAuthenticationFilter singleParseFilter;
+    private JwtAuthenticationFilter cachedFilter;
+
+    @Setup
+    public void setUp() {
+        JwtUtil cached = new JwtUtil(SECRET, EXPIRATION, 10_000, new SimpleMeterRegistry());
+        authorization = "Bearer " + cached.generateToken("admin", "ADMIN");
+        legacyFilter = new LegacyJwtFilter(SECRET);
+        TokenRevocationService revocations = new TokenRevocationServiceImpl(null, 10_000, false);
+        singleParseFilter = new JwtAuthenticationFilter(new JwtUtil(SECRET, EXPIRATION, 0, new SimpleMeterRegistry()), revocations);
+        cachedFilter = new JwtAuthenticationFilter(cached, revocations);
+    }
+
+    @Benchmark
+    public void legacy(Blackhole bh) throws Exception {
+        run(legacyFilter, bh);
+    }
+
+    @Benchmark
+    public void singleParse(Blackhole bh) throws Exception {
+        run(singleParseFilter, bh);
+    }
+
+    @Benchmark
+    public void singleParseCached(Blackhole bh) throws Exception {
+        run(cachedFilter, bh);
+    }
+
+    private void run(OncePerRequestFilter filter, Blackhole bh) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/appointments");
+        request.addHeader("Authorization", authorization);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        bh.consume(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+
+    /**
+     * The filter and JwtUtil as they were before the single-parse change, kept for comparison
+     */
+    static class LegacyJwtFilter extends OncePerRequestFilter {
+
+        private final String secret;
+
+        LegacyJwtFilter(String secret) {
+            this.secret = secret;
+        }
+
+        private SecretKey getSigningKey() {
+            return Keys.hmacShaKeyFor(secret.getBytes());
+        }
+
+        private Claims extractAllClaims(String token) {
+            return Jwts.parser().verifyWith(getSigningKey()).build().parseSignedClaims(token).getPayload();
+        }
+
+        private String extractUsername(String token) {
+            return extractAllClaims(token).getSubject();
+        }
+
+        private String extractRole(String token) {
+            return extractAllClaims(token).get("role", String.class);
+        }
+
+        private Boolean validateToken(String token, String username) {
+            return extractUsername(token).equals(username)
+                    && !extractAllClaims(token).getExpiration().before(new Date());
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws IOException, ServletException {
+            String header = request.getHeader("Authorization");
+            String username = null;
+            String jwt = null;
+            String role = null;
+            if (header != null && header.startsWith("Bearer ")) {
+                jwt = header.substring(7);
+                try {
+                    username = extractUsername(jwt);
+                    role = extractRole(jwt);
+                } catch (Exception e) {
+                    // Invalid token
+                }
+            }
+            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null
+                    && validateToken(jwt, username)) {
+                SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                        username, null, Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role))));
+            }
+            chain.doFilter(request, response);
+        }
+    }
+}
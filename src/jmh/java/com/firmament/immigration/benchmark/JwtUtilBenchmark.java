@@ -0,0 +1,77 @@
+package com.firmament.immigration.benchmark;
+
+import com.firmament.immigration.util.JwtUtil;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JwtUtil} on its own: issuing a token, verifying one with and without the verified-token
+ * cache, and rejecting a forged or an expired one (the path every bad request takes).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET = "benchmark-secret-0123456789-benchmark-secret-0123456789";
+    private static final long EXPIRATION = 86_400_000L;
+
+    private JwtUtil uncached;
+    private JwtUtil cached;
+    private String token;
+    private String forged;
+    private String expired;
+
+    @Setup
+    public void setUp() {
+        uncached = new JwtUtil(SECRET, EXPIRATION, 0, new SimpleMeterRegistry());
+        cached = new JwtUtil(SECRET, EXPIRATION, 10_000, new SimpleMeterRegistry());
+        token = uncached.generateToken("admin", "ADMIN");
+        // Same header and claims, signature of another token
+        String other = uncached.generateToken("admin", "ADMIN");
+        forged = token.substring(0, token.lastIndexOf('.')) + other.substring(other.lastIndexOf('.'));
+        expired = new JwtUtil(SECRET, -60_000L, 0, new SimpleMeterRegistry()).generateToken("admin", "ADMIN");
+        if (!"admin".equals(cached.parse(token).username())) {
+            throw new IllegalStateException("Token does not verify");
+        }
+    }
+
+    @Benchmark
+    public String generate() {
+        return uncached.generateToken("admin", "ADMIN");
+    }
+
+    @Benchmark
+    public JwtUtil.JwtPrincipal parse() {
+        return uncached.parse(token);
+    }
+
+    @Benchmark
+    public JwtUtil.JwtPrincipal parseCached() {
+        return cached.parse(token);
+    }
+
+    @Benchmark
+    public Object rejectForged() {
+        return reject(forged);
+    }
+
+    @Benchmark
+    public Object rejectExpired() {
+        return reject(expired);
+    }
+
+    private Object reject(String bad) {
+        try {
+            return uncached.parse(bad);
+        } catch (JwtException e) {
+            return e;
+        }
+    }
+}
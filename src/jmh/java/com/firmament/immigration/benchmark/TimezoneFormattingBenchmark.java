@@ -0,0 +1,60 @@
+package com.firmament.immigration.benchmark;
+
+import com.firmament.immigration.util.TimezoneUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TimezoneUtil} formatting for emails and the timezone picker. The formatters are built
+ * from their pattern on every call, which is part of what is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimezoneFormattingBenchmark {
+
+    // Casablanca has the most irregular rules of the zones we serve (DST suspended for Ramadan)
+    @Param({"America/Montreal", "Africa/Casablanca"})
+    public String timezone;
+
+    private TimezoneUtil timezoneUtil;
+    private ZonedDateTime appointmentDate;
+
+    @Setup
+    public void setUp() {
+        timezoneUtil = new TimezoneUtil();
+        appointmentDate = ZonedDateTime.of(2026, 11, 16, 14, 30, 0, 0, ZoneOffset.UTC);
+    }
+
+    @Benchmark
+    public ZonedDateTime convert() {
+        return timezoneUtil.convertToUserTimezone(appointmentDate, timezone);
+    }
+
+    @Benchmark
+    public String formatForEmail() {
+        return timezoneUtil.formatForEmail(appointmentDate, timezone, Locale.ENGLISH);
+    }
+
+    @Benchmark
+    public String formatForEmailFrench() {
+        return timezoneUtil.formatForEmailFrench(appointmentDate, timezone);
+    }
+
+    @Benchmark
+    public String abbreviation() {
+        return timezoneUtil.getAbbreviation(appointmentDate, timezone);
+    }
+
+    @Benchmark
+    public String utcOffset() {
+        return timezoneUtil.getUtcOffset(timezone);
+    }
+}
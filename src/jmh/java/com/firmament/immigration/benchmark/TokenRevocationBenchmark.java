@@ -0,0 +1,47 @@
+package com.firmament.immigration.benchmark;
+
+import com.firmament.immigration.service.TokenRevocationService;
+import com.firmament.immigration.service.impl.TokenRevocationServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of the revocation check in JwtAuthenticationFilter, with a full denylist
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenRevocationBenchmark {
+
+    private TokenRevocationService revocations;
+    private String activeTokenId;
+    private String revokedTokenId;
+
+    @Setup
+    public void setUp() {
+        revocations = new TokenRevocationServiceImpl(null, 10_000, false);
+        Instant expiresAt = Instant.now().plus(1, ChronoUnit.DAYS);
+        for (int i = 0; i < 10_000; i++) {
+            revokedTokenId = UUID.randomUUID().toString();
+            revocations.revokeLocally(revokedTokenId, expiresAt);
+        }
+        activeTokenId = UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public boolean activeToken() {
+        return revocations.isRevoked(activeTokenId);
+    }
+
+    @Benchmark
+    public boolean revokedToken() {
+        return revocations.isRevoked(revokedTokenId);
+    }
+}
@@ -0,0 +1,116 @@
+package com.firmament.immigration.benchmark;
+
+import com.firmament.immigration.config.OtlpJsonFileSpanExporter;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.handler.DefaultTracingObservationHandler;
+import io.micrometer.tracing.otel.bridge.OtelCurrentTraceContext;
+import io.micrometer.tracing.otel.bridge.OtelTracer;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What observing a request costs, with no observation at all, metrics only, and metrics plus
+ * tracing at a few sampling probabilities: a booking, one server observation with the child
+ * observations it creates (repository calls, Stripe, email), and a cached availability GET, a
+ * server observation alone. Recorded spans are exported synchronously to OTLP JSON files, which
+ * is the most expensive setup the application offers. Divided by a request's own time, the
+ * difference to "metrics" is the tracing overhead; the cached GET is the cheapest request, so
+ * it bounds the relative overhead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TracingOverheadBenchmark {
+
+    // Child spans of a booking: 5 repository calls, payment intent, 2 emails
+    private static final int CHILD_SPANS = 8;
+
+    @Param({"off", "metrics", "0.0", "0.1", "1.0"})
+    private String tracing;
+
+    private ObservationRegistry registry;
+    private SdkTracerProvider tracerProvider;
+    private Path spanDir;
+
+    @Setup
+    public void setUp() throws Exception {
+        if ("off".equals(tracing)) {
+            registry = ObservationRegistry.NOOP;
+            return;
+        }
+        registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(new DefaultMeterObservationHandler(new SimpleMeterRegistry()));
+        if ("metrics".equals(tracing)) {
+            return;
+        }
+        spanDir = Files.createTempDirectory("spans");
+        tracerProvider = SdkTracerProvider.builder()
+                .setSampler(Sampler.parentBased(Sampler.traceIdRatioBased(Double.parseDouble(tracing))))
+                .addSpanProcessor(SimpleSpanProcessor.create(
+                        new OtlpJsonFileSpanExporter(spanDir.resolve("spans-%g.jsonl").toString(), 10_000_000, 2)))
+                .build();
+        OtelTracer tracer = new OtelTracer(tracerProvider.get("benchmark"), new OtelCurrentTraceContext(), event -> {
+        });
+        registry.observationConfig().observationHandler(new DefaultTracingObservationHandler(tracer));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        if (tracerProvider != null) {
+            tracerProvider.close();
+        }
+        if (spanDir != null) {
+            try (var files = Files.list(spanDir)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(spanDir);
+        }
+    }
+
+    @Benchmark
+    public void cachedAvailability(Blackhole blackhole) {
+        Observation request = Observation.createNotStarted("http.server.requests", registry)
+                .contextualName("http get /api/availability/day/{date}")
+                .lowCardinalityKeyValue("uri", "/api/availability/day/{date}")
+                .start();
+        try (Observation.Scope scope = request.openScope()) {
+            blackhole.consume(request);
+        } finally {
+            request.stop();
+        }
+    }
+
+    @Benchmark
+    public void booking(Blackhole blackhole) {
+        Observation request = Observation.createNotStarted("http.server.requests", registry)
+                .contextualName("http post /api/appointments")
+                .lowCardinalityKeyValue("uri", "/api/appointments")
+                .start();
+        try (Observation.Scope scope = request.openScope()) {
+            for (int i = 0; i < CHILD_SPANS; i++) {
+                Observation.createNotStarted("immigration.repository", registry)
+                        .contextualName("AppointmentRepository.save")
+                        .lowCardinalityKeyValue("repository", "AppointmentRepository")
+                        .lowCardinalityKeyValue("method", "save")
+                        .observe(() -> blackhole.consume(request));
+            }
+        } finally {
+            request.stop();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.firmament.immigration.benchmark;
+
+import com.firmament.immigration.entity.UuidV7Generator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Inserting an appointment with two documents into a file-backed H2 database that already
+ * holds 200k appointments, with the keys used before (random UUID strings in VARCHAR) and
+ * after (native UUID, random or time-ordered). The documents table has the primary key and
+ * the appointment_id foreign key index. Bytes per row of the compacted database are printed
+ * once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UuidKeyBenchmark {
+
+    private static final int PRELOADED_APPOINTMENTS = 200_000;
+
+    @Param({"varchar-v4", "uuid-v4", "uuid-v7"})
+    public String keys;
+
+    private Path directory;
+    private Connection connection;
+    private PreparedStatement insertAppointment;
+    private PreparedStatement insertDocument;
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("uuid-keys");
+        // Cache well below the data size, so where a key lands in the index matters
+        connection = DriverManager.getConnection("jdbc:h2:file:" + directory.resolve("db") + ";CACHE_SIZE=8192", "sa", "");
+        String keyType = "varchar-v4".equals(keys) ? "VARCHAR(255)" : "UUID";
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE appointments (id " + keyType + " PRIMARY KEY, email VARCHAR(255))");
+            statement.execute("CREATE TABLE documents (id " + keyType + " PRIMARY KEY, file_name VARCHAR(255), "
+                    + "appointment_id " + keyType + " NOT NULL REFERENCES appointments(id))");
+        }
+        connection.setAutoCommit(false);
+        insertAppointment = connection.prepareStatement("INSERT INTO appointments (id, email) VALUES (?, ?)");
+        insertDocument = connection.prepareStatement("INSERT INTO documents (id, file_name, appointment_id) VALUES (?, ?, ?)");
+        for (int i = 0; i < PRELOADED_APPOINTMENTS; i++) {
+            insertAppointmentWithDocuments();
+        }
+    }
+
+    @Benchmark
+    public void insert() throws SQLException {
+        insertAppointmentWithDocuments();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, SQLException {
+        long rows;
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(
+                     "SELECT (SELECT COUNT(*) FROM appointments) + (SELECT COUNT(*) FROM documents)")) {
+            result.next();
+            rows = result.getLong(1);
+        }
+        // Compacted, so the file holds exactly the two tables and their three indexes
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN COMPACT");
+        }
+        long bytes = Files.size(directory.resolve("db.mv.db"));
+        System.out.printf("%n%s: %d rows, %d bytes per row (tables and indexes)%n", keys, rows, bytes / rows);
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private void insertAppointmentWithDocuments() throws SQLException {
+        Object appointmentId = nextKey();
+        insertAppointment.setObject(1, appointmentId);
+        insertAppointment.setString(2, "client@example.com");
+        insertAppointment.executeUpdate();
+        for (String fileName : new String[]{"passport.pdf", "resume.pdf"}) {
+            insertDocument.setObject(1, nextKey());
+            insertDocument.setString(2, fileName);
+            insertDocument.setObject(3, appointmentId);
+            insertDocument.addBatch();
+        }
+        insertDocument.executeBatch();
+        connection.commit();
+    }
+
+    private Object nextKey() {
+        return switch (keys) {
+            case "varchar-v4" -> UUID.randomUUID().toString();
+            case "uuid-v4" -> UUID.randomUUID();
+            case "uuid-v7" -> UuidV7Generator.next();
+            default -> throw new IllegalArgumentException(keys);
+        };
+    }
+}
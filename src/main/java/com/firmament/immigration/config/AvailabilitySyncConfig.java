@@ -0,0 +1,38 @@
+package com.firmament.immigration.config;
+
+import com.firmament.immigration.service.AvailabilityVersionTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Keeps availability ETags in step across nodes: days changed on one node are bumped on
+ * every other node through Redis pub/sub.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.availability.redis-sync.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class AvailabilitySyncConfig {
+
+    private final AvailabilityVersionTracker availabilityVersionTracker;
+
+    @Bean
+    public RedisMessageListenerContainer availabilityChangeListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) -> availabilityVersionTracker.bumpLocally(
+                Arrays.stream(new String(message.getBody(), StandardCharsets.UTF_8).split(","))
+                        .map(LocalDate::parse)
+                        .toList()),
+                new ChannelTopic(AvailabilityVersionTracker.CHANNEL));
+        return container;
+    }
+}
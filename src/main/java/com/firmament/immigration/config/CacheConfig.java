@@ -1,25 +1,70 @@
 package com.firmament.immigration.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
-import java.time.Duration;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 
 @Configuration
 @EnableCaching
 public class CacheConfig {
+
+    public static final String AVAILABILITY_DAY = "availability-day";
+    public static final String AVAILABILITY_MONTH = "availability-month";
+    public static final String AVAILABILITY_RANGE = "availability-range";
+
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public TwoLevelCacheManager cacheManager(TwoLevelCacheProperties properties,
+                                             ObjectProvider<RedisConnectionFactory> connectionFactory,
+                                             ObjectProvider<StringRedisTemplate> redisTemplate,
+                                             MeterRegistry meterRegistry) {
+        if (!properties.isRedisEnabled()) {
+            return new TwoLevelCacheManager(properties, null, null, meterRegistry);
+        }
+
+        RedisSerializer<Object> valueSerializer = properties.getCodec() == TwoLevelCacheProperties.Codec.JDK
+                ? RedisSerializer.java()
+                : new CacheValueSerializer(properties.getCodec(),
+                        (int) properties.getCompressionThreshold().toBytes(), properties.getPayloadVersion());
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(60))
+                .entryTtl(properties.getDefaults().getRedisTtl())
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer))
                 .disableCachingNullValues();
+        Map<String, RedisCacheConfiguration> perCache = new HashMap<>();
+        properties.getCaches().keySet().forEach(name ->
+                perCache.put(name, config.entryTtl(properties.resolve(name).getRedisTtl())));
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory.getObject())
                 .cacheDefaults(config)
+                .withInitialCacheConfigurations(perCache)
                 .build();
+        redisCacheManager.afterPropertiesSet();
+        return new TwoLevelCacheManager(properties, redisCacheManager, redisTemplate.getObject(), meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.redis-enabled", havingValue = "true")
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            TwoLevelCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) ->
+                        cacheManager.onInvalidation(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(TwoLevelCacheManager.CHANNEL));
+        return container;
     }
-}
\ No newline at end of file
+}
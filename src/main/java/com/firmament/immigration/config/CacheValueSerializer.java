@@ -0,0 +1,176 @@
+package com.firmament.immigration.config;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import lombok.extern.slf4j.Slf4j;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Redis value serializer for cached DTOs, replacing JDK serialization. Each entry is
+ * <pre>
+ * magic(1) envelopeVersion(1) format(1) flags(1) payloadVersion(4) typeLength(2) type [rawLength(4)] body
+ * </pre>
+ * where the body is JSON or Smile, LZ4-compressed when larger than the threshold. Readers go by
+ * the header, not their own settings, so switching codecs needs no flush. An entry with another
+ * envelope or payload version, an unknown type or a shape its class no longer accepts reads as a
+ * miss and is overwritten, which keeps rolling deploys safe; added fields are simply ignored.
+ * <p>
+ * Cached values must be concrete classes under {@code com.firmament.immigration}; generic
+ * top-level collections would lose their element type.
+ */
+@Slf4j
+public class CacheValueSerializer implements RedisSerializer<Object> {
+
+    private static final byte MAGIC = (byte) 0xFC;
+    private static final byte ENVELOPE_VERSION = 1;
+    private static final byte FORMAT_JSON = 1;
+    private static final byte FORMAT_SMILE = 2;
+    private static final byte FLAG_LZ4 = 1;
+    private static final String ALLOWED_PACKAGE = "com.firmament.immigration.";
+
+    private final byte format;
+    private final int compressionThreshold; // bytes, 0 disables compression
+    private final int payloadVersion;
+    private final ObjectMapper jsonMapper = configure(JsonMapper.builder()).build();
+    private final ObjectMapper smileMapper = configure(SmileMapper.builder(new SmileFactory())).build();
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    private final LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+    private final ConcurrentMap<String, Class<?>> types = new ConcurrentHashMap<>();
+
+    public CacheValueSerializer(TwoLevelCacheProperties.Codec codec, int compressionThreshold, int payloadVersion) {
+        this.format = switch (codec) {
+            case JSON -> FORMAT_JSON;
+            case SMILE -> FORMAT_SMILE;
+            case JDK -> throw new IllegalArgumentException("JDK serialization has no envelope, use RedisSerializer.java()");
+        };
+        this.compressionThreshold = compressionThreshold;
+        this.payloadVersion = payloadVersion;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] body;
+        try {
+            body = mapper(format).writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("Cannot serialize " + value.getClass().getName(), e);
+        }
+
+        byte flags = 0;
+        byte[] payload = body;
+        if (compressionThreshold > 0 && body.length > compressionThreshold) {
+            byte[] compressed = compressor.compress(body);
+            if (compressed.length < body.length) {
+                payload = compressed;
+                flags |= FLAG_LZ4;
+            }
+        }
+
+        byte[] type = value.getClass().getName().getBytes(StandardCharsets.UTF_8);
+        boolean lz4 = (flags & FLAG_LZ4) != 0;
+        ByteBuffer out = ByteBuffer.allocate(10 + type.length + (lz4 ? 4 : 0) + payload.length);
+        out.put(MAGIC).put(ENVELOPE_VERSION).put(format).put(flags)
+                .putInt(payloadVersion)
+                .putShort((short) type.length).put(type);
+        if (lz4) {
+            out.putInt(body.length);
+        }
+        return out.put(payload).array();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            ByteBuffer in = ByteBuffer.wrap(bytes);
+            if (bytes.length < 10 || in.get() != MAGIC || in.get() != ENVELOPE_VERSION) {
+                return miss("unknown envelope");
+            }
+            byte entryFormat = in.get();
+            byte flags = in.get();
+            if (in.getInt() != payloadVersion) {
+                return miss("payload version differs");
+            }
+            byte[] typeName = new byte[in.getShort()];
+            in.get(typeName);
+            Class<?> type = resolve(new String(typeName, StandardCharsets.UTF_8));
+            if (type == null) {
+                return miss("type not allowed or missing");
+            }
+
+            byte[] body;
+            int offset;
+            int length;
+            if ((flags & FLAG_LZ4) != 0) {
+                int rawLength = in.getInt();
+                body = decompressor.decompress(bytes, in.position(), rawLength);
+                offset = 0;
+                length = rawLength;
+            } else {
+                body = bytes;
+                offset = in.position();
+                length = in.remaining();
+            }
+            return mapper(entryFormat).readValue(body, offset, length, type);
+        } catch (IOException | RuntimeException e) {
+            return miss(e.getMessage());
+        }
+    }
+
+    private Object miss(String reason) {
+        log.debug("Ignoring cache entry written by another version: {}", reason);
+        return null;
+    }
+
+    private ObjectMapper mapper(byte entryFormat) {
+        return switch (entryFormat) {
+            case FORMAT_JSON -> jsonMapper;
+            case FORMAT_SMILE -> smileMapper;
+            default -> throw new IllegalStateException("Unknown cache entry format " + entryFormat);
+        };
+    }
+
+    private Class<?> resolve(String name) {
+        if (!name.startsWith(ALLOWED_PACKAGE)) {
+            return null;
+        }
+        return types.computeIfAbsent(name, n -> {
+            try {
+                return Class.forName(n, false, CacheValueSerializer.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                return null;
+            }
+        });
+    }
+
+    private static <M extends ObjectMapper, B extends com.fasterxml.jackson.databind.cfg.MapperBuilder<M, B>> B configure(B builder) {
+        // Local dates and times as numeric arrays, several times cheaper to parse than ISO strings;
+        // zoned values keep their zone id so they round-trip exactly
+        return builder.findAndAddModules()
+                .enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .enable(SerializationFeature.WRITE_DATES_WITH_ZONE_ID)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .disable(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE)
+                .serializationInclusion(JsonInclude.Include.NON_NULL);
+    }
+}
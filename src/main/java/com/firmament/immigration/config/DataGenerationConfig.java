@@ -0,0 +1,31 @@
+package com.firmament.immigration.config;
+
+import com.firmament.immigration.service.DataGenerationService;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Loads the synthetic dataset once the schema is migrated, then stops the application unless
+ * app.datagen.exit-when-done is false. Combine the profile with the target database's, e.g.
+ * {@code --spring.profiles.active=dev,datagen}.
+ */
+@Configuration
+@Profile("datagen")
+public class DataGenerationConfig {
+
+    @Bean
+    public ApplicationRunner dataGenerationRunner(DataGenerationService dataGenerationService,
+                                                  DataGenerationProperties properties,
+                                                  ConfigurableApplicationContext context) {
+        return args -> {
+            dataGenerationService.generate();
+            if (properties.isExitWhenDone()) {
+                System.exit(SpringApplication.exit(context));
+            }
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package com.firmament.immigration.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.LocalDate;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.datagen")
+@Data
+public class DataGenerationProperties {
+
+    private long seed = 42;                    // Same seed and anchor date, same rows (ids included)
+    private LocalDate anchorDate;              // "Today" of the dataset, null = the actual date
+    private int historyYears = 5;              // Appointments start this far before the anchor...
+    private int horizonDays = 90;              // ...and run this far after it
+    private int appointments = 1_000_000;
+    private int blockedPeriods = 5_000_000;    // Including one per appointment that was not cancelled
+    private int documents = 2_000_000;         // Approximate, drawn per appointment
+    private int uploadSessions = 1_000;        // In progress, for upcoming appointments
+    private int batchSize = 10_000;            // Rows per commit
+    private boolean exitWhenDone = true;       // Stop the application once the data is loaded
+}
@@ -0,0 +1,39 @@
+package com.firmament.immigration.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class DocumentDerivativeConfig {
+
+    @Value("${app.documents.derivatives.workers:2}")
+    private int workers;
+
+    @Value("${app.documents.derivatives.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    /**
+     * Bounded pool for thumbnail / preview rendering. Jobs are only handed over when there is
+     * room, the rest wait in the document_derivative_jobs table. The decorator carries the
+     * dispatching trace over to the worker.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor derivativeExecutor(TaskDecorator taskDecorator) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("derivative-");
+        executor.setTaskDecorator(taskDecorator);
+        executor.setVirtualThreads(virtualThreads); // Pool size still caps concurrent renders
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -0,0 +1,37 @@
+package com.firmament.immigration.config;
+
+import com.firmament.immigration.exception.ResourceNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Entity ids are UUIDs stored in native uuid columns, and the column converter rejects
+ * anything else. A path id ({@code {id}} or {@code {...Id}}) that is not a UUID cannot name
+ * any row, so the request is answered 404 before it reaches a query.
+ */
+public class EntityIdInterceptor implements HandlerInterceptor {
+
+    private static final Pattern UUID = Pattern.compile(
+            "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables == null) {
+            return true;
+        }
+        variables.forEach((name, value) -> {
+            if ((name.equals("id") || name.endsWith("Id")) && !UUID.matcher(value).matches()) {
+                throw new ResourceNotFoundException("Resource not found");
+            }
+        });
+        return true;
+    }
+}
@@ -1,6 +1,8 @@
 package com.firmament.immigration.config;
 
+import com.firmament.immigration.service.TokenRevocationService;
 import com.firmament.immigration.util.JwtUtil;
+import com.firmament.immigration.util.JwtUtil.JwtPrincipal;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -20,10 +22,12 @@ import java.util.Collections;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
+    private final TokenRevocationService tokenRevocationService;
 
     @Autowired
-    public JwtAuthenticationFilter(JwtUtil jwtUtil) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, TokenRevocationService tokenRevocationService) {
         this.jwtUtil = jwtUtil;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @Override
@@ -32,25 +36,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
-        String role = null;
-
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            JwtPrincipal principal = null;
             try {
-                username = jwtUtil.extractUsername(jwt);
-                role = jwtUtil.extractRole(jwt);
+                // One verification per token; repeat requests are served from the JwtUtil cache
+                principal = jwtUtil.parse(authorizationHeader.substring(7));
             } catch (Exception e) {
                 // Invalid token, continue without authentication
             }
-        }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtUtil.validateToken(jwt, username)) {
+            if (principal != null && !tokenRevocationService.isRevoked(principal.tokenId())) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        username, null,
-                        Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role))
+                        principal.username(), null,
+                        Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + principal.role()))
                 );
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
@@ -0,0 +1,74 @@
+package com.firmament.immigration.config;
+
+import io.opentelemetry.exporter.logging.otlp.OtlpJsonLoggingSpanExporter;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Writes spans as OTLP JSON, one line per batch, to size-rotated files. The lines are what an
+ * OpenTelemetry collector's otlpjsonfile receiver reads, so traces can be inspected offline or
+ * replayed into any backend later. The OTLP JSON exporter only writes to its java.util.logging
+ * logger, so that logger gets a file handler of its own and stops forwarding to the
+ * application log.
+ */
+public class OtlpJsonFileSpanExporter implements SpanExporter {
+
+    private final SpanExporter delegate = OtlpJsonLoggingSpanExporter.create();
+    // Held so the configured logger is not garbage collected and recreated without the handler
+    private final Logger logger = Logger.getLogger(OtlpJsonLoggingSpanExporter.class.getName());
+    private final FileHandler handler;
+
+    /**
+     * @param pattern  file name pattern, %g is replaced by the generation (0 is the current file)
+     * @param maxBytes size at which the current file is rotated
+     * @param maxFiles number of files kept
+     */
+    public OtlpJsonFileSpanExporter(String pattern, long maxBytes, int maxFiles) throws IOException {
+        Path parent = Path.of(pattern).toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        handler = new FileHandler(pattern, maxBytes, maxFiles, true);
+        handler.setFormatter(new Formatter() {
+            @Override
+            public String format(LogRecord record) {
+                // Each record is one resource's spans; wrapped, it is a full export request
+                return "{\"resourceSpans\":[" + record.getMessage() + "]}" + System.lineSeparator();
+            }
+        });
+        logger.addHandler(handler);
+        logger.setUseParentHandlers(false);
+        logger.setLevel(Level.INFO);
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+        return delegate.export(spans);
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        handler.flush();
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        delegate.shutdown();
+        logger.removeHandler(handler);
+        logger.setUseParentHandlers(true);
+        handler.close();
+        return CompletableResultCode.ofSuccess();
+    }
+}
@@ -0,0 +1,29 @@
+package com.firmament.immigration.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.rate-limit")
+@Data
+public class RateLimitConfig {
+
+    private boolean enabled = true;
+    private long maxTrackedClients = 100_000; // Buckets per (rule, IP), idle ones are evicted
+    private boolean redisEnabled = false;     // Also enforce globalLimitPerMinute across nodes
+    private Map<String, Rule> rules = new LinkedHashMap<>();
+
+    @Data
+    public static class Rule {
+        private String pattern;              // Ant-style path pattern
+        private List<String> methods = List.of(); // Empty matches every method
+        private long capacity;               // Burst size per client
+        private long refillPerMinute;        // Sustained rate per client
+        private long globalLimitPerMinute;   // Per client over all nodes (Redis), 0 = none
+    }
+}
@@ -0,0 +1,137 @@
+package com.firmament.immigration.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.firmament.immigration.config.RateLimitConfig.Rule;
+import com.firmament.immigration.exception.ErrorResponse;
+import com.firmament.immigration.util.TokenBucket;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles the public endpoints per client IP and route. Each (rule, IP) pair gets a
+ * lock-free token bucket in a bounded Caffeine map, which is itself striped, so requests
+ * from different clients never contend. When Redis is enabled, rules with a global limit
+ * are also counted in a shared fixed window so the limit holds across nodes.
+ *
+ * The client IP is {@code request.getRemoteAddr()}; behind a proxy set
+ * {@code server.forward-headers-strategy} so it reflects the real client.
+ */
+@Component
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String REDIS_KEY_PREFIX = "immigration:rate-limit:";
+
+    private final RateLimitConfig config;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<StringRedisTemplate> redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Cache<String, TokenBucket> buckets;
+
+    public RateLimitFilter(RateLimitConfig config, ObjectMapper objectMapper,
+                           ObjectProvider<StringRedisTemplate> redisTemplate, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.objectMapper = objectMapper;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(config.getMaxTrackedClients())
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !config.isEnabled() || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        for (Map.Entry<String, Rule> entry : config.getRules().entrySet()) {
+            Rule rule = entry.getValue();
+            if (!matches(rule, request)) continue;
+
+            String name = entry.getKey();
+            String client = request.getRemoteAddr();
+            long waitNanos = buckets.get(name + "|" + client, key -> new TokenBucket(rule.getCapacity(), rule.getRefillPerMinute()))
+                    .tryConsume();
+            String scope = "local";
+            if (waitNanos == 0 && config.isRedisEnabled() && rule.getGlobalLimitPerMinute() > 0) {
+                waitNanos = checkGlobalLimit(name, client, rule);
+                scope = "global";
+            }
+            if (waitNanos > 0) {
+                reject(response, name, scope, waitNanos);
+                return;
+            }
+            break; // First matching rule wins
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private boolean matches(Rule rule, HttpServletRequest request) {
+        return (rule.getMethods().isEmpty() || rule.getMethods().contains(request.getMethod()))
+                && pathMatcher.match(rule.getPattern(), request.getRequestURI());
+    }
+
+    // Fixed one-minute window shared by all nodes; fails open if Redis is unavailable
+    private long checkGlobalLimit(String name, String client, Rule rule) {
+        long nowMillis = System.currentTimeMillis();
+        long window = nowMillis / 60_000;
+        String key = REDIS_KEY_PREFIX + name + ":" + client + ":" + window;
+        try {
+            StringRedisTemplate redis = redisTemplate.getObject();
+            Long count = redis.opsForValue().increment(key);
+            if (count != null && count == 1) {
+                redis.expire(key, Duration.ofMinutes(2));
+            }
+            if (count != null && count > rule.getGlobalLimitPerMinute()) {
+                return TimeUnit.MILLISECONDS.toNanos((window + 1) * 60_000 - nowMillis);
+            }
+        } catch (Exception e) {
+            log.debug("Global rate limit check failed for {}, allowing request", name, e);
+        }
+        return 0;
+    }
+
+    private void reject(HttpServletResponse response, String rule, String scope, long waitNanos) throws IOException {
+        meterRegistry.counter("immigration.rate_limit.rejected", "rule", rule, "scope", scope).increment();
+
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999));
+        ErrorResponse error = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.TOO_MANY_REQUESTS.value())
+                .error("Too Many Requests")
+                .message("Rate limit exceeded. Retry in " + retryAfterSeconds + " seconds.")
+                .build();
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+}
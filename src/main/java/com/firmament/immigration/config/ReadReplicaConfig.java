@@ -0,0 +1,85 @@
+package com.firmament.immigration.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routes read-only transactions to the replicas in app.read-replicas.nodes, see
+ * {@link ReplicaRoutingDataSource}. The primary "dataSource" bean, whether it comes from
+ * {@link DatabaseConfig} or from spring.datasource.*, is wrapped rather than replaced, so
+ * Liquibase, Hibernate's schema tools and every write keep using it directly.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.read-replicas.enabled", havingValue = "true")
+@Slf4j
+public class ReadReplicaConfig {
+
+    @Bean
+    public ReadReplicaRouter readReplicaRouter(ReadReplicaProperties properties,
+                                               @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (properties.getNodes().isEmpty()) {
+            throw new IllegalStateException("app.read-replicas.enabled is set but app.read-replicas.nodes is empty");
+        }
+        List<ReadReplicaRouter.Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getNodes().size(); i++) {
+            ReadReplicaProperties.Node node = properties.getNodes().get(i);
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("replica-" + i);
+            config.setJdbcUrl(node.getUrl());
+            config.setUsername(node.getUsername());
+            config.setPassword(node.getPassword());
+            config.setReadOnly(true);
+            config.setMaximumPoolSize(properties.getMaximumPoolSize());
+            config.setMinimumIdle(Math.min(2, properties.getMaximumPoolSize()));
+            config.setConnectionTimeout(properties.getConnectionTimeoutMs());
+            // Start even if a replica is down, the health check brings it in later
+            config.setInitializationFailTimeout(-1);
+
+            HikariDataSource pool = new HikariDataSource(config);
+            DataSource dataSource = virtualThreads
+                    ? new ConnectionLimitingDataSource(pool, pool.getMaximumPoolSize(), pool.getConnectionTimeout())
+                    : pool;
+            replicas.add(new ReadReplicaRouter.Replica(config.getPoolName(), dataSource));
+            log.info("Read replica {} at {}", config.getPoolName(), node.getUrl());
+        }
+        return new ReadReplicaRouter(replicas, properties.getReadYourWritesWindowMs());
+    }
+
+    @Bean
+    public static BeanPostProcessor replicaRoutingDataSourcePostProcessor(ObjectProvider<ReadReplicaRouter> router) {
+        return new RoutingPostProcessor(router);
+    }
+
+    /**
+     * Ordered last, after the connection limiting wrapper of {@link VirtualThreadConfig}, so the
+     * primary is limited the same way with or without replicas
+     */
+    private record RoutingPostProcessor(ObjectProvider<ReadReplicaRouter> router) implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if ("dataSource".equals(beanName) && bean instanceof DataSource primary) {
+                return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, router.getObject()));
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
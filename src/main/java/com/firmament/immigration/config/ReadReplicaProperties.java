@@ -0,0 +1,28 @@
+package com.firmament.immigration.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.read-replicas")
+@Data
+public class ReadReplicaProperties {
+
+    private boolean enabled = false;           // Off: every query goes to the primary
+    private List<Node> nodes = new ArrayList<>();
+    private int maximumPoolSize = 10;          // Per replica
+    private long connectionTimeoutMs = 2000;   // Kept short, a slow replica falls back to the primary
+    private long healthCheckIntervalMs = 5000;
+    private long readYourWritesWindowMs = 0;   // Reads stay on the primary this long after a booking, 0 = never
+
+    @Data
+    public static class Node {
+        private String url;                    // JDBC url
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,122 @@
+package com.firmament.immigration.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out replica connections for read-only work, round robin over the replicas currently
+ * considered healthy. A replica that fails to give a connection is taken out until the next
+ * health check finds it working again. Returns null when no replica should be used, and the
+ * caller falls back to the primary.
+ * <p>
+ * After a booking or any other availability change the replicas may lag behind for a moment,
+ * and a read served from them would put the old, still free slot back into the availability
+ * caches. {@link #pinToPrimary()} keeps reads on the primary for the configured window. The
+ * window is per node, not per client: bookings are rare next to availability reads, so sending
+ * everyone to the primary for a few seconds is cheap.
+ */
+@Slf4j
+public class ReadReplicaRouter implements DisposableBean {
+
+    private final List<Replica> replicas;
+    private final long windowNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile long pinnedUntil = System.nanoTime();
+
+    public ReadReplicaRouter(List<Replica> replicas, long readYourWritesWindowMs) {
+        this.replicas = replicas;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(readYourWritesWindowMs);
+    }
+
+    /**
+     * A connection to a healthy replica, or null to use the primary
+     */
+    public Connection replicaConnection() {
+        if (windowNanos > 0 && System.nanoTime() - pinnedUntil < 0) {
+            return null;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                markDown(replica, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Keep reads on the primary for the read-your-writes window, no-op when it is 0
+     */
+    public void pinToPrimary() {
+        if (windowNanos > 0) {
+            pinnedUntil = System.nanoTime() + windowNanos;
+        }
+    }
+
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (!connection.isValid(2)) {
+                    // Evicted, or the pool keeps handing the same broken connection to the next check
+                    if (replica.dataSource.isWrapperFor(HikariDataSource.class)) {
+                        replica.dataSource.unwrap(HikariDataSource.class).evictConnection(connection);
+                    }
+                    markDown(replica, "connection not valid");
+                } else if (!replica.healthy) {
+                    replica.healthy = true;
+                    log.info("Read replica {} is back, routing reads to it again", replica.name);
+                }
+            } catch (SQLException e) {
+                markDown(replica, e.getMessage());
+            }
+        }
+    }
+
+    public long healthyReplicas() {
+        return replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private void markDown(Replica replica, String reason) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            log.warn("Read replica {} is unavailable, reads fall back to other replicas or the primary: {}",
+                    replica.name, reason);
+        }
+    }
+
+    public static class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
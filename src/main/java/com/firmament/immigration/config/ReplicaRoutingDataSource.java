@@ -0,0 +1,34 @@
+package com.firmament.immigration.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Sends read-only transactions to a replica and everything else to the primary. Only works
+ * behind a LazyConnectionDataSourceProxy: the transaction is marked read-only after its
+ * connection handle is taken, so the real connection must be fetched on the first statement.
+ */
+public class ReplicaRoutingDataSource extends DelegatingDataSource {
+
+    private final ReadReplicaRouter router;
+
+    public ReplicaRoutingDataSource(DataSource primary, ReadReplicaRouter router) {
+        super(primary);
+        this.router = router;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            Connection replica = router.replicaConnection();
+            if (replica != null) {
+                return replica;
+            }
+        }
+        return super.getConnection();
+    }
+}
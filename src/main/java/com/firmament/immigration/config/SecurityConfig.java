@@ -1,9 +1,11 @@
 package com.firmament.immigration.config;
 
 import java.util.Arrays;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -24,10 +26,15 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final RateLimitFilter rateLimitFilter;
+    private final Environment environment;
 
     @Autowired
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter) {
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter, RateLimitFilter rateLimitFilter,
+                          Environment environment) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.rateLimitFilter = rateLimitFilter;
+        this.environment = environment;
     }
 
     @Bean
@@ -47,7 +54,11 @@ public class SecurityConfig {
                         .requestMatchers("/api/payments/webhook").permitAll()
                         .requestMatchers("/api/payments/create-intent/**").permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/documents/upload/**").permitAll()
+                        .requestMatchers("/api/documents/uploads/**").permitAll()
                         .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
+                        // Scraped by Prometheus, which sends no token, so only open on the
+                        // unpublished management port (management.server.port)
+                        .requestMatchers(this::isPrometheusScrape).permitAll()
 
                         // Endpoints for ADMIN access ONLY
                         // Any request to /api/appointments that isn't the public POST requires ADMIN role
@@ -63,19 +74,34 @@ public class SecurityConfig {
                         .anyRequest().authenticated()
                 )
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                // Throttle before any token parsing or controller work
+                .addFilterBefore(rateLimitFilter, JwtAuthenticationFilter.class)
                 .headers(headers -> headers // Required for H2 console
                         .frameOptions(frame -> frame.sameOrigin()));
 
         return http.build();
     }
 
+    /**
+     * The management port serves actuator through this same filter chain. Its actual port is
+     * only known once the server has started, and may be random in tests.
+     */
+    private boolean isPrometheusScrape(HttpServletRequest request) {
+        Integer managementPort = environment.getProperty("local.management.port", Integer.class);
+        return managementPort != null
+                && request.getLocalPort() == managementPort
+                && "/actuator/prometheus".equals(request.getRequestURI());
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
         // Allow all origins for Netlify preview deployments
         configuration.setAllowedOrigins(Arrays.asList("*"));
-        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS" , "PATCH"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS" , "PATCH", "HEAD"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        // Resumable upload clients read these to know where to continue
+        configuration.setExposedHeaders(Arrays.asList("Location", "Upload-Offset", "Upload-Length", "Retry-After"));
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
         return source;
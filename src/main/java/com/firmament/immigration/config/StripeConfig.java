@@ -11,8 +11,15 @@ public class StripeConfig {
     @Value("${stripe.api.key}")
     private String stripeApiKey;
 
+    // Only set to point at a local stand-in (load tests), empty means api.stripe.com
+    @Value("${stripe.api.base:}")
+    private String stripeApiBase;
+
     @PostConstruct
     public void init() {
         Stripe.apiKey = stripeApiKey;
+        if (!stripeApiBase.isBlank()) {
+            Stripe.overrideApiBase(stripeApiBase);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,71 @@
+package com.firmament.immigration.config;
+
+import com.firmament.immigration.service.TokenRevocationService;
+import com.firmament.immigration.service.impl.TokenRevocationServiceImpl;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Shares token revocations between nodes through Redis: live revocations arrive over
+ * pub/sub, and revocations made before this node started are loaded from their TTL keys.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.auth.revocation.redis-sync.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationSyncConfig {
+
+    private final TokenRevocationService tokenRevocationService;
+    private final StringRedisTemplate redisTemplate;
+
+    @Bean
+    public RedisMessageListenerContainer tokenRevocationListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) -> {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            int separator = body.lastIndexOf(':');
+            try {
+                tokenRevocationService.revokeLocally(body.substring(0, separator),
+                        Instant.ofEpochMilli(Long.parseLong(body.substring(separator + 1))));
+            } catch (RuntimeException e) {
+                log.warn("Ignoring malformed revocation message: {}", body);
+            }
+        }, new ChannelTopic(TokenRevocationServiceImpl.CHANNEL));
+        return container;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadExistingRevocations() {
+        ScanOptions options = ScanOptions.scanOptions().match(TokenRevocationServiceImpl.KEY_PREFIX + "*").count(500).build();
+        int loaded = 0;
+        try (Cursor<String> keys = redisTemplate.scan(options)) {
+            while (keys.hasNext()) {
+                String key = keys.next();
+                String expiresAt = redisTemplate.opsForValue().get(key);
+                if (expiresAt != null) {
+                    tokenRevocationService.revokeLocally(key.substring(TokenRevocationServiceImpl.KEY_PREFIX.length()),
+                            Instant.ofEpochMilli(Long.parseLong(expiresAt)));
+                    loaded++;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to load token revocations from Redis", e);
+        }
+        log.info("Loaded {} token revocation(s) from Redis", loaded);
+    }
+}
@@ -0,0 +1,132 @@
+package com.firmament.immigration.config;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.security.config.observation.SecurityObservationSettings;
+import org.springframework.util.function.SingletonSupplier;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.function.Supplier;
+
+/**
+ * Tracing on top of Spring Boot's OpenTelemetry bridge. Boot already traces incoming HTTP
+ * requests and @Scheduled jobs; services observe their Stripe, SMTP and Cloudinary calls. This
+ * adds a span per repository call, carries the current trace into executor threads, and picks
+ * where sampled spans go (management.tracing.sampling.probability decides how many): nowhere,
+ * the application log, or OTLP JSON files.
+ */
+@Configuration
+public class TracingConfig {
+
+    /**
+     * Spring Boot applies it to the executors it configures (@Async); derivativeExecutor sets
+     * it itself
+     */
+    @Bean
+    public ContextPropagatingTaskDecorator contextPropagatingTaskDecorator() {
+        return new ContextPropagatingTaskDecorator();
+    }
+
+    /**
+     * Spring Security would add four spans to every request (filter chain before and after,
+     * secured request, authorization), several times the cost of the server span on a cached
+     * GET. The server span already records the outcome, 401 and 403 included.
+     */
+    @Bean
+    public SecurityObservationSettings securityObservationSettings() {
+        return SecurityObservationSettings.noObservations();
+    }
+
+    @Bean
+    public static BeanPostProcessor repositoryObservationPostProcessor(ObjectProvider<ObservationRegistry> observationRegistry) {
+        return new RepositoryObservationPostProcessor(
+                SingletonSupplier.of(() -> observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP)));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.tracing.exporter", havingValue = "logging")
+    public SpanExporter loggingSpanExporter() {
+        return LoggingSpanExporter.create();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.tracing.exporter", havingValue = "file")
+    public SpanExporter fileSpanExporter(@Value("${app.tracing.file.path}") String path,
+                                         @Value("${app.tracing.file.max-size}") DataSize maxSize,
+                                         @Value("${app.tracing.file.max-files}") int maxFiles) throws IOException {
+        return new OtlpJsonFileSpanExporter(path, maxSize.toBytes(), maxFiles);
+    }
+
+    /**
+     * Adds the observing interceptor to every Spring Data repository proxy. Runs before
+     * initialization, which is when the factory bean creates the repository.
+     */
+    private static class RepositoryObservationPostProcessor implements BeanPostProcessor {
+
+        private final Supplier<ObservationRegistry> observationRegistry;
+
+        RepositoryObservationPostProcessor(Supplier<ObservationRegistry> observationRegistry) {
+            this.observationRegistry = observationRegistry;
+        }
+
+        @Override
+        public Object postProcessBeforeInitialization(Object bean, String beanName) {
+            if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                        (proxyFactory, repository) -> proxyFactory.addAdvice(new ObservingRepositoryInterceptor(
+                                repository.getRepositoryInterface().getSimpleName(), observationRegistry))));
+            }
+            return bean;
+        }
+    }
+
+    /**
+     * One observation per repository method call: a span named Repository.method, and the
+     * immigration.repository timer tagged with both
+     */
+    private static class ObservingRepositoryInterceptor implements MethodInterceptor {
+
+        private final String repository;
+        private final Supplier<ObservationRegistry> observationRegistry;
+
+        ObservingRepositoryInterceptor(String repository, Supplier<ObservationRegistry> observationRegistry) {
+            this.repository = repository;
+            this.observationRegistry = observationRegistry;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Method method = invocation.getMethod();
+            if (method.getDeclaringClass() == Object.class) {
+                return invocation.proceed();
+            }
+            Observation observation = Observation.createNotStarted("immigration.repository", observationRegistry.get())
+                    .contextualName(repository + "." + method.getName())
+                    .lowCardinalityKeyValue("repository", repository)
+                    .lowCardinalityKeyValue("method", method.getName())
+                    .start();
+            try (Observation.Scope scope = observation.openScope()) {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                observation.error(e);
+                throw e;
+            } finally {
+                observation.stop();
+            }
+        }
+    }
+}
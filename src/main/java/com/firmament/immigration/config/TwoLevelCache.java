@@ -0,0 +1,256 @@
+package com.firmament.immigration.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Caffeine in front of Redis. Reads try the local tier, then Redis (filling the local tier),
+ * then the loader (filling both). Evictions and clears go to both tiers and are broadcast so
+ * other nodes drop their local copies; {@code key == null} in the broadcast means clear.
+ * <p>
+ * A load that overlaps an invalidation on this node is returned to its caller but not kept
+ * locally, so a value read before a write cannot be cached after the write's invalidation.
+ * Another node's invalidation arrives too late for that check, so Redis keys carry the cache's
+ * generation, a counter kept in Redis that every eviction or clear advances,
+ * and a load is stored under the generation read before it started. A value loaded before
+ * another node's write therefore lands under a generation nobody reads anymore. Clearing the
+ * Redis tier is just advancing the generation; the old entries expire with their TTL.
+ */
+@Slf4j
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    private static final long NO_GENERATION = -1;
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+    private final Cache remote; // null when Redis is disabled
+    private final Generation generation; // null when Redis is disabled
+    private final Consumer<String> invalidationPublisher;
+    private final AtomicLong invalidations = new AtomicLong();
+    private final TierStats localStats;
+    private final TierStats remoteStats;
+
+    public TwoLevelCache(String name, com.github.benmanes.caffeine.cache.Cache<String, Object> local, Cache remote,
+                         Generation generation, Consumer<String> invalidationPublisher, MeterRegistry meterRegistry) {
+        super(false);
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.generation = generation;
+        this.invalidationPublisher = invalidationPublisher;
+        this.localStats = new TierStats(meterRegistry, name, "local");
+        this.remoteStats = remote != null ? new TierStats(meterRegistry, name, "redis") : null;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object value = lookupLocal(key);
+        if (value != null || remote == null) {
+            return value;
+        }
+        return lookupRemote(key, currentGeneration());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object cached = lookupLocal(key);
+        if (cached != null) {
+            return (T) cached;
+        }
+        long remoteGeneration = remote != null ? currentGeneration() : NO_GENERATION;
+        cached = lookupRemote(key, remoteGeneration);
+        if (cached != null) {
+            return (T) cached;
+        }
+
+        long localGeneration = invalidations.get();
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (value != null) {
+            // Stored under the generation read before loading: if another node invalidated
+            // meanwhile, the entry is already out of everyone's reach
+            storeRemote(key, value, remoteGeneration);
+            if (invalidations.get() == localGeneration) {
+                local.put(String.valueOf(key), value);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        storeRemote(key, value, remote != null ? currentGeneration() : NO_GENERATION);
+        local.put(String.valueOf(key), value);
+        invalidationPublisher.accept(String.valueOf(key)); // other nodes may hold the previous value
+    }
+
+    /**
+     * Also advances the generation, so it drops the whole Redis tier of this cache: a load of
+     * this key in flight elsewhere would otherwise store its value after the eviction
+     */
+    @Override
+    public void evict(Object key) {
+        invalidations.incrementAndGet();
+        advanceGeneration();
+        local.invalidate(String.valueOf(key));
+        invalidationPublisher.accept(String.valueOf(key));
+    }
+
+    @Override
+    public void clear() {
+        invalidations.incrementAndGet();
+        advanceGeneration();
+        local.invalidateAll();
+        invalidationPublisher.accept(null);
+    }
+
+    /**
+     * Apply an invalidation broadcast by another node, local tier only
+     */
+    void invalidateLocally(String key) {
+        invalidations.incrementAndGet();
+        if (key == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(key);
+        }
+    }
+
+    private Object lookupLocal(Object key) {
+        Object value = local.getIfPresent(String.valueOf(key));
+        if (value != null) {
+            localStats.hit();
+        } else {
+            localStats.miss();
+        }
+        return value;
+    }
+
+    private Object lookupRemote(Object key, long remoteGeneration) {
+        if (remoteGeneration == NO_GENERATION) {
+            return null;
+        }
+        long localGeneration = invalidations.get();
+        ValueWrapper wrapper;
+        try {
+            wrapper = remote.get(remoteKey(key, remoteGeneration));
+        } catch (RuntimeException e) {
+            log.warn("Redis read failed for cache {}, falling back to the loader: {}", name, e.getMessage());
+            return null;
+        }
+        if (wrapper == null || wrapper.get() == null) {
+            remoteStats.miss();
+            return null;
+        }
+        remoteStats.hit();
+        if (invalidations.get() == localGeneration) {
+            local.put(String.valueOf(key), wrapper.get());
+        }
+        return wrapper.get();
+    }
+
+    private void storeRemote(Object key, Object value, long remoteGeneration) {
+        if (remoteGeneration == NO_GENERATION) {
+            return;
+        }
+        try {
+            remote.put(remoteKey(key, remoteGeneration), value);
+        } catch (RuntimeException e) {
+            log.warn("Redis write failed for cache {}: {}", name, e.getMessage());
+        }
+    }
+
+    // Redis unreachable counts as a miss there, and nothing is written to it
+    private long currentGeneration() {
+        try {
+            return generation.current();
+        } catch (RuntimeException e) {
+            log.warn("Redis generation read failed for cache {}, bypassing Redis: {}", name, e.getMessage());
+            return NO_GENERATION;
+        }
+    }
+
+    private void advanceGeneration() {
+        if (remote == null) {
+            return;
+        }
+        try {
+            generation.advance();
+        } catch (RuntimeException e) {
+            log.error("Redis generation update failed for cache {}, entries may be served until they expire", name, e);
+        }
+    }
+
+    private static String remoteKey(Object key, long remoteGeneration) {
+        return remoteGeneration + ":" + key;
+    }
+
+    /**
+     * The cache's generation as stored in Redis, shared by all nodes
+     */
+    public interface Generation {
+        long current();
+
+        void advance();
+    }
+
+    /**
+     * Hit and miss counters for one tier, plus the hit ratio as a gauge
+     */
+    private static class TierStats {
+        private final Counter hits;
+        private final Counter misses;
+
+        TierStats(MeterRegistry registry, String cache, String tier) {
+            this.hits = Counter.builder("immigration.cache.gets")
+                    .tags("cache", cache, "tier", tier, "result", "hit")
+                    .register(registry);
+            this.misses = Counter.builder("immigration.cache.gets")
+                    .tags("cache", cache, "tier", tier, "result", "miss")
+                    .register(registry);
+            Gauge.builder("immigration.cache.hit.ratio", this, TierStats::ratio)
+                    .tags("cache", cache, "tier", tier)
+                    .register(registry);
+        }
+
+        void hit() {
+            hits.increment();
+        }
+
+        void miss() {
+            misses.increment();
+        }
+
+        double ratio() {
+            double total = hits.count() + misses.count();
+            return total == 0 ? 0 : hits.count() / total;
+        }
+    }
+}
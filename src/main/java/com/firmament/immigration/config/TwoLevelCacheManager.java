@@ -0,0 +1,106 @@
+package com.firmament.immigration.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Creates a {@link TwoLevelCache} per cache name, sized from {@link TwoLevelCacheProperties}.
+ * Invalidations are published as {@code node|cache|C} (clear) or {@code node|cache|E<key>}
+ * (evict); a node ignores its own messages. Each cache's Redis generation is a counter at
+ * {@code immigration:cache-generation:<cache>}.
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager {
+
+    public static final String CHANNEL = "immigration:cache-invalidations";
+    public static final String GENERATION_KEY_PREFIX = "immigration:cache-generation:";
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+    private final TwoLevelCacheProperties properties;
+    private final RedisCacheManager redisCacheManager; // null when Redis is disabled
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    public TwoLevelCacheManager(TwoLevelCacheProperties properties, RedisCacheManager redisCacheManager,
+                                StringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.redisCacheManager = redisCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    /**
+     * Handle a message from the invalidation channel
+     */
+    public void onInvalidation(String message) {
+        String[] parts = message.split("\\|", 3);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        TwoLevelCache cache = caches.get(parts[1]);
+        if (cache != null) {
+            cache.invalidateLocally(parts[2].startsWith("E") ? parts[2].substring(1) : null);
+        }
+    }
+
+    private TwoLevelCache createCache(String name) {
+        TwoLevelCacheProperties.Spec spec = properties.resolve(name);
+        com.github.benmanes.caffeine.cache.Cache<String, Object> local = Caffeine.newBuilder()
+                .maximumSize(spec.getLocalMaxSize())
+                .expireAfterWrite(spec.getLocalTtl())
+                .build();
+        Cache remote = redisCacheManager != null ? redisCacheManager.getCache(name) : null;
+        TwoLevelCache.Generation generation = remote != null ? generation(name) : null;
+        return new TwoLevelCache(name, local, remote, generation, key -> publish(name, key), meterRegistry);
+    }
+
+    private TwoLevelCache.Generation generation(String cacheName) {
+        String key = GENERATION_KEY_PREFIX + cacheName;
+        return new TwoLevelCache.Generation() {
+            @Override
+            public long current() {
+                String value = redisTemplate.opsForValue().get(key);
+                return value != null ? Long.parseLong(value) : 0;
+            }
+
+            @Override
+            public void advance() {
+                redisTemplate.opsForValue().increment(key);
+            }
+        };
+    }
+
+    private void publish(String cacheName, String key) {
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(CHANNEL, nodeId + "|" + cacheName + "|" + (key == null ? "C" : "E" + key));
+        } catch (Exception e) {
+            log.error("Failed to broadcast invalidation for cache {}, other nodes keep their local copy until it expires",
+                    cacheName, e);
+        }
+    }
+}
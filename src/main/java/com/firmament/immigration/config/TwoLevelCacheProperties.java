@@ -0,0 +1,53 @@
+package com.firmament.immigration.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.cache")
+@Data
+public class TwoLevelCacheProperties {
+
+    private boolean redisEnabled = false;    // Off: local tier only, no invalidation broadcast
+    private Codec codec = Codec.SMILE;       // How values are written to Redis
+    private DataSize compressionThreshold = DataSize.ofKilobytes(1); // LZ4 above this, 0 disables
+    private int payloadVersion = 1;          // Bump when a cached class changes incompatibly
+    private Spec defaults = new Spec(1000L, Duration.ofSeconds(30), Duration.ofMinutes(10));
+    private Map<String, Spec> caches = new LinkedHashMap<>(); // Per cache name, unset fields fall back to defaults
+
+    public enum Codec {
+        JDK,    // Java serialization, values must be Serializable
+        JSON,   // See CacheValueSerializer
+        SMILE   // Binary JSON, same data model as JSON
+    }
+
+    @Data
+    public static class Spec {
+        private Long localMaxSize;   // Entries kept in process
+        private Duration localTtl;   // Keep at or below redisTtl
+        private Duration redisTtl;
+
+        public Spec() {
+        }
+
+        public Spec(Long localMaxSize, Duration localTtl, Duration redisTtl) {
+            this.localMaxSize = localMaxSize;
+            this.localTtl = localTtl;
+            this.redisTtl = redisTtl;
+        }
+    }
+
+    public Spec resolve(String cacheName) {
+        Spec spec = caches.getOrDefault(cacheName, new Spec());
+        return new Spec(
+                spec.getLocalMaxSize() != null ? spec.getLocalMaxSize() : defaults.getLocalMaxSize(),
+                spec.getLocalTtl() != null ? spec.getLocalTtl() : defaults.getLocalTtl(),
+                spec.getRedisTtl() != null ? spec.getRedisTtl() : defaults.getRedisTtl());
+    }
+}
@@ -0,0 +1,47 @@
+package com.firmament.immigration.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Extra wiring for spring.threads.virtual.enabled=true. Spring Boot itself moves Tomcat
+ * request handling, @Async and @Scheduled onto virtual threads; the connection pool stays
+ * the real limit on concurrency and is guarded by {@link ConnectionLimitingDataSource}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor() {
+        return new ConnectionLimitingPostProcessor();
+    }
+
+    /**
+     * Ordered first, so wrappers added by other post processors (read replica routing) sit
+     * on top of the limited pool instead of hiding it
+     */
+    private static class ConnectionLimitingPostProcessor implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof HikariDataSource hikari) {
+                log.info("Limiting {} to {} concurrent connection holders", beanName, hikari.getMaximumPoolSize());
+                return new ConnectionLimitingDataSource(hikari, hikari.getMaximumPoolSize(),
+                        hikari.getConnectionTimeout());
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
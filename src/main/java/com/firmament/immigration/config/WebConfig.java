@@ -1,6 +1,7 @@
 package com.firmament.immigration.config;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -12,4 +13,9 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addRedirectViewController("/", "/swagger-ui.html");
         registry.addRedirectViewController("/swagger-ui", "/swagger-ui.html");
     }
-}
\ No newline at end of file
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new EntityIdInterceptor()).addPathPatterns("/api/**");
+    }
+}
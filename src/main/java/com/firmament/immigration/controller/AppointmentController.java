@@ -9,9 +9,11 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -34,9 +36,17 @@ public class AppointmentController {
 
     @GetMapping("/{id}")
     @Operation(summary = "Get appointment by ID")
-    public ResponseEntity<AppointmentResponse> getAppointment(@PathVariable String id) {
+    public ResponseEntity<AppointmentResponse> getAppointment(@PathVariable String id, WebRequest webRequest) {
+        // Every update bumps the entity version, so it identifies the representation
+        String etag = "W/\"" + appointmentService.getAppointmentVersion(id) + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null; // 304, appointment not loaded
+        }
         AppointmentResponse response = appointmentService.getAppointmentById(id);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(response);
     }
 
     @GetMapping("/upcoming")
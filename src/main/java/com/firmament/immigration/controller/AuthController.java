@@ -5,6 +5,7 @@ import com.firmament.immigration.dto.response.LoginResponse;
 import com.firmament.immigration.service.AuthService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -21,15 +22,17 @@ public class AuthController {
 
     @PostMapping("/login")
     @Operation(summary = "Admin login")
-    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest request) {
-        LoginResponse response = authService.login(request);
+    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest request,
+                                               HttpServletRequest httpRequest) {
+        LoginResponse response = authService.login(request, httpRequest.getRemoteAddr());
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/logout")
     @Operation(summary = "Logout")
-    public ResponseEntity<Void> logout() {
-        // For JWT, logout is typically handled client-side by removing the token
+    public ResponseEntity<Void> logout(@RequestHeader("Authorization") String token) {
+        // Revokes this token; the client should still discard it
+        authService.logout(token.replace("Bearer ", ""));
         return ResponseEntity.ok().build();
     }
 
@@ -2,7 +2,7 @@ package com.firmament.immigration.controller;
 
 import com.firmament.immigration.dto.request.BlockPeriodRequest;
 import com.firmament.immigration.dto.response.BlockedPeriodResponse;
-import com.firmament.immigration.dto.response.DayAvailabilityResponse;
+import com.firmament.immigration.dto.response.CompactAvailabilityResponse;
 import com.firmament.immigration.dto.response.MonthAvailabilityResponse;
 import com.firmament.immigration.service.AvailabilityService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -10,11 +10,16 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/availability")
@@ -25,12 +30,54 @@ public class AvailabilityController {
 
     private final AvailabilityService availabilityService;
 
+    public static final String V2_MEDIA_TYPE = "application/vnd.firmament.availability.v2+json";
+
+    private static final Set<Integer> ALL_DURATIONS = Set.of(30, 60, 90);
+
     @GetMapping("/day/{date}")
-    @Operation(summary = "Get available time slots for a specific day")
-    public ResponseEntity<DayAvailabilityResponse> getDayAvailability(
+    @Operation(summary = "Get available time slots for a specific day",
+            description = "Send Accept: " + V2_MEDIA_TYPE + " or format=v2 for the compact bitmask representation")
+    public ResponseEntity<?> getDayAvailability(
             @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
-            @RequestParam(required = false, defaultValue = "UTC") String timezone) {
-        return ResponseEntity.ok(availabilityService.getAvailableTimesForDay(date, timezone));
+            @RequestParam(required = false, defaultValue = "UTC") String timezone,
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest webRequest) {
+        boolean compact = wantsCompact(format, accept);
+        String version = availabilityService.getDayAvailabilityVersion(date, timezone);
+        String etag = etag(compact ? "v2-" + version : version);
+        if (webRequest.checkNotModified(etag)) {
+            return null; // 304, nothing computed
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT);
+        if (compact) {
+            return response.contentType(MediaType.parseMediaType(V2_MEDIA_TYPE))
+                    .body(availabilityService.getCompactAvailability(date, date, timezone, ALL_DURATIONS));
+        }
+        return response.body(availabilityService.getAvailableTimesForDay(date, timezone));
+    }
+
+    @GetMapping(value = "/range", produces = V2_MEDIA_TYPE)
+    @Operation(summary = "Get compact (v2) availability for a range of days, up to 100",
+            description = "Pass durations to get only the bitmasks the client needs")
+    public ResponseEntity<CompactAvailabilityResponse> getRangeAvailability(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false, defaultValue = "UTC") String timezone,
+            @RequestParam(required = false) Set<Integer> durations,
+            WebRequest webRequest) {
+        String etag = etag("v2-" + availabilityService.getRangeAvailabilityVersion(from, to, timezone));
+        if (webRequest.checkNotModified(etag)) {
+            return null; // 304, nothing computed
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(availabilityService.getCompactAvailability(from, to, timezone,
+                        durations == null || durations.isEmpty() ? ALL_DURATIONS : durations));
     }
 
     @GetMapping("/month/{year}/{month}")
@@ -38,8 +85,16 @@ public class AvailabilityController {
     public ResponseEntity<MonthAvailabilityResponse> getMonthAvailability(
             @PathVariable int year,
             @PathVariable int month,
-            @RequestParam(required = false, defaultValue = "UTC") String timezone) {
-        return ResponseEntity.ok(availabilityService.getMonthAvailability(year, month, timezone));
+            @RequestParam(required = false, defaultValue = "UTC") String timezone,
+            WebRequest webRequest) {
+        String etag = etag(availabilityService.getMonthAvailabilityVersion(year, month, timezone));
+        if (webRequest.checkNotModified(etag)) {
+            return null; // 304, nothing computed
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(availabilityService.getMonthAvailability(year, month, timezone));
     }
 
     @PostMapping("/block")
@@ -63,4 +118,19 @@ public class AvailabilityController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
         return ResponseEntity.ok(availabilityService.getBlockedPeriods(startDate, endDate));
     }
-}
\ No newline at end of file
+
+    private boolean wantsCompact(String format, String accept) {
+        if (format != null) {
+            return "v2".equalsIgnoreCase(format);
+        }
+        if (accept == null) {
+            return false;
+        }
+        MediaType v2 = MediaType.parseMediaType(V2_MEDIA_TYPE);
+        return MediaType.parseMediaTypes(accept).stream().anyMatch(v2::equalsTypeAndSubtype);
+    }
+
+    private String etag(String version) {
+        return "W/\"" + version + "\"";
+    }
+}
@@ -1,16 +1,24 @@
 package com.firmament.immigration.controller;
 
+import com.firmament.immigration.dto.request.ConfirmUploadRequest;
 import com.firmament.immigration.dto.response.DocumentResponse;
+import com.firmament.immigration.dto.response.UploadTicketResponse;
 import com.firmament.immigration.service.DocumentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 
 @RestController
@@ -30,6 +38,22 @@ public class DocumentController {
         return ResponseEntity.ok(documents);
     }
 
+    @PostMapping("/upload/{appointmentId}/ticket")
+    @Operation(summary = "Get a signed ticket to upload a document directly to storage")
+    public ResponseEntity<UploadTicketResponse> createUploadTicket(
+            @PathVariable String appointmentId,
+            @RequestParam String fileName) {
+        return ResponseEntity.ok(documentService.createUploadTicket(appointmentId, fileName));
+    }
+
+    @PostMapping("/upload/{appointmentId}/confirm")
+    @Operation(summary = "Register a document uploaded directly to storage")
+    public ResponseEntity<DocumentResponse> confirmDirectUpload(
+            @PathVariable String appointmentId,
+            @Valid @RequestBody ConfirmUploadRequest request) {
+        return ResponseEntity.ok(documentService.confirmDirectUpload(appointmentId, request));
+    }
+
     @GetMapping("/appointment/{appointmentId}")
     @Operation(summary = "Get all documents for appointment")
     public ResponseEntity<List<DocumentResponse>> getAppointmentDocuments(@PathVariable String appointmentId) {
@@ -46,10 +70,18 @@ public class DocumentController {
 
     @GetMapping("/download/{documentId}")
     @Operation(summary = "Download document")
-    public ResponseEntity<byte[]> downloadDocument(@PathVariable String documentId) {
+    public ResponseEntity<Resource> downloadDocument(@PathVariable String documentId) throws IOException {
         DocumentResponse documentInfo = documentService.getDocument(documentId);
-        byte[] content = documentService.downloadDocument(documentId);
+        Resource content = documentService.downloadDocument(documentId);
 
+        if (!content.isFile()) {
+            // Remote storage: send the client there instead of proxying the bytes
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(content.getURI())
+                    .build();
+        }
+
+        // Returning a Resource lets Spring stream it and answer Range requests with 206
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION,
                         "attachment; filename=\"" + documentInfo.getFileName() + "\"")
@@ -57,6 +89,23 @@ public class DocumentController {
                 .body(content);
     }
 
+    @GetMapping("/thumbnail/{documentId}")
+    @Operation(summary = "Get document thumbnail / first page preview")
+    public ResponseEntity<Resource> getThumbnail(@PathVariable String documentId) throws IOException {
+        Resource thumbnail = documentService.downloadThumbnail(documentId);
+
+        if (!thumbnail.isFile()) {
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(thumbnail.getURI())
+                    .build();
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_JPEG)
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(1)).cachePrivate())
+                .body(thumbnail);
+    }
+
     @DeleteMapping("/{documentId}")
     @Operation(summary = "Delete document")
     public ResponseEntity<Void> deleteDocument(@PathVariable String documentId) {
@@ -0,0 +1,84 @@
+package com.firmament.immigration.controller;
+
+import com.firmament.immigration.dto.request.CreateUploadSessionRequest;
+import com.firmament.immigration.dto.response.UploadSessionResponse;
+import com.firmament.immigration.service.ResumableUploadService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * Resumable uploads: create a session, PATCH chunks at {@code Upload-Offset}, and HEAD the
+ * session to find where to resume after a dropped connection.
+ */
+@RestController
+@RequestMapping("/api/documents/uploads")
+@RequiredArgsConstructor
+@Tag(name = "Documents", description = "Document management endpoints")
+public class ResumableUploadController {
+
+    static final String UPLOAD_OFFSET = "Upload-Offset";
+    static final String UPLOAD_LENGTH = "Upload-Length";
+    static final String CHUNK_MEDIA_TYPE = "application/offset+octet-stream";
+
+    private final ResumableUploadService resumableUploadService;
+
+    @PostMapping("/{appointmentId}")
+    @Operation(summary = "Start a resumable upload for appointment")
+    public ResponseEntity<UploadSessionResponse> createSession(
+            @PathVariable String appointmentId,
+            @Valid @RequestBody CreateUploadSessionRequest request) {
+        UploadSessionResponse session = resumableUploadService.createSession(appointmentId, request);
+        return ResponseEntity.created(URI.create("/api/documents/uploads/sessions/" + session.getId()))
+                .header(UPLOAD_OFFSET, String.valueOf(session.getOffset()))
+                .header(UPLOAD_LENGTH, String.valueOf(session.getLength()))
+                .body(session);
+    }
+
+    @RequestMapping(value = "/sessions/{sessionId}", method = RequestMethod.HEAD)
+    @Operation(summary = "Get the current offset of a resumable upload")
+    public ResponseEntity<Void> getOffset(@PathVariable String sessionId) {
+        UploadSessionResponse session = resumableUploadService.getSession(sessionId);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header(UPLOAD_OFFSET, String.valueOf(session.getOffset()))
+                .header(UPLOAD_LENGTH, String.valueOf(session.getLength()))
+                .build();
+    }
+
+    @GetMapping("/sessions/{sessionId}")
+    @Operation(summary = "Get a resumable upload session")
+    public ResponseEntity<UploadSessionResponse> getSession(@PathVariable String sessionId) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(resumableUploadService.getSession(sessionId));
+    }
+
+    @PatchMapping(value = "/sessions/{sessionId}", consumes = {CHUNK_MEDIA_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    @Operation(summary = "Append a chunk at Upload-Offset; the document is created with the last chunk")
+    public ResponseEntity<UploadSessionResponse> appendChunk(
+            @PathVariable String sessionId,
+            @RequestHeader(UPLOAD_OFFSET) long offset,
+            HttpServletRequest request) throws IOException {
+        UploadSessionResponse session = resumableUploadService.appendChunk(sessionId, offset, request.getInputStream());
+        return ResponseEntity.ok()
+                .header(UPLOAD_OFFSET, String.valueOf(session.getOffset()))
+                .body(session);
+    }
+
+    @DeleteMapping("/sessions/{sessionId}")
+    @Operation(summary = "Abort a resumable upload")
+    public ResponseEntity<Void> abortSession(@PathVariable String sessionId) {
+        resumableUploadService.abortSession(sessionId);
+        return ResponseEntity.noContent().build();
+    }
+}
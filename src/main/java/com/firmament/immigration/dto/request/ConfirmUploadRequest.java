@@ -0,0 +1,25 @@
+package com.firmament.immigration.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class ConfirmUploadRequest {
+    // Values returned by Cloudinary after the direct upload
+    @NotBlank(message = "Public ID is required")
+    private String publicId;
+
+    @NotBlank(message = "Version is required")
+    private String version;
+
+    @NotBlank(message = "Signature is required")
+    private String signature;
+
+    @NotBlank(message = "Resource type is required")
+    private String resourceType;
+
+    @NotBlank(message = "Original file name is required")
+    private String originalFilename;
+
+    private String contentType;
+}
@@ -0,0 +1,18 @@
+package com.firmament.immigration.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+@Data
+public class CreateUploadSessionRequest {
+    @NotBlank(message = "File name is required")
+    private String fileName;
+
+    private String fileType;
+
+    @NotNull(message = "File size is required")
+    @Positive(message = "File size must be positive")
+    private Long fileSize;
+}
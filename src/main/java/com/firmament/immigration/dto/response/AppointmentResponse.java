@@ -1,13 +1,14 @@
 package com.firmament.immigration.dto.response;
 
 import lombok.Data;
+import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 import java.util.List;
 
 @Data
-public class AppointmentResponse {
+public class AppointmentResponse implements Serializable {
     private String id;
     private String firstName;
     private String lastName;
@@ -0,0 +1,25 @@
+package com.firmament.immigration.dto.response;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Map;
+
+/**
+ * v2 availability: one base64 bitmask per duration instead of a list of slot objects.
+ * Bits are laid out day by day from {@code from} to {@code to}, {@code slotsPerDay} bits per day,
+ * most significant bit first; bit n of a day is set when the slot starting at
+ * {@code start + n * step} minutes is free for that duration.
+ */
+@Data
+public class CompactAvailabilityResponse implements Serializable {
+    private LocalDate from;
+    private LocalDate to;
+    private String timezone;
+    private LocalTime start;
+    private int step;
+    private int slotsPerDay;
+    private Map<Integer, String> free; // duration in minutes -> base64 bitmask
+}
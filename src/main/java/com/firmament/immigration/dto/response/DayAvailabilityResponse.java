@@ -1,11 +1,13 @@
 package com.firmament.immigration.dto.response;
 
 import lombok.Data;
+
+import java.io.Serializable;
 import java.time.LocalDate;
 import java.util.List;
 
 @Data
-public class DayAvailabilityResponse {
+public class DayAvailabilityResponse implements Serializable {
     private LocalDate date;
     private boolean fullyBooked;
     private List<TimeSlotDto> availableSlots;
@@ -1,14 +1,16 @@
 package com.firmament.immigration.dto.response;
 
 import lombok.Data;
+import java.io.Serializable;
 import java.time.LocalDateTime;
 
 @Data
-public class DocumentResponse {
+public class DocumentResponse implements Serializable {
     private String id;
     private String fileName;
     private String fileType;
     private Long fileSize;
     private LocalDateTime uploadedAt;
     private String url;
+    private String thumbnailUrl; // null until the background preview is ready
 }
@@ -1,10 +1,12 @@
 package com.firmament.immigration.dto.response;
 
 import lombok.Data;
+
+import java.io.Serializable;
 import java.util.Map;
 
 @Data
-public class MonthAvailabilityResponse {
+public class MonthAvailabilityResponse implements Serializable {
     private int year;
     private int month;
     private Map<Integer, Boolean> dayAvailability;
@@ -2,10 +2,11 @@ package com.firmament.immigration.dto.response;
 
 import lombok.Data;
 
+import java.io.Serializable;
 import java.time.LocalTime;
 
 @Data
-public class TimeSlotDto {
+public class TimeSlotDto implements Serializable {
     private LocalTime startTime;
     private boolean available30Min;
     private boolean available60Min;
@@ -0,0 +1,17 @@
+package com.firmament.immigration.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.ZonedDateTime;
+
+@Data
+@Builder
+public class UploadSessionResponse {
+    private String id;
+    private String fileName;
+    private Long offset;     // Bytes received so far, resume from here
+    private Long length;     // Total size announced when the session was created
+    private ZonedDateTime expiresAt;
+    private DocumentResponse document; // Set once the last chunk is received
+}
@@ -0,0 +1,21 @@
+package com.firmament.immigration.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Builder
+public class UploadTicketResponse {
+    private String uploadUrl;      // Cloudinary endpoint the client posts the file to
+    private String apiKey;
+    private Long timestamp;        // Signed, must be sent back unchanged
+    private String signature;
+    private String folder;
+    private String resourceType;   // "image" or "raw", already part of uploadUrl
+    private String allowedFormats; // Signed, only set for image uploads
+    private String publicId;       // Signed, the file's name in folder (raw files keep the extension)
+    private Long maxFileSize;      // bytes
+    private Instant expiresAt;     // Confirm must happen before this
+}
@@ -2,6 +2,8 @@ package com.firmament.immigration.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
@@ -9,12 +11,13 @@ import java.time.ZonedDateTime;
 @Table(name = "appointments", indexes = {
         @Index(name = "idx_appointment_date", columnList = "appointmentDate"),
         @Index(name = "idx_email_status", columnList = "email,status"),
-        @Index(name = "idx_status", columnList = "status")
+        @Index(name = "idx_appointment_status_date", columnList = "status,appointmentDate")
 })
 @Getter @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "appointments")
 public class Appointment extends BaseEntity {
 
     // Client Information (no account needed!)
@@ -2,6 +2,8 @@ package com.firmament.immigration.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZonedDateTime;
@@ -10,12 +12,14 @@ import java.time.ZoneOffset;
 @Entity
 @Table(name = "blocked_periods", indexes = {
         @Index(name = "idx_date", columnList = "date"),
-        @Index(name = "idx_datetime", columnList = "startDateTime,endDateTime")
+        @Index(name = "idx_datetime", columnList = "startDateTime,endDateTime"),
+        @Index(name = "idx_blocked_period_appointment", columnList = "appointment_id")
 })
 @Getter @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "blocked-periods")
 public class BlockedPeriod extends BaseEntity {
 
     @Column(nullable = false)
@@ -0,0 +1,8 @@
+package com.firmament.immigration.entity;
+
+public enum DerivativeJobStatus {
+    PENDING,        // Waiting for a worker (also used between retries)
+    RUNNING,        // Claimed by a worker
+    DONE,           // Derivatives stored
+    FAILED          // Gave up after max attempts
+}
@@ -2,13 +2,20 @@ package com.firmament.immigration.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-@Table(name = "documents")
+@Table(name = "documents", indexes = {
+        @Index(name = "idx_document_content_hash", columnList = "contentHash"),
+        @Index(name = "idx_document_public_id", columnList = "publicId"),
+        @Index(name = "idx_document_appointment", columnList = "appointment_id")
+})
 @Getter @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "documents")
 public class Document extends BaseEntity {
 
     @Column(nullable = false)
@@ -21,7 +28,17 @@ public class Document extends BaseEntity {
     private String filePath;
 
     @Column(name = "public_id") // Add this new column
-    private String publicId; // This will store Cloudinary's ID for deletion
+    private String publicId; // Storage key (Cloudinary public_id or local path) used for loading and deletion
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash; // SHA-256 of the content, null for direct uploads
+
+    // Small preview generated in the background (see DocumentDerivativeService)
+    @Column(name = "thumbnail_public_id")
+    private String thumbnailPublicId;
+
+    @Column(name = "thumbnail_path")
+    private String thumbnailPath;
 
 
     private Long fileSize;
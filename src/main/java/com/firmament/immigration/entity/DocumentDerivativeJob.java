@@ -0,0 +1,38 @@
+package com.firmament.immigration.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Persistent queue entry for generating a document's thumbnail / preview.
+ */
+@Entity
+@Table(name = "document_derivative_jobs", indexes = {
+        @Index(name = "idx_derivative_job_status", columnList = "status,availableAt")
+})
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DocumentDerivativeJob extends BaseEntity {
+
+    // No foreign key: the document may be deleted while the job is queued
+    @Column(name = "document_id", nullable = false)
+    @Convert(converter = UuidStringConverter.class)
+    private String documentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private DerivativeJobStatus status;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(nullable = false)
+    private ZonedDateTime availableAt; // UTC, not picked up before this
+
+    @Column(length = 500)
+    private String lastError;
+}
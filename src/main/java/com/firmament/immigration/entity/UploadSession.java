@@ -0,0 +1,41 @@
+package com.firmament.immigration.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.ZonedDateTime;
+
+/**
+ * A resumable (chunked) upload in progress. The bytes received so far live in a temp
+ * file named after the session id.
+ */
+@Entity
+@Table(name = "upload_sessions", indexes = {
+        @Index(name = "idx_upload_session_expires_at", columnList = "expiresAt"),
+        @Index(name = "idx_upload_session_appointment", columnList = "appointment_id")
+})
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadSession extends BaseEntity {
+
+    @Column(nullable = false)
+    private String fileName;
+
+    @Column(nullable = false)
+    private String fileType;
+
+    @Column(nullable = false)
+    private Long totalSize;
+
+    @Column(nullable = false)
+    private Long uploadedBytes; // Current offset, only advanced once bytes are on disk
+
+    @Column(nullable = false)
+    private ZonedDateTime expiresAt;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "appointment_id", nullable = false)
+    private Appointment appointment;
+}
@@ -0,0 +1,26 @@
+package com.firmament.immigration.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.UUID;
+
+/**
+ * Ids stay strings in the model and the API but are stored as native uuid columns (16 bytes
+ * instead of a 36-character varchar). Converting an {@code @Id} is a Hibernate extension, not
+ * portable JPA. A string that is not a UUID is rejected rather than rewritten: path ids are
+ * checked by {@code EntityIdInterceptor} before they get here, so anything else is a bug.
+ */
+@Converter
+public class UuidStringConverter implements AttributeConverter<String, UUID> {
+
+    @Override
+    public UUID convertToDatabaseColumn(String attribute) {
+        return attribute == null ? null : UUID.fromString(attribute);
+    }
+
+    @Override
+    public String convertToEntityAttribute(UUID dbData) {
+        return dbData == null ? null : dbData.toString();
+    }
+}
@@ -6,9 +6,9 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, String> {
@@ -17,14 +17,18 @@ public interface AppointmentRepository extends JpaRepository<Appointment, String
     List<Appointment> findByStatus(AppointmentStatus status);
 
     // Find appointments for a specific date range
-    List<Appointment> findByAppointmentDateBetween(LocalDateTime start, LocalDateTime end);
+    List<Appointment> findByAppointmentDateBetween(ZonedDateTime start, ZonedDateTime end);
 
     // Check if email has existing appointment
     boolean existsByEmailAndStatus(String email, AppointmentStatus status);
 
+    // Version only, for conditional GETs
+    @Query("SELECT a.version FROM Appointment a WHERE a.id = ?1")
+    Optional<Long> findVersionById(String id);
+
     // For admin dashboard
-    @Query("SELECT a FROM Appointment a WHERE a.status = ?1 ORDER BY a.appointmentDate ASC")
-    List<Appointment> findUpcomingAppointments(AppointmentStatus status);
+    @Query("SELECT a FROM Appointment a WHERE a.status = ?1 AND a.appointmentDate >= ?2 ORDER BY a.appointmentDate ASC")
+    List<Appointment> findUpcomingAppointments(AppointmentStatus status, ZonedDateTime from);
 
     List<Appointment> findByStatusAndAppointmentDateBetween(
             AppointmentStatus status,
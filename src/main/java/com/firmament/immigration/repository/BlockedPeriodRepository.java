@@ -7,8 +7,11 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.List;
 
@@ -21,13 +24,37 @@ public interface BlockedPeriodRepository extends JpaRepository<BlockedPeriod, St
     // Find blocked periods for a date range
     List<BlockedPeriod> findByDateBetween(LocalDate startDate, LocalDate endDate);
 
-        @Query("SELECT b FROM BlockedPeriod b WHERE " +
-           "b.startDateTime < ?2 AND b.endDateTime > ?1")
-    List<BlockedPeriod> findByDateTimeBetween(ZonedDateTime startUtc, ZonedDateTime endUtc);
+    // Same for the calendar views: date is local to the period's own timezone, so its start is
+    // within a day of that date in UTC, which bounds the partitions to scan
+    default List<BlockedPeriod> findForCalendar(LocalDate startDate, LocalDate endDate) {
+        return findByDateBetweenAndStartDateTimeBetween(startDate, endDate,
+                startDate.minusDays(1).atStartOfDay(ZoneOffset.UTC),
+                endDate.plusDays(2).atStartOfDay(ZoneOffset.UTC));
+    }
 
-        @Query("SELECT COUNT(b) > 0 FROM BlockedPeriod b WHERE " +
-           "b.startDateTime < ?2 AND b.endDateTime > ?1")
-    boolean isTimeBlockedUTC(ZonedDateTime startUtc, ZonedDateTime endUtc);
+    List<BlockedPeriod> findByDateBetweenAndStartDateTimeBetween(LocalDate startDate, LocalDate endDate,
+                                                                 ZonedDateTime earliestStartUtc, ZonedDateTime latestStartUtc);
+
+    // No blocked period is longer than a day (a full local day, a range within one date or an
+    // appointment), so periods overlapping a range start at most MAX_PERIOD_LENGTH before it.
+    // The implied lower bound on start_date_time lets Postgres skip the older partitions
+    Duration MAX_PERIOD_LENGTH = Duration.ofDays(2);
+
+    default List<BlockedPeriod> findByDateTimeBetween(ZonedDateTime startUtc, ZonedDateTime endUtc) {
+        return findOverlapping(startUtc, endUtc, startUtc.minus(MAX_PERIOD_LENGTH));
+    }
+
+    default boolean isTimeBlockedUTC(ZonedDateTime startUtc, ZonedDateTime endUtc) {
+        return existsOverlapping(startUtc, endUtc, startUtc.minus(MAX_PERIOD_LENGTH));
+    }
+
+    @Query("SELECT b FROM BlockedPeriod b WHERE " +
+           "b.startDateTime >= ?3 AND b.startDateTime < ?2 AND b.endDateTime > ?1")
+    List<BlockedPeriod> findOverlapping(ZonedDateTime startUtc, ZonedDateTime endUtc, ZonedDateTime earliestStartUtc);
+
+    @Query("SELECT COUNT(b) > 0 FROM BlockedPeriod b WHERE " +
+           "b.startDateTime >= ?3 AND b.startDateTime < ?2 AND b.endDateTime > ?1")
+    boolean existsOverlapping(ZonedDateTime startUtc, ZonedDateTime endUtc, ZonedDateTime earliestStartUtc);
 
     // Check if a specific time is blocked
     // Fixed query - using proper overlap detection
@@ -35,9 +62,15 @@ public interface BlockedPeriodRepository extends JpaRepository<BlockedPeriod, St
 //            "(b.startTime < ?3 AND b.endTime > ?2)")
 //    boolean isTimeBlocked(LocalDate date, LocalTime startTime, LocalTime endTime);
 
-    // Get dates that have at least one blocked period in a month
-    @Query("SELECT DISTINCT b.date FROM BlockedPeriod b WHERE YEAR(b.date) = ?1 AND MONTH(b.date) = ?2")
-    List<LocalDate> getDatesWithBlockedPeriods(int year, int month);
+    // Get dates that have at least one blocked period in a month. A range on the column
+    // rather than YEAR()/MONTH() of it, which no index can serve
+    default List<LocalDate> getDatesWithBlockedPeriods(int year, int month) {
+        YearMonth yearMonth = YearMonth.of(year, month);
+        return findDistinctDatesBetween(yearMonth.atDay(1), yearMonth.atEndOfMonth());
+    }
+
+    @Query("SELECT DISTINCT b.date FROM BlockedPeriod b WHERE b.date BETWEEN ?1 AND ?2")
+    List<LocalDate> findDistinctDatesBetween(LocalDate startDate, LocalDate endDate);
 
     // Find all blocked periods for a date
     @Query("SELECT b FROM BlockedPeriod b WHERE b.date = ?1")
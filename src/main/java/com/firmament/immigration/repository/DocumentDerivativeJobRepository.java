@@ -0,0 +1,36 @@
+package com.firmament.immigration.repository;
+
+import com.firmament.immigration.entity.DerivativeJobStatus;
+import com.firmament.immigration.entity.DocumentDerivativeJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+@Repository
+public interface DocumentDerivativeJobRepository extends JpaRepository<DocumentDerivativeJob, String> {
+
+    @Query("SELECT j FROM DocumentDerivativeJob j WHERE j.status = ?1 AND j.availableAt <= ?2 ORDER BY j.availableAt ASC")
+    List<DocumentDerivativeJob> findReady(DerivativeJobStatus status, ZonedDateTime now, Pageable pageable);
+
+    // Jobs left RUNNING by a node that died are handed out again
+    @Transactional
+    @Modifying
+    @Query("UPDATE DocumentDerivativeJob j SET j.status = com.firmament.immigration.entity.DerivativeJobStatus.PENDING " +
+            "WHERE j.status = com.firmament.immigration.entity.DerivativeJobStatus.RUNNING AND j.updatedAt < ?1")
+    int releaseStale(LocalDateTime runningSince);
+
+    // Finished jobs are only kept for inspection; FAILED ones are never retried
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM DocumentDerivativeJob j " +
+            "WHERE j.status IN (com.firmament.immigration.entity.DerivativeJobStatus.DONE, " +
+            "com.firmament.immigration.entity.DerivativeJobStatus.FAILED) AND j.updatedAt < ?1")
+    int deleteFinished(LocalDateTime finishedBefore);
+}
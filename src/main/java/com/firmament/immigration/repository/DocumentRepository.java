@@ -1,12 +1,50 @@
 package com.firmament.immigration.repository;
 
 import com.firmament.immigration.entity.Document;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
 @Repository
 public interface DocumentRepository extends JpaRepository<Document, String> {
+    // Query cache: invalidated whenever the documents table is written.
+    // fk() compares the foreign key column itself; the derived query joined appointments for its id
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT d FROM Document d WHERE fk(d.appointment) = ?1")
     List<Document> findByAppointmentId(String appointmentId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Document d WHERE fk(d.appointment) = ?1")
     void deleteByAppointmentId(String appointmentId);
+
+    boolean existsByPublicId(String publicId);
+
+    // Content-addressed blobs: every row sharing a public_id is one reference to the blob.
+    // Locked so a delete dropping the last reference cannot race an upload reusing it.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM Document d WHERE d.contentHash = ?1")
+    List<Document> findByContentHashForUpdate(String contentHash);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM Document d WHERE d.publicId = ?1")
+    List<Document> findByPublicIdForUpdate(String publicId);
+
+    // Archived documents (DataRetentionService) keep their blob, so they count as references too
+    @Query(value = "SELECT COUNT(*) FROM documents_archive WHERE public_id = ?1", nativeQuery = true)
+    long countArchivedByPublicId(String publicId);
+
+    // Thumbnails belong to the blob, so every document sharing it gets the same one
+    @Transactional
+    @Modifying
+    @Query("UPDATE Document d SET d.thumbnailPublicId = ?2, d.thumbnailPath = ?3 WHERE d.publicId = ?1")
+    int setThumbnailForBlob(String publicId, String thumbnailPublicId, String thumbnailPath);
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.firmament.immigration.repository;
+
+import com.firmament.immigration.entity.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    // Compare-and-set so two requests can never both advance the same offset
+    @Transactional
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.uploadedBytes = ?3 WHERE s.id = ?1 AND s.uploadedBytes = ?2")
+    int advanceOffset(String id, long expectedOffset, long newOffset);
+
+    // Returns 0 when another request completed or aborted the session first
+    @Modifying
+    @Query("DELETE FROM UploadSession s WHERE s.id = ?1")
+    int deleteSession(String id);
+
+    List<UploadSession> findByExpiresAtBefore(ZonedDateTime now);
+}
@@ -0,0 +1,33 @@
+package com.firmament.immigration.scheduler;
+
+import com.firmament.immigration.service.DataRetentionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DataRetentionScheduler {
+
+    private final DataRetentionService dataRetentionService;
+
+    /**
+     * Creates upcoming blocked_periods partitions, detaches expired ones and archives
+     * finished appointments. Each step runs even if the previous one failed
+     */
+    @Scheduled(cron = "${app.retention.cron:0 30 3 * * *}")
+    public void applyRetention() {
+        try {
+            dataRetentionService.maintainPartitions();
+        } catch (Exception e) {
+            log.error("Partition maintenance failed", e);
+        }
+        try {
+            dataRetentionService.archiveAppointments();
+        } catch (Exception e) {
+            log.error("Appointment archival failed", e);
+        }
+    }
+}
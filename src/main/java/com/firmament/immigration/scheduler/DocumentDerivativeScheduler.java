@@ -0,0 +1,31 @@
+package com.firmament.immigration.scheduler;
+
+import com.firmament.immigration.service.DocumentDerivativeService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "app.documents.derivatives.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class DocumentDerivativeScheduler {
+
+    private final DocumentDerivativeService documentDerivativeService;
+
+    /**
+     * Polls the job table and hands ready jobs to the derivative worker pool
+     */
+    @Scheduled(fixedDelayString = "${app.documents.derivatives.poll-interval-ms:5000}")
+    public void dispatchDerivativeJobs() {
+        documentDerivativeService.dispatchPendingJobs();
+    }
+
+    /**
+     * Removes DONE and FAILED jobs older than the retention, which are never picked up again
+     */
+    @Scheduled(fixedDelayString = "${app.documents.derivatives.cleanup-interval-ms:3600000}")
+    public void purgeFinishedJobs() {
+        documentDerivativeService.purgeFinishedJobs();
+    }
+}
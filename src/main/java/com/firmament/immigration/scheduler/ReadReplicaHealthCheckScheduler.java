@@ -0,0 +1,23 @@
+package com.firmament.immigration.scheduler;
+
+import com.firmament.immigration.config.ReadReplicaRouter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "app.read-replicas.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReadReplicaHealthCheckScheduler {
+
+    private final ReadReplicaRouter readReplicaRouter;
+
+    /**
+     * Takes unreachable replicas out of rotation and brings recovered ones back
+     */
+    @Scheduled(fixedDelayString = "${app.read-replicas.health-check-interval-ms:5000}")
+    public void checkReplicas() {
+        readReplicaRouter.checkHealth();
+    }
+}
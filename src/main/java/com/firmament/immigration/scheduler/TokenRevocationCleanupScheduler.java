@@ -0,0 +1,21 @@
+package com.firmament.immigration.scheduler;
+
+import com.firmament.immigration.service.TokenRevocationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class TokenRevocationCleanupScheduler {
+
+    private final TokenRevocationService tokenRevocationService;
+
+    /**
+     * Forgets revocations of tokens that have expired on their own
+     */
+    @Scheduled(fixedDelayString = "${app.auth.revocation.cleanup-interval-ms:600000}")
+    public void purgeExpiredRevocations() {
+        tokenRevocationService.purgeExpired();
+    }
+}
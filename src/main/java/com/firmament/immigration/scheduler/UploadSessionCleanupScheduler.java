@@ -0,0 +1,21 @@
+package com.firmament.immigration.scheduler;
+
+import com.firmament.immigration.service.ResumableUploadService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class UploadSessionCleanupScheduler {
+
+    private final ResumableUploadService resumableUploadService;
+
+    /**
+     * Removes abandoned resumable uploads and their partial files
+     */
+    @Scheduled(fixedDelayString = "${app.upload.resumable.cleanup-interval-ms:3600000}")
+    public void purgeExpiredSessions() {
+        resumableUploadService.purgeExpiredSessions();
+    }
+}
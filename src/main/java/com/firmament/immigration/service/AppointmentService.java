@@ -9,6 +9,7 @@ import java.util.List;
 public interface AppointmentService {
     AppointmentResponse createAppointment(CreateAppointmentRequest request);
     AppointmentResponse getAppointmentById(String id);
+    Long getAppointmentVersion(String id);
     List<AppointmentResponse> getUpcomingAppointments();
     List<AppointmentResponse> getAllAppointments();
     List<AppointmentResponse> getAppointmentsByStatus(AppointmentStatus status);
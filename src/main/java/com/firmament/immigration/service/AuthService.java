@@ -4,6 +4,7 @@ import com.firmament.immigration.dto.request.LoginRequest;
 import com.firmament.immigration.dto.response.LoginResponse;
 
 public interface AuthService {
-    LoginResponse login(LoginRequest request);
+    LoginResponse login(LoginRequest request, String clientIp);
     LoginResponse getUserFromToken(String token);
+    void logout(String token);
 }
\ No newline at end of file
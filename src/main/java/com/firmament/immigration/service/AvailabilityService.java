@@ -2,12 +2,14 @@ package com.firmament.immigration.service;
 
 import com.firmament.immigration.dto.request.BlockPeriodRequest;
 import com.firmament.immigration.dto.response.BlockedPeriodResponse;
+import com.firmament.immigration.dto.response.CompactAvailabilityResponse;
 import com.firmament.immigration.dto.response.DayAvailabilityResponse;
 import com.firmament.immigration.dto.response.MonthAvailabilityResponse;
 
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Set;
 
 public interface AvailabilityService {
     boolean isAvailable(ZonedDateTime startDateTime, int durationInMinutes);
@@ -18,6 +20,14 @@ public interface AvailabilityService {
     
     MonthAvailabilityResponse getMonthAvailability(int year, int month);
     MonthAvailabilityResponse getMonthAvailability(int year, int month, String timezone);
+
+    // Bitmask (v2) representation of a day or a range of days, durations in minutes
+    CompactAvailabilityResponse getCompactAvailability(LocalDate from, LocalDate to, String timezone, Set<Integer> durations);
+
+    // Cheap version tags for conditional GETs; never touch the database
+    String getDayAvailabilityVersion(LocalDate date, String timezone);
+    String getMonthAvailabilityVersion(int year, int month, String timezone);
+    String getRangeAvailabilityVersion(LocalDate from, LocalDate to, String timezone);
     
     void blockPeriod(BlockPeriodRequest request);
     void unblockPeriod(String blockedPeriodId);
@@ -0,0 +1,144 @@
+package com.firmament.immigration.service;
+
+import com.firmament.immigration.config.CacheConfig;
+import com.firmament.immigration.config.ReadReplicaRouter;
+import com.firmament.immigration.entity.BlockedPeriod;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory change counter per calendar day, used to build availability ETags without
+ * touching the database. Every blocked-period write stamps the days it touches with the next
+ * value of a global sequence, so the newest stamp over a range changes whenever anything in
+ * that range does. The epoch makes tags from before a restart never match. Local changes also
+ * clear the availability caches, which broadcast the clear to the other nodes. Any change, local
+ * or remote, also keeps reads on the primary while the read replicas catch up.
+ */
+@Component
+@Slf4j
+public class AvailabilityVersionTracker {
+
+    public static final String CHANNEL = "immigration:availability-changes";
+
+    private final Map<LocalDate, Long> stamps = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final ObjectProvider<StringRedisTemplate> redisTemplate;
+    private final CacheManager cacheManager;
+    private final ObjectProvider<ReadReplicaRouter> readReplicaRouter;
+    private final boolean redisSync;
+
+    public AvailabilityVersionTracker(ObjectProvider<StringRedisTemplate> redisTemplate,
+                                      CacheManager cacheManager,
+                                      ObjectProvider<ReadReplicaRouter> readReplicaRouter,
+                                      @Value("${app.availability.redis-sync.enabled:false}") boolean redisSync) {
+        this.redisTemplate = redisTemplate;
+        this.cacheManager = cacheManager;
+        this.readReplicaRouter = readReplicaRouter;
+        this.redisSync = redisSync;
+    }
+
+    /**
+     * Record a change to a blocked period. Applied after the surrounding transaction commits,
+     * so a reader can never pair the new tag with the old data.
+     */
+    public void recordChange(BlockedPeriod period) {
+        Set<LocalDate> days = new TreeSet<>();
+        if (period.getDate() != null) {
+            days.add(period.getDate());
+        }
+        if (period.getStartDateTime() != null && period.getEndDateTime() != null) {
+            LocalDate last = period.getEndDateTime().withZoneSameInstant(ZoneOffset.UTC).toLocalDate();
+            for (LocalDate day = period.getStartDateTime().withZoneSameInstant(ZoneOffset.UTC).toLocalDate();
+                 !day.isAfter(last); day = day.plusDays(1)) {
+                days.add(day);
+            }
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(days);
+                }
+            });
+        } else {
+            publish(days);
+        }
+    }
+
+    /**
+     * Apply changes made on another node
+     */
+    public void bumpLocally(Iterable<LocalDate> days) {
+        readReplicaRouter.ifAvailable(ReadReplicaRouter::pinToPrimary);
+        long stamp = sequence.incrementAndGet();
+        days.forEach(day -> stamps.put(day, stamp));
+    }
+
+    /**
+     * Tag for the day view: covers every UTC day the local day overlaps
+     */
+    public String dayTag(LocalDate date, ZoneId zone) {
+        ZonedDateTime start = date.atStartOfDay(zone).withZoneSameInstant(ZoneOffset.UTC);
+        ZonedDateTime end = date.plusDays(1).atStartOfDay(zone).withZoneSameInstant(ZoneOffset.UTC);
+        return "d" + newestStamp(start.toLocalDate(), end.toLocalDate());
+    }
+
+    /**
+     * Tag for a range of local days, same coverage rule as the day view
+     */
+    public String rangeTag(LocalDate from, LocalDate to, ZoneId zone) {
+        ZonedDateTime start = from.atStartOfDay(zone).withZoneSameInstant(ZoneOffset.UTC);
+        ZonedDateTime end = to.plusDays(1).atStartOfDay(zone).withZoneSameInstant(ZoneOffset.UTC);
+        return "r" + newestStamp(start.toLocalDate(), end.toLocalDate());
+    }
+
+    /**
+     * Tag for the month view, which also depends on today's date (past days are closed)
+     */
+    public String monthTag(LocalDate firstDay, LocalDate lastDay, LocalDate today) {
+        return "m" + newestStamp(firstDay.minusDays(1), lastDay.plusDays(1)) + "-" + today.toEpochDay();
+    }
+
+    private String newestStamp(LocalDate from, LocalDate to) {
+        long newest = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            newest = Math.max(newest, stamps.getOrDefault(day, 0L));
+        }
+        return epoch + "-" + newest;
+    }
+
+    private void publish(Set<LocalDate> days) {
+        bumpLocally(days);
+        // Cached views are keyed by local date and timezone, so any change clears them all
+        for (String cacheName : List.of(CacheConfig.AVAILABILITY_DAY, CacheConfig.AVAILABILITY_MONTH, CacheConfig.AVAILABILITY_RANGE)) {
+            cacheManager.getCache(cacheName).clear();
+        }
+        if (redisSync) {
+            try {
+                redisTemplate.getObject().convertAndSend(CHANNEL, String.join(",", days.stream().map(LocalDate::toString).toList()));
+            } catch (Exception e) {
+                log.error("Failed to publish availability change for {}, other nodes may serve stale ETags", days, e);
+            }
+        }
+    }
+}
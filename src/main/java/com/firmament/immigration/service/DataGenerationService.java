@@ -0,0 +1,5 @@
+package com.firmament.immigration.service;
+
+public interface DataGenerationService {
+    void generate();
+}
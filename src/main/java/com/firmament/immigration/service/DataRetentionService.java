@@ -0,0 +1,6 @@
+package com.firmament.immigration.service;
+
+public interface DataRetentionService {
+    void maintainPartitions();
+    int archiveAppointments();
+}
@@ -0,0 +1,9 @@
+package com.firmament.immigration.service;
+
+import com.firmament.immigration.entity.Document;
+
+public interface DocumentDerivativeService {
+    void enqueue(Document document);
+    void dispatchPendingJobs();
+    void purgeFinishedJobs();
+}
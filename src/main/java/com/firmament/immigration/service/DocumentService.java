@@ -1,13 +1,32 @@
 package com.firmament.immigration.service;
 
+import com.firmament.immigration.dto.request.ConfirmUploadRequest;
 import com.firmament.immigration.dto.response.DocumentResponse;
+import com.firmament.immigration.dto.response.UploadTicketResponse;
+import com.firmament.immigration.service.DocumentStorage.StoredObject;
+import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Path;
 import java.util.List;
 
 public interface DocumentService {
     List<DocumentResponse> uploadDocuments(String appointmentId, List<MultipartFile> files);
+    UploadTicketResponse createUploadTicket(String appointmentId, String fileName);
+    DocumentResponse confirmDirectUpload(String appointmentId, ConfirmUploadRequest request);
+    StoredUpload storeUpload(String appointmentId, String fileName, String contentType, Path file);
+    DocumentResponse registerUpload(String appointmentId, StoredUpload upload);
+    void discardUpload(StoredUpload upload);
+    void validateFileName(String fileName);
     DocumentResponse getDocument(String documentId);
     void deleteDocument(String documentId);
     List<DocumentResponse> getAppointmentDocuments(String appointmentId);
-    byte[] downloadDocument(String documentId);
-}
\ No newline at end of file
+    Resource downloadDocument(String documentId);
+    Resource downloadThumbnail(String documentId);
+
+    /**
+     * An assembled upload whose content is in the storage but not yet registered as a document.
+     */
+    record StoredUpload(String fileName, String contentType, long fileSize, String contentHash, StoredObject stored) {
+    }
+}
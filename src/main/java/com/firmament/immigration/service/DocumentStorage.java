@@ -0,0 +1,53 @@
+package com.firmament.immigration.service;
+
+import com.firmament.immigration.dto.request.ConfirmUploadRequest;
+import com.firmament.immigration.dto.response.UploadTicketResponse;
+import com.firmament.immigration.exception.BusinessException;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Where document bytes live. Selected with {@code app.storage.type} (cloudinary or local).
+ */
+public interface DocumentStorage {
+
+    /**
+     * Store the file at {@code source} under {@code folder}. The source file is consumed
+     * (moved or deleted) by the storage. Callers pick unique names: storing the same
+     * folder and name twice is expected to be the same content.
+     */
+    StoredObject store(String folder, String fileName, String contentType, Path source) throws IOException;
+
+    Resource load(String key, String url) throws IOException;
+
+    void delete(String key, String fileName) throws IOException;
+
+    /**
+     * True when the URL returned by {@link #store} can be handed to clients as is.
+     * Otherwise documents are served through the download endpoint.
+     */
+    boolean servesPublicUrls();
+
+    default UploadTicketResponse createUploadTicket(String folder, String fileName, long maxFileSize, Duration ttl) {
+        throw new BusinessException("Direct uploads are not supported by the configured document storage");
+    }
+
+    /**
+     * Verify a direct upload and return what was actually stored, so the caller can
+     * apply its own size and type rules.
+     */
+    default StoredObject verifyDirectUpload(String folder, ConfirmUploadRequest request) {
+        throw new BusinessException("Direct uploads are not supported by the configured document storage");
+    }
+
+    /**
+     * @param key  storage identifier, used for loading and deleting
+     * @param url  public URL, or null when the storage does not serve public URLs
+     */
+    record StoredObject(String key, String url, long size, Instant createdAt) {
+    }
+}
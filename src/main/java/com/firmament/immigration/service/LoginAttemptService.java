@@ -0,0 +1,7 @@
+package com.firmament.immigration.service;
+
+public interface LoginAttemptService {
+    void checkAllowed(String username, String clientIp);
+    void recordFailure(String username, String clientIp);
+    void recordSuccess(String username, String clientIp);
+}
@@ -0,0 +1,14 @@
+package com.firmament.immigration.service;
+
+import com.firmament.immigration.dto.request.CreateUploadSessionRequest;
+import com.firmament.immigration.dto.response.UploadSessionResponse;
+
+import java.io.InputStream;
+
+public interface ResumableUploadService {
+    UploadSessionResponse createSession(String appointmentId, CreateUploadSessionRequest request);
+    UploadSessionResponse getSession(String sessionId);
+    UploadSessionResponse appendChunk(String sessionId, long offset, InputStream content);
+    void abortSession(String sessionId);
+    void purgeExpiredSessions();
+}
@@ -0,0 +1,10 @@
+package com.firmament.immigration.service;
+
+import java.time.Instant;
+
+public interface TokenRevocationService {
+    void revoke(String tokenId, Instant expiresAt);
+    void revokeLocally(String tokenId, Instant expiresAt);
+    boolean isRevoked(String tokenId);
+    void purgeExpired();
+}
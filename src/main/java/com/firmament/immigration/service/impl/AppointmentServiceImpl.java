@@ -11,6 +11,7 @@ import com.firmament.immigration.repository.BlockedPeriodRepository;
 import com.firmament.immigration.service.AppointmentService;
 import com.firmament.immigration.service.AvailabilityService;
 import com.firmament.immigration.service.EmailService;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
@@ -18,6 +19,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.firmament.immigration.config.PricingConfig;
 import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -35,6 +38,7 @@ public class AppointmentServiceImpl implements AppointmentService {
     private final EmailService emailService; // ADD THIS
     private final ModelMapper modelMapper;
     private final PricingConfig pricingConfig;
+    private final MeterRegistry meterRegistry;
 
     @Override
     public AppointmentResponse createAppointment(CreateAppointmentRequest request) {
@@ -42,11 +46,13 @@ public class AppointmentServiceImpl implements AppointmentService {
 
         // 1. Validate no existing pending appointment for this email
         if (appointmentRepository.existsByEmailAndStatus(request.getEmail(), AppointmentStatus.PENDING)) {
+            meterRegistry.counter("immigration.appointments.conflicts", "reason", "pending_exists").increment();
             throw new BusinessException("You already have a pending appointment. Please complete or cancel it first.");
         }
 
         // 2. Check if the requested time is available
         if (!availabilityService.isAvailable(request.getAppointmentDate(), request.getDuration())) {
+            meterRegistry.counter("immigration.appointments.conflicts", "reason", "slot_taken").increment();
             throw new BusinessException("Selected time is not available. Please choose another time.");
         }
 
@@ -87,6 +93,8 @@ public class AppointmentServiceImpl implements AppointmentService {
             // Don't fail the appointment creation if email fails
         }
 
+        // Only priced durations get this far, so the tag stays low-cardinality
+        meterRegistry.counter("immigration.appointments.booked", "duration", String.valueOf(appointment.getDuration())).increment();
         log.info("Appointment created with ID: {}", appointment.getId());
 
         return mapToResponse(appointment);
@@ -138,6 +146,7 @@ public class AppointmentServiceImpl implements AppointmentService {
             log.error("Failed to send cancellation email", e);
         }
 
+        meterRegistry.counter("immigration.appointments.cancelled").increment();
         log.info("Appointment {} cancelled", id);
     }
 
@@ -151,10 +160,16 @@ public class AppointmentServiceImpl implements AppointmentService {
         return mapToResponse(appointment);
     }
 
+    @Override
+    public Long getAppointmentVersion(String id) {
+        return appointmentRepository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Appointment not found with id: " + id));
+    }
+
     @Override
     public List<AppointmentResponse> getUpcomingAppointments() {
         List<Appointment> appointments = appointmentRepository
-                .findUpcomingAppointments(AppointmentStatus.CONFIRMED);
+                .findUpcomingAppointments(AppointmentStatus.CONFIRMED, ZonedDateTime.now(ZoneOffset.UTC));
 
         return appointments.stream()
                 .map(this::mapToResponse)
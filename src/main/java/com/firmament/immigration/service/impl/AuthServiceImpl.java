@@ -3,14 +3,21 @@ package com.firmament.immigration.service.impl;
 import com.firmament.immigration.dto.request.LoginRequest;
 import com.firmament.immigration.dto.response.LoginResponse;
 import com.firmament.immigration.exception.BusinessException;
+import com.firmament.immigration.exception.TooManyRequestsException;
 import com.firmament.immigration.service.AuthService;
+import com.firmament.immigration.service.LoginAttemptService;
+import com.firmament.immigration.service.TokenRevocationService;
 import com.firmament.immigration.util.JwtUtil;
+import com.firmament.immigration.util.JwtUtil.JwtPrincipal;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -18,6 +25,8 @@ public class AuthServiceImpl implements AuthService {
 
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final TokenRevocationService tokenRevocationService;
+    private final LoginAttemptService loginAttemptService;
 
     @Value("${app.admin.username}")
     private String adminUsername;
@@ -28,30 +37,37 @@ public class AuthServiceImpl implements AuthService {
     @Value("${app.jwt.expiration}")
     private Long jwtExpiration;
 
+    @Value("${app.auth.bcrypt.max-wait-ms:2000}")
+    private long bcryptWaitMillis;
+
+    private Semaphore bcryptPermits;
+
+    @Value("${app.auth.bcrypt.max-concurrent:2}")
+    void setBcryptMaxConcurrent(int maxConcurrent) {
+        this.bcryptPermits = new Semaphore(maxConcurrent);
+    }
+
     @Override
-    public LoginResponse login(LoginRequest request) {
+    public LoginResponse login(LoginRequest request, String clientIp) {
         log.info("Login attempt for user: {}", request.getUsername());
-        log.debug("Expected username: {}", adminUsername);
-        log.debug("Received username: {}", request.getUsername());
-        log.debug("Password hash from config: {}", adminPasswordHash);
+
+        // Locked-out callers are turned away before any hashing
+        loginAttemptService.checkAllowed(request.getUsername(), clientIp);
 
         // Check if username matches
         if (!adminUsername.equals(request.getUsername())) {
-            log.warn("Username mismatch - expected: '{}', received: '{}'", adminUsername, request.getUsername());
+            log.warn("Login failed for unknown user: '{}'", request.getUsername());
+            loginAttemptService.recordFailure(request.getUsername(), clientIp);
             throw new BusinessException("Invalid username or password");
         }
 
         // Check if password matches
-        boolean passwordMatches = passwordEncoder.matches(request.getPassword(), adminPasswordHash);
-        log.debug("Password matches: {}", passwordMatches);
-
-        if (!passwordMatches) {
-            log.warn("Password verification failed");
-            // Let's also test if the hash is valid
-            log.debug("Testing hash with known password 'admin123': {}",
-                    passwordEncoder.matches("admin123", adminPasswordHash));
+        if (!passwordMatches(request.getPassword())) {
+            log.warn("Password verification failed for user: {}", request.getUsername());
+            loginAttemptService.recordFailure(request.getUsername(), clientIp);
             throw new BusinessException("Invalid username or password");
         }
+        loginAttemptService.recordSuccess(request.getUsername(), clientIp);
 
         // Generate JWT token
         String token = jwtUtil.generateToken(request.getUsername(), "ADMIN");
@@ -67,23 +83,57 @@ public class AuthServiceImpl implements AuthService {
                 .build();
     }
 
+    /**
+     * BCrypt is deliberately slow, so only a few checks may run at once; a login storm
+     * queues here briefly and is then refused instead of taking every CPU core.
+     */
+    private boolean passwordMatches(String password) {
+        boolean acquired = false;
+        try {
+            acquired = bcryptPermits.tryAcquire(bcryptWaitMillis, TimeUnit.MILLISECONDS);
+            if (!acquired) {
+                throw new TooManyRequestsException("Login service is busy. Please try again.", 1);
+            }
+            return passwordEncoder.matches(password, adminPasswordHash);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TooManyRequestsException("Login service is busy. Please try again.", 1);
+        } finally {
+            if (acquired) bcryptPermits.release();
+        }
+    }
+
     @Override
     public LoginResponse getUserFromToken(String token) {
         try {
-            String username = jwtUtil.extractUsername(token);
-            String role = jwtUtil.extractRole(token);
-
-            // Validate token
-            if (!jwtUtil.validateToken(token, username)) {
-                throw new BusinessException("Invalid or expired token");
+            JwtPrincipal principal = jwtUtil.parse(token);
+            if (tokenRevocationService.isRevoked(principal.tokenId())) {
+                throw new BusinessException("Token has been revoked");
             }
 
             return LoginResponse.builder()
-                    .username(username)
-                    .role(role)
+                    .username(principal.username())
+                    .role(principal.role())
                     .build();
         } catch (Exception e) {
             throw new BusinessException("Invalid token");
         }
     }
+
+    @Override
+    public void logout(String token) {
+        JwtPrincipal principal;
+        try {
+            principal = jwtUtil.parse(token);
+        } catch (Exception e) {
+            throw new BusinessException("Invalid token");
+        }
+        if (principal.tokenId() == null) {
+            // Issued before tokens carried a jti; it can only expire
+            log.warn("Logout with a token that has no id, it stays valid until {}", principal.expiresAt());
+            return;
+        }
+        tokenRevocationService.revoke(principal.tokenId(), principal.expiresAt());
+        log.info("User {} logged out", principal.username());
+    }
 }
\ No newline at end of file
@@ -1,7 +1,9 @@
 package com.firmament.immigration.service.impl;
 
+import com.firmament.immigration.config.CacheConfig;
 import com.firmament.immigration.dto.request.BlockPeriodRequest;
 import com.firmament.immigration.dto.response.BlockedPeriodResponse;
+import com.firmament.immigration.dto.response.CompactAvailabilityResponse;
 import com.firmament.immigration.dto.response.DayAvailabilityResponse;
 import com.firmament.immigration.dto.response.MonthAvailabilityResponse;
 import com.firmament.immigration.dto.response.TimeSlotDto;
@@ -12,14 +14,21 @@ import com.firmament.immigration.exception.ResourceNotFoundException;
 import com.firmament.immigration.repository.AppointmentRepository;
 import com.firmament.immigration.repository.BlockedPeriodRepository;
 import com.firmament.immigration.service.AvailabilityService;
+import com.firmament.immigration.service.AvailabilityVersionTracker;
+import com.firmament.immigration.util.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.*;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,9 +37,25 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class AvailabilityServiceImpl implements AvailabilityService {
 
+    // Slot grid shared by the day view and the compact format: 00:00 to 23:00 every 30 minutes
+    private static final int SLOT_STEP_MINUTES = 30;
+    private static final int SLOTS_PER_DAY = 47;
+    private static final Set<Integer> SLOT_DURATIONS = Set.of(30, 60, 90);
+    private static final int MAX_COMPACT_RANGE_DAYS = 100;
+
     private final BlockedPeriodRepository blockedPeriodRepository;
     private final AppointmentRepository appointmentRepository;
     private final ModelMapper modelMapper;
+    private final AvailabilityVersionTracker availabilityVersionTracker;
+    private final MeterRegistry meterRegistry;
+
+    // Identical reads in flight share one computation; the version tag in the key starts a new
+    // flight as soon as a write to the range commits
+    private record FlightKey(LocalDate from, LocalDate to, String timezone, Set<Integer> durations, String version) {}
+
+    private final SingleFlight<FlightKey, DayAvailabilityResponse> dayFlights = new SingleFlight<>();
+    private final SingleFlight<FlightKey, MonthAvailabilityResponse> monthFlights = new SingleFlight<>();
+    private final SingleFlight<FlightKey, CompactAvailabilityResponse> compactFlights = new SingleFlight<>();
 
     @Override
     public boolean isAvailable(ZonedDateTime startDateTime, int durationInMinutes) {
@@ -41,7 +66,7 @@ public class AvailabilityServiceImpl implements AvailabilityService {
         ZonedDateTime utcStart = startDateTime.withZoneSameInstant(ZoneOffset.UTC);
         ZonedDateTime utcEnd = utcStart.plusMinutes(durationInMinutes);
 
-        return !blockedPeriodRepository.isTimeBlockedUTC(utcStart, utcEnd);
+        return timed("slot", () -> !blockedPeriodRepository.isTimeBlockedUTC(utcStart, utcEnd));
     }
 
     @Override
@@ -49,8 +74,19 @@ public class AvailabilityServiceImpl implements AvailabilityService {
         return getAvailableTimesForDay(date, "UTC");
     }
 
+    // Reads below run outside a transaction so that requests waiting on a shared flight do not
+    // hold a pooled connection; each one issues a single repository query. Read-only, so that
+    // query goes to a read replica when they are configured
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.AVAILABILITY_DAY, key = "#date + '|' + #timezone", sync = true)
     public DayAvailabilityResponse getAvailableTimesForDay(LocalDate date, String timezone) {
+        ZoneId zoneId = ZoneId.of(timezone);
+        FlightKey key = new FlightKey(date, date, timezone, Set.of(), availabilityVersionTracker.dayTag(date, zoneId));
+        return dayFlights.execute(key, () -> timed("day", () -> computeDayAvailability(date, timezone)));
+    }
+
+    private DayAvailabilityResponse computeDayAvailability(LocalDate date, String timezone) {
         DayAvailabilityResponse response = new DayAvailabilityResponse();
         response.setDate(date);
         response.setTimezone(timezone);
@@ -62,20 +98,13 @@ public class AvailabilityServiceImpl implements AvailabilityService {
         ZonedDateTime dayEnd = dayStart.plusDays(1);
 
         List<BlockedPeriod> blockedPeriodsUtc = blockedPeriodRepository.findByDateTimeBetween(dayStart.withZoneSameInstant(ZoneOffset.UTC), dayEnd.withZoneSameInstant(ZoneOffset.UTC));
-
-        // Convert fetched UTC periods to local time ranges for comparison
-        List<LocalTime[]> blockedLocalRanges = blockedPeriodsUtc.stream()
-                .map(bp -> new LocalTime[]{
-                        bp.getStartDateTime().withZoneSameInstant(zoneId).toLocalTime(),
-                        bp.getEndDateTime().withZoneSameInstant(zoneId).toLocalTime()
-                })
-                .collect(Collectors.toList());
+        List<LocalTime[]> blockedLocalRanges = toLocalRanges(blockedPeriodsUtc, zoneId);
 
         List<TimeSlotDto> availableSlots = new ArrayList<>();
 
         // Generate potential time slots for the day
-        LocalTime currentTime = LocalTime.of(0, 0);
-        while (currentTime.isBefore(LocalTime.of(23, 30))) {
+        for (int i = 0; i < SLOTS_PER_DAY; i++) {
+            LocalTime currentTime = slotStart(i);
             TimeSlotDto slot = new TimeSlotDto();
             slot.setStartTime(currentTime);
 
@@ -84,7 +113,6 @@ public class AvailabilityServiceImpl implements AvailabilityService {
             slot.setAvailable90Min(isSlotFree(currentTime, 90, blockedLocalRanges));
 
             availableSlots.add(slot);
-            currentTime = currentTime.plusMinutes(30);
         }
 
         response.setAvailableSlots(availableSlots);
@@ -96,6 +124,86 @@ public class AvailabilityServiceImpl implements AvailabilityService {
         return response;
     }
 
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.AVAILABILITY_RANGE,
+            key = "#from + '|' + #to + '|' + #timezone + '|' + new java.util.TreeSet(#durations)", sync = true)
+    public CompactAvailabilityResponse getCompactAvailability(LocalDate from, LocalDate to, String timezone, Set<Integer> durations) {
+        FlightKey key = new FlightKey(from, to, timezone, Set.copyOf(durations),
+                availabilityVersionTracker.rangeTag(from, to, ZoneId.of(timezone)));
+        return compactFlights.execute(key, () -> timed("range", () -> computeCompactAvailability(from, to, timezone, durations)));
+    }
+
+    private CompactAvailabilityResponse computeCompactAvailability(LocalDate from, LocalDate to, String timezone, Set<Integer> durations) {
+        if (to.isBefore(from)) {
+            throw new BusinessException("End date must be after start date");
+        }
+        long days = java.time.temporal.ChronoUnit.DAYS.between(from, to) + 1;
+        if (days > MAX_COMPACT_RANGE_DAYS) {
+            throw new BusinessException("Cannot request more than " + MAX_COMPACT_RANGE_DAYS + " days at once");
+        }
+        for (Integer duration : durations) {
+            if (!SLOT_DURATIONS.contains(duration)) {
+                throw new BusinessException("Unsupported duration: " + duration);
+            }
+        }
+
+        ZoneId zoneId = ZoneId.of(timezone);
+        ZonedDateTime rangeStart = from.atStartOfDay(zoneId).withZoneSameInstant(ZoneOffset.UTC);
+        ZonedDateTime rangeEnd = to.plusDays(1).atStartOfDay(zoneId).withZoneSameInstant(ZoneOffset.UTC);
+
+        // One query for the whole range, then the same per-day overlap test as the day view
+        List<BlockedPeriod> blockedPeriodsUtc = blockedPeriodRepository.findByDateTimeBetween(rangeStart, rangeEnd);
+
+        Map<Integer, byte[]> bitmaps = new TreeMap<>();
+        durations.forEach(duration -> bitmaps.put(duration, new byte[(int) ((days * SLOTS_PER_DAY + 7) / 8)]));
+
+        int bit = 0;
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            ZonedDateTime dayStart = date.atStartOfDay(zoneId);
+            ZonedDateTime dayEnd = date.plusDays(1).atStartOfDay(zoneId);
+            List<BlockedPeriod> dayPeriods = blockedPeriodsUtc.stream()
+                    .filter(bp -> bp.getStartDateTime().isBefore(dayEnd) && bp.getEndDateTime().isAfter(dayStart))
+                    .toList();
+            List<LocalTime[]> blockedLocalRanges = toLocalRanges(dayPeriods, zoneId);
+
+            for (int i = 0; i < SLOTS_PER_DAY; i++, bit++) {
+                LocalTime startTime = slotStart(i);
+                for (Map.Entry<Integer, byte[]> bitmap : bitmaps.entrySet()) {
+                    if (isSlotFree(startTime, bitmap.getKey(), blockedLocalRanges)) {
+                        bitmap.getValue()[bit >>> 3] |= (byte) (0x80 >>> (bit & 7));
+                    }
+                }
+            }
+        }
+
+        CompactAvailabilityResponse response = new CompactAvailabilityResponse();
+        response.setFrom(from);
+        response.setTo(to);
+        response.setTimezone(timezone);
+        response.setStart(slotStart(0));
+        response.setStep(SLOT_STEP_MINUTES);
+        response.setSlotsPerDay(SLOTS_PER_DAY);
+        Map<Integer, String> free = new LinkedHashMap<>();
+        bitmaps.forEach((duration, bytes) -> free.put(duration, Base64.getEncoder().encodeToString(bytes)));
+        response.setFree(free);
+        return response;
+    }
+
+    private LocalTime slotStart(int index) {
+        return LocalTime.MIDNIGHT.plusMinutes((long) index * SLOT_STEP_MINUTES);
+    }
+
+    // Convert fetched UTC periods to local time ranges for comparison
+    private List<LocalTime[]> toLocalRanges(List<BlockedPeriod> blockedPeriodsUtc, ZoneId zoneId) {
+        return blockedPeriodsUtc.stream()
+                .map(bp -> new LocalTime[]{
+                        bp.getStartDateTime().withZoneSameInstant(zoneId).toLocalTime(),
+                        bp.getEndDateTime().withZoneSameInstant(zoneId).toLocalTime()
+                })
+                .collect(Collectors.toList());
+    }
+
     private boolean isSlotFree(LocalTime startTime, int duration, List<LocalTime[]> blockedRanges) {
         LocalTime endTime = startTime.plusMinutes(duration);
 
@@ -114,13 +222,53 @@ public class AvailabilityServiceImpl implements AvailabilityService {
         return true;
     }
 
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public String getDayAvailabilityVersion(LocalDate date, String timezone) {
+        return availabilityVersionTracker.dayTag(date, ZoneId.of(timezone));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public String getMonthAvailabilityVersion(int year, int month, String timezone) {
+        LocalDate firstDay = LocalDate.of(year, month, 1);
+        return availabilityVersionTracker.monthTag(firstDay, firstDay.plusMonths(1).minusDays(1), LocalDate.now());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public String getRangeAvailabilityVersion(LocalDate from, LocalDate to, String timezone) {
+        return availabilityVersionTracker.rangeTag(from, to, ZoneId.of(timezone));
+    }
+
     @Override
     public MonthAvailabilityResponse getMonthAvailability(int year, int month) {
         // Default implementation without timezone
         return getMonthAvailability(year, month, "UTC");
     }
     
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.AVAILABILITY_MONTH,
+            key = "#year + '-' + #month + '|' + #timezone + '|' + T(java.time.LocalDate).now()", sync = true)
     public MonthAvailabilityResponse getMonthAvailability(int year, int month, String timezone) {
+        LocalDate firstDay = LocalDate.of(year, month, 1);
+        LocalDate lastDay = firstDay.plusMonths(1).minusDays(1);
+        FlightKey key = new FlightKey(firstDay, lastDay, timezone, Set.of(),
+                availabilityVersionTracker.monthTag(firstDay, lastDay, LocalDate.now()));
+        return monthFlights.execute(key, () -> timed("month", () -> computeMonthAvailability(year, month, timezone)));
+    }
+
+    // Only actual computations are timed: cache hits and requests that join a flight in
+    // progress never get here
+    private <T> T timed(String view, Supplier<T> computation) {
+        return Timer.builder("immigration.availability.compute")
+                .tag("view", view)
+                .register(meterRegistry)
+                .record(computation);
+    }
+
+    private MonthAvailabilityResponse computeMonthAvailability(int year, int month, String timezone) {
         MonthAvailabilityResponse response = new MonthAvailabilityResponse();
         response.setYear(year);
         response.setMonth(month);
@@ -131,7 +279,7 @@ public class AvailabilityServiceImpl implements AvailabilityService {
         LocalDate lastDay = firstDay.plusMonths(1).minusDays(1);
         LocalDate today = LocalDate.now();
         
-        List<BlockedPeriod> monthBlockedPeriods = blockedPeriodRepository.findByDateBetween(firstDay, lastDay);
+        List<BlockedPeriod> monthBlockedPeriods = blockedPeriodRepository.findForCalendar(firstDay, lastDay);
         
         Map<LocalDate, List<BlockedPeriod>> blockedByDate = monthBlockedPeriods.stream()
                 .collect(Collectors.groupingBy(BlockedPeriod::getDate));
@@ -225,6 +373,7 @@ public class AvailabilityServiceImpl implements AvailabilityService {
                     .notes(request.getNotes())
                     .build();
             blockedPeriodRepository.save(blockedPeriod);
+            availabilityVersionTracker.recordChange(blockedPeriod);
             log.info("Blocked entire day: {} in timezone: {}", request.getDate(), timezone);
         } else {
             // Block specific time period
@@ -250,6 +399,7 @@ public class AvailabilityServiceImpl implements AvailabilityService {
                     .notes(request.getNotes())
                     .build();
             blockedPeriodRepository.save(blockedPeriod);
+            availabilityVersionTracker.recordChange(blockedPeriod);
             log.info("Blocked period created: {} from {} to {} in timezone: {}",
                     request.getDate(), request.getStartTime(), request.getEndTime(), timezone);
         }
@@ -303,6 +453,7 @@ public class AvailabilityServiceImpl implements AvailabilityService {
 
         // Save all periods in batch
         blockedPeriodRepository.saveAll(periodsToSave);
+        periodsToSave.forEach(availabilityVersionTracker::recordChange);
 
         log.info("Blocked date range from {} to {} ({} days) in timezone: {}",
                 request.getDate(), request.getEndDate(), daysBetween, timezone);
@@ -319,6 +470,7 @@ public class AvailabilityServiceImpl implements AvailabilityService {
         }
         
         blockedPeriodRepository.delete(period);
+        availabilityVersionTracker.recordChange(period);
         log.info("Unblocked period: {}", blockedPeriodId);
     }
 
@@ -344,6 +496,7 @@ public class AvailabilityServiceImpl implements AvailabilityService {
                 .build();
 
         blockedPeriodRepository.save(blockedPeriod);
+        availabilityVersionTracker.recordChange(blockedPeriod);
         log.info("Blocked time for appointment {}: from {} to {} (UTC)",
                 appointmentId, utcStartTime, utcEndTime);
     }
@@ -384,6 +537,7 @@ public class AvailabilityServiceImpl implements AvailabilityService {
                 .findFirst()
                 .ifPresent(blockedPeriod -> {
                     blockedPeriodRepository.delete(blockedPeriod);
+                    availabilityVersionTracker.recordChange(blockedPeriod);
                     log.info("Freed up blocked time for cancelled appointment: {}", appointmentId);
                 });
     }
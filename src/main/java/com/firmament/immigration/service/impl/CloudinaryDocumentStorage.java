@@ -0,0 +1,211 @@
+package com.firmament.immigration.service.impl;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import com.firmament.immigration.dto.request.ConfirmUploadRequest;
+import com.firmament.immigration.dto.response.UploadTicketResponse;
+import com.firmament.immigration.exception.BusinessException;
+import com.firmament.immigration.service.DocumentStorage;
+import com.firmament.immigration.util.Observations;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Component
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "cloudinary", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class CloudinaryDocumentStorage implements DocumentStorage {
+
+    private final Cloudinary cloudinary;
+    private final ObservationRegistry observationRegistry;
+
+    @Override
+    public StoredObject store(String folder, String fileName, String contentType, Path source) throws IOException {
+        String resourceType = getResourceType(fileName);
+        try {
+            // Passing a File lets the HTTP client stream it instead of holding it in memory
+            Map uploadResult = callCloudinary("upload", resourceType, () -> cloudinary.uploader().upload(source.toFile(), ObjectUtils.asMap(
+                    "resource_type", resourceType,
+                    "folder", folder,
+                    "filename_override", fileName,
+                    // Use the original filename as the public ID basis
+                    "use_filename", true,
+                    "unique_filename", false
+            )));
+
+            String fileUrl = toDownloadUrl(resourceType, (String) uploadResult.get("secure_url"));
+            log.info("Document uploaded to Cloudinary: {}", fileUrl);
+
+            return new StoredObject(
+                    (String) uploadResult.get("public_id"),
+                    fileUrl,
+                    ((Number) uploadResult.get("bytes")).longValue(),
+                    Instant.now());
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    @Override
+    public Resource load(String key, String url) throws IOException {
+        return new UrlResource(url);
+    }
+
+    @Override
+    public void delete(String key, String fileName) throws IOException {
+        String resourceType = getResourceType(fileName);
+        log.info("Attempting to delete file from Cloudinary with public_id: {} and resource_type: {}", key, resourceType);
+        callCloudinary("destroy", resourceType,
+                () -> cloudinary.uploader().destroy(key, ObjectUtils.asMap("resource_type", resourceType)));
+        log.info("Successfully deleted file from Cloudinary.");
+    }
+
+    @Override
+    public boolean servesPublicUrls() {
+        return true;
+    }
+
+    @Override
+    public UploadTicketResponse createUploadTicket(String folder, String fileName, long maxFileSize, Duration ttl) {
+        String resourceType = getResourceType(fileName);
+        String extension = getFileExtension(fileName).toLowerCase();
+        long timestamp = Instant.now().getEpochSecond();
+
+        // Everything placed in this map is covered by the signature, so the client cannot
+        // change the target folder or name, or widen the accepted formats. A name of our own
+        // means an upload never replaces another document's file. Cloudinary keeps the
+        // extension in raw files' public ids and derives it from the content for images.
+        String publicId = UUID.randomUUID() + ("raw".equals(resourceType) ? "." + extension : "");
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("timestamp", timestamp);
+        params.put("folder", folder);
+        params.put("public_id", publicId);
+        if ("image".equals(resourceType)) {
+            params.put("allowed_formats", extension);
+        }
+        String signature = cloudinary.apiSignRequest(params, cloudinary.config.apiSecret);
+
+        return UploadTicketResponse.builder()
+                .uploadUrl(cloudinary.cloudinaryApiUrl("upload", ObjectUtils.asMap("resource_type", resourceType)))
+                .apiKey(cloudinary.config.apiKey)
+                .timestamp(timestamp)
+                .signature(signature)
+                .folder(folder)
+                .publicId(publicId)
+                .resourceType(resourceType)
+                .allowedFormats((String) params.get("allowed_formats"))
+                .maxFileSize(maxFileSize)
+                .expiresAt(Instant.ofEpochSecond(timestamp).plus(ttl))
+                .build();
+    }
+
+    @Override
+    public StoredObject verifyDirectUpload(String folder, ConfirmUploadRequest request) {
+        String publicId = request.getPublicId();
+        if (!publicId.startsWith(folder + "/")) {
+            throw new BusinessException("Uploaded file does not belong to this appointment");
+        }
+        if (!cloudinary.verifyApiResponseSignature(publicId, request.getVersion(), request.getSignature())) {
+            throw new BusinessException("Invalid upload signature");
+        }
+
+        // From here on the file is really in our folder, so a rejected one is removed again
+        String resourceType = getResourceType(request.getOriginalFilename());
+        if (!resourceType.equals(request.getResourceType())) {
+            destroyRejected(publicId, request.getResourceType());
+            throw new BusinessException("File type does not match the upload ticket");
+        }
+
+        // Size is not part of the signed upload parameters, so report what Cloudinary actually stored
+        Map resource;
+        try {
+            resource = callCloudinary("resource", resourceType,
+                    () -> cloudinary.api().resource(publicId, ObjectUtils.asMap("resource_type", resourceType)));
+        } catch (Exception e) {
+            log.error("Failed to look up direct upload on Cloudinary: {}", publicId, e);
+            throw new BusinessException("Uploaded file could not be found");
+        }
+
+        // Images: the format Cloudinary detected from the content. Raw files: the extension of
+        // the signed public id. Either must be the one the document is registered with.
+        String storedFormat = "image".equals(resourceType) ? (String) resource.get("format") : getFileExtension(publicId);
+        if (!sameFormat(storedFormat, getFileExtension(request.getOriginalFilename()))) {
+            log.warn("Direct upload {} stored as '{}', rejecting {}", publicId, storedFormat, request.getOriginalFilename());
+            destroyRejected(publicId, resourceType);
+            throw new BusinessException("File type does not match the upload ticket");
+        }
+
+        return new StoredObject(
+                publicId,
+                toDownloadUrl(resourceType, (String) resource.get("secure_url")),
+                ((Number) resource.get("bytes")).longValue(),
+                ZonedDateTime.parse((String) resource.get("created_at")).toInstant());
+    }
+
+    private void destroyRejected(String publicId, String resourceType) {
+        try {
+            callCloudinary("destroy", resourceType,
+                    () -> cloudinary.uploader().destroy(publicId, ObjectUtils.asMap("resource_type", resourceType)));
+        } catch (Exception e) {
+            log.warn("Failed to remove rejected direct upload from Cloudinary: {}", publicId, e);
+        }
+    }
+
+    private boolean sameFormat(String stored, String expected) {
+        return stored != null && normalizeFormat(stored).equals(normalizeFormat(expected));
+    }
+
+    // Cloudinary reports JPEG images as jpg
+    private String normalizeFormat(String format) {
+        String lower = format.toLowerCase();
+        return "jpeg".equals(lower) ? "jpg" : lower;
+    }
+
+    // Cloudinary API calls: a span each, and a timer by operation, resource type and outcome
+    private <E extends Exception> Map callCloudinary(String operation, String resourceType,
+                                                     Observations.Call<Map, E> call) throws E {
+        return Observations.observe(Observation.createNotStarted("immigration.cloudinary.requests", observationRegistry)
+                .contextualName("cloudinary " + operation)
+                .lowCardinalityKeyValue("operation", operation)
+                .lowCardinalityKeyValue("resource_type", resourceType), call);
+    }
+
+    private String toDownloadUrl(String resourceType, String secureUrl) {
+        if ("raw".equals(resourceType)) {
+            // "fl_attachment" tells Cloudinary to send headers that force a download
+            // with the original filename.
+            return secureUrl.replace("/upload/", "/upload/fl_attachment/");
+        }
+        return secureUrl;
+    }
+
+    private String getResourceType(String fileName) {
+        String extension = getFileExtension(fileName).toLowerCase();
+        if (List.of("jpg", "jpeg", "png", "gif").contains(extension)) {
+            return "image";
+        }
+        return "raw";
+    }
+
+    private String getFileExtension(String fileName) {
+        if (fileName == null || !fileName.contains(".")) return "";
+        return fileName.substring(fileName.lastIndexOf(".") + 1);
+    }
+}
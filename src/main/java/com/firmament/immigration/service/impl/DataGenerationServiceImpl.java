@@ -0,0 +1,454 @@
+package com.firmament.immigration.service.impl;
+
+import com.firmament.immigration.config.DataGenerationProperties;
+import com.firmament.immigration.config.PricingConfig;
+import com.firmament.immigration.entity.AppointmentStatus;
+import com.firmament.immigration.entity.DerivativeJobStatus;
+import com.firmament.immigration.entity.UuidV7Generator;
+import com.firmament.immigration.service.DataGenerationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.function.ToIntFunction;
+import java.util.random.RandomGenerator;
+
+/**
+ * Bulk-loads a synthetic, production-shaped dataset for load tests, benchmarks and query plan
+ * checks (datagen profile). Every value comes from one seeded generator, ids included, so the
+ * same seed and anchor date always produce the same rows. Appointments are spread over the
+ * weekdays of the whole period in their client's business hours; returning clients, cancelled
+ * slots, re-uploaded files and failed thumbnails occur at realistic rates.
+ * <p>
+ * Rows go in as multi-row INSERTs sent in JDBC batches, committed every batch-size
+ * appointments, which is close to COPY speed and works on H2 as well as Postgres.
+ */
+@Service
+@Profile("datagen")
+@RequiredArgsConstructor
+@Slf4j
+public class DataGenerationServiceImpl implements DataGenerationService {
+
+    private static final String APPOINTMENT_COLUMNS = "id, created_at, updated_at, version, first_name, last_name, "
+            + "email, phone, country, appointment_date, duration, consultation_type, client_presentation, "
+            + "user_timezone, amount, currency, payment_intent_id, status, reminder_sent, reminder_sent_at";
+    private static final String BLOCKED_PERIOD_COLUMNS = "id, created_at, updated_at, version, date, "
+            + "start_date_time, end_date_time, original_timezone, reason, notes, appointment_id";
+    private static final String DOCUMENT_COLUMNS = "id, created_at, updated_at, version, file_name, file_type, "
+            + "file_path, file_size, public_id, content_hash, thumbnail_public_id, thumbnail_path, appointment_id";
+    private static final String JOB_COLUMNS = "id, created_at, updated_at, version, document_id, status, attempts, "
+            + "available_at, last_error";
+    private static final String UPLOAD_SESSION_COLUMNS = "id, created_at, updated_at, version, file_name, file_type, "
+            + "total_size, uploaded_bytes, expires_at, appointment_id";
+
+    private static final String BLOB_FOLDER = "immigration_documents/blobs";
+    private static final String STORAGE_URL = "https://res.cloudinary.com/demo/";
+    private static final ZoneId ADMIN_ZONE = ZoneId.of("America/Montreal");
+    private static final int RECENT_BLOBS = 1024; // Re-uploads pick one of these
+
+    private record Origin(String country, ZoneId zone, String currency, String phonePrefix, int weight) {
+    }
+
+    private record FileKind(String name, String extension, String contentType, int weight) {
+    }
+
+    private static final List<Origin> ORIGINS = List.of(
+            new Origin("Canada", ZoneId.of("America/Montreal"), "CAD", "+1514", 25),
+            new Origin("Canada", ZoneId.of("America/Toronto"), "CAD", "+1416", 15),
+            new Origin("Canada", ZoneId.of("America/Vancouver"), "CAD", "+1604", 5),
+            new Origin("Morocco", ZoneId.of("Africa/Casablanca"), "MAD", "+212", 30),
+            new Origin("France", ZoneId.of("Europe/Paris"), "CAD", "+33", 10),
+            new Origin("Algeria", ZoneId.of("Africa/Algiers"), "CAD", "+213", 6),
+            new Origin("Tunisia", ZoneId.of("Africa/Tunis"), "CAD", "+216", 4),
+            new Origin("United Arab Emirates", ZoneId.of("Asia/Dubai"), "CAD", "+971", 3),
+            new Origin("India", ZoneId.of("Asia/Kolkata"), "CAD", "+91", 2));
+    private static final int ORIGIN_WEIGHT = ORIGINS.stream().mapToInt(Origin::weight).sum();
+
+    private static final List<FileKind> FILE_KINDS = List.of(
+            new FileKind("passport", "pdf", "application/pdf", 25),
+            new FileKind("resume", "pdf", "application/pdf", 20),
+            new FileKind("diploma", "pdf", "application/pdf", 15),
+            new FileKind("bank-statement", "pdf", "application/pdf", 10),
+            new FileKind("job-offer", "pdf", "application/pdf", 10),
+            new FileKind("passport-photo", "jpg", "image/jpeg", 10),
+            new FileKind("language-test", "png", "image/png", 10));
+
+    private static final List<String> CONSULTATION_TYPES = List.of("Express Entry", "Work permit", "Study permit",
+            "Family sponsorship", "Permanent residence", "Quebec immigration", "Visitor visa", "Citizenship");
+    private static final List<String> FIRST_NAMES = List.of("Amina", "Youssef", "Sarah", "Mehdi", "Fatima", "Karim",
+            "Emma", "Omar", "Lina", "Adam", "Salma", "Hamza", "Chloe", "Rayan", "Nadia", "Lucas", "Imane", "Priya");
+    private static final List<String> LAST_NAMES = List.of("Benali", "El Amrani", "Tremblay", "Haddad", "Gagnon",
+            "Bouzid", "Roy", "Alaoui", "Martin", "Cherkaoui", "Nguyen", "Mansouri", "Sharma", "Lefebvre", "Idrissi");
+    private static final List<String> BLOCK_REASONS = List.of("Vacation", "Holiday", "Training", "Personal", "Unavailable");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataGenerationProperties properties;
+    private final PricingConfig pricingConfig;
+
+    @Override
+    public void generate() {
+        Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM appointments", Integer.class);
+        if (existing != null && existing > 0) {
+            throw new IllegalStateException("appointments already holds " + existing
+                    + " rows, synthetic data is only loaded into an empty database");
+        }
+
+        LocalDate anchor = properties.getAnchorDate() != null ? properties.getAnchorDate() : LocalDate.now(ZoneOffset.UTC);
+        ZonedDateTime now = anchor.atStartOfDay(ZoneOffset.UTC);
+        ZonedDateTime first = now.minusYears(properties.getHistoryYears());
+        ZonedDateTime last = now.plusDays(properties.getHorizonDays());
+        log.info("Generating synthetic data from {} to {} with seed {}", first.toLocalDate(), last.toLocalDate(), properties.getSeed());
+        createPartitions(first, last);
+
+        long started = System.nanoTime();
+        long rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                return load(connection, now, first, last);
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+        jdbcTemplate.execute("ANALYZE");
+        double seconds = (System.nanoTime() - started) / 1e9;
+        log.info("Generated {} rows in {}s ({} rows/s)", rows, Math.round(seconds), Math.round(rows / seconds));
+    }
+
+    private long load(Connection connection, ZonedDateTime now, ZonedDateTime first, ZonedDateTime last) throws SQLException {
+        // Each part gets its own stream, so changing one volume leaves the other tables as they were
+        SplittableRandom root = new SplittableRandom(properties.getSeed());
+        SplittableRandom appointmentRandom = root.split();
+        SplittableRandom blockRandom = root.split();
+        SplittableRandom uploadRandom = root.split();
+
+        try (BulkInsert appointments = new BulkInsert(connection, "appointments", APPOINTMENT_COLUMNS);
+             BulkInsert blockedPeriods = new BulkInsert(connection, "blocked_periods", BLOCKED_PERIOD_COLUMNS);
+             BulkInsert documents = new BulkInsert(connection, "documents", DOCUMENT_COLUMNS);
+             BulkInsert jobs = new BulkInsert(connection, "document_derivative_jobs", JOB_COLUMNS);
+             BulkInsert uploadSessions = new BulkInsert(connection, "upload_sessions", UPLOAD_SESSION_COLUMNS)) {
+            // Parents first, for the foreign keys
+            List<BulkInsert> tables = List.of(appointments, blockedPeriods, documents, jobs, uploadSessions);
+
+            Deque<UUID> upcoming = generateAppointments(appointmentRandom, now, first, last,
+                    appointments, blockedPeriods, documents, jobs, connection, tables);
+            long adminBlocks = Math.max(0, properties.getBlockedPeriods() - blockedPeriods.count());
+            generateAdminBlocks(blockRandom, adminBlocks, now, first, last, blockedPeriods, connection, tables);
+            generateUploadSessions(uploadRandom, upcoming, now, uploadSessions);
+            flush(connection, tables);
+
+            log.info("Generated {} appointments, {} blocked periods, {} documents, {} derivative jobs, {} upload sessions",
+                    appointments.count(), blockedPeriods.count(), documents.count(), jobs.count(), uploadSessions.count());
+            return tables.stream().mapToLong(BulkInsert::count).sum();
+        }
+    }
+
+    private Deque<UUID> generateAppointments(RandomGenerator random, ZonedDateTime now, ZonedDateTime first, ZonedDateTime last,
+                                             BulkInsert appointments, BulkInsert blockedPeriods, BulkInsert documents,
+                                             BulkInsert jobs, Connection connection, List<BulkInsert> tables) throws SQLException {
+        int count = properties.getAppointments();
+        List<LocalDate> weekdays = first.toLocalDate().datesUntil(last.toLocalDate())
+                .filter(day -> day.getDayOfWeek() != DayOfWeek.SATURDAY && day.getDayOfWeek() != DayOfWeek.SUNDAY)
+                .toList();
+        double documentsPerAppointment = (double) properties.getDocuments() / Math.max(1, count);
+        String[] recentBlobs = new String[RECENT_BLOBS];
+        int blobs = 0;
+        int clients = 0;
+        Deque<UUID> upcoming = new ArrayDeque<>();
+
+        for (int i = 0; i < count; i++) {
+            // One in five bookings is by a returning client
+            int client = clients > 0 && random.nextInt(5) == 0 ? random.nextInt(clients) : clients++;
+            Origin origin = origin(client);
+            LocalDate day = weekdays.get((int) ((long) i * weekdays.size() / count));
+            ZonedDateTime start = day.atTime(LocalTime.of(9, 0)).atZone(origin.zone())
+                    .plusMinutes(30L * random.nextInt(16))
+                    .withZoneSameInstant(ZoneOffset.UTC);
+            int duration = pick(random, List.of(30, 60, 90), minutes -> minutes == 60 ? 50 : minutes == 30 ? 30 : 20);
+            boolean past = start.isBefore(now);
+            AppointmentStatus status = status(random, past);
+
+            long createdMillis = Math.min(
+                    start.minusDays(1 + random.nextInt(30)).minusMinutes(random.nextInt(1440)).toInstant().toEpochMilli(),
+                    now.toInstant().toEpochMilli() - 60_000L * (1 + random.nextInt(1440)));
+            LocalDateTime created = utc(createdMillis);
+            UUID id = UuidV7Generator.at(createdMillis, random);
+            String firstName = FIRST_NAMES.get(client % FIRST_NAMES.size());
+            String lastName = LAST_NAMES.get(client / FIRST_NAMES.size() % LAST_NAMES.size());
+            String email = (firstName + "." + lastName).toLowerCase().replace(' ', '-') + "." + client + "@example.com";
+            Map<String, Integer> prices = "MAD".equals(origin.currency()) ? pricingConfig.getMadDuration() : pricingConfig.getCadDuration();
+
+            appointments.add(id, created, past ? start.plusMinutes(duration).toLocalDateTime() : created, 0L,
+                    firstName, lastName, email, String.format("%s%07d", origin.phonePrefix(), client % 10_000_000),
+                    origin.country(), start.toOffsetDateTime(), duration,
+                    CONSULTATION_TYPES.get(random.nextInt(CONSULTATION_TYPES.size())),
+                    random.nextInt(10) < 3 ? null : "Looking at " + CONSULTATION_TYPES.get(random.nextInt(CONSULTATION_TYPES.size()))
+                            + " options, currently in " + origin.country() + ".",
+                    origin.zone().getId(), BigDecimal.valueOf(prices.getOrDefault(String.valueOf(duration), 0)),
+                    origin.currency(), status == AppointmentStatus.PENDING ? null : "pi_" + id.toString().replace("-", ""),
+                    status.name(), past, past ? start.minusDays(1).toOffsetDateTime() : null);
+
+            // Cancelling releases the slot
+            if (status != AppointmentStatus.CANCELLED) {
+                blockedPeriods.add(UuidV7Generator.at(createdMillis, random), created, created, 0L, start.toLocalDate(),
+                        start.toOffsetDateTime(), start.plusMinutes(duration).toOffsetDateTime(), origin.zone().getId(),
+                        "APPOINTMENT", null, id);
+                if (!past) {
+                    upcoming.addLast(id);
+                    if (upcoming.size() > properties.getUploadSessions()) {
+                        upcoming.removeFirst();
+                    }
+                }
+            }
+
+            int documentCount = (int) Math.round(random.nextDouble() * 2 * documentsPerAppointment);
+            for (int d = 0; d < documentCount; d++) {
+                // One in twenty files is one the client already sent, stored once (content-addressed)
+                String hash;
+                if (blobs > 0 && random.nextInt(20) == 0) {
+                    hash = recentBlobs[random.nextInt(Math.min(blobs, RECENT_BLOBS))];
+                } else {
+                    hash = String.format("%016x%016x%016x%016x", random.nextLong(), random.nextLong(), random.nextLong(), random.nextLong());
+                    recentBlobs[blobs++ % RECENT_BLOBS] = hash;
+                }
+                FileKind kind = pick(random, FILE_KINDS, FileKind::weight);
+                long documentMillis = createdMillis + 60_000L * (d + 1);
+                LocalDateTime uploaded = utc(documentMillis);
+                UUID documentId = UuidV7Generator.at(documentMillis, random);
+                String publicId = BLOB_FOLDER + "/" + hash;
+                boolean failed = random.nextInt(100) == 0;
+                long size = (long) Math.min(10_000_000, Math.exp(12.5 + random.nextGaussian()));
+
+                documents.add(documentId, uploaded, uploaded, 0L, kind.name() + "." + kind.extension(), kind.contentType(),
+                        STORAGE_URL + "raw/upload/" + publicId, size, publicId, hash,
+                        failed ? null : publicId + "_thumb", failed ? null : STORAGE_URL + "image/upload/" + publicId + "_thumb",
+                        id);
+                jobs.add(UuidV7Generator.at(documentMillis, random), uploaded, uploaded, 0L, documentId,
+                        failed ? DerivativeJobStatus.FAILED.name() : DerivativeJobStatus.DONE.name(), failed ? 5 : 1,
+                        uploaded.atOffset(ZoneOffset.UTC), failed ? "Preview generation failed" : null);
+            }
+
+            if (appointments.pending() >= properties.getBatchSize()) {
+                flush(connection, tables);
+                if (appointments.count() % 100_000 < properties.getBatchSize()) {
+                    log.info("{} of {} appointments", appointments.count(), count);
+                }
+            }
+        }
+        return upcoming;
+    }
+
+    // The admin's own unavailability: mostly a few hours, sometimes a whole day
+    private void generateAdminBlocks(RandomGenerator random, long count, ZonedDateTime now, ZonedDateTime first,
+                                     ZonedDateTime last, BulkInsert blockedPeriods, Connection connection,
+                                     List<BulkInsert> tables) throws SQLException {
+        long days = first.toLocalDate().until(last.toLocalDate(), ChronoUnit.DAYS);
+        for (long i = 0; i < count; i++) {
+            LocalDate day = first.toLocalDate().plusDays(i * days / count);
+            ZonedDateTime start;
+            ZonedDateTime end;
+            if (random.nextInt(10) == 0) {
+                start = day.atStartOfDay(ADMIN_ZONE);
+                end = day.plusDays(1).atStartOfDay(ADMIN_ZONE);
+            } else {
+                start = day.atTime(LocalTime.of(8, 0)).atZone(ADMIN_ZONE).plusMinutes(30L * random.nextInt(20));
+                end = start.plusMinutes(30L * (1 + random.nextInt(8)));
+            }
+            long createdMillis = Math.min(start.minusDays(1 + random.nextInt(60)).toInstant().toEpochMilli(),
+                    now.toInstant().toEpochMilli() - 60_000L * (1 + random.nextInt(1440)));
+            LocalDateTime created = utc(createdMillis);
+            blockedPeriods.add(UuidV7Generator.at(createdMillis, random), created, created, 0L, day,
+                    start.withZoneSameInstant(ZoneOffset.UTC).toOffsetDateTime(),
+                    end.withZoneSameInstant(ZoneOffset.UTC).toOffsetDateTime(), ADMIN_ZONE.getId(),
+                    BLOCK_REASONS.get(random.nextInt(BLOCK_REASONS.size())), null, null);
+            if (blockedPeriods.pending() >= properties.getBatchSize()) {
+                flush(connection, tables);
+            }
+        }
+    }
+
+    // Uploads in progress for the latest upcoming bookings, none expired yet
+    private void generateUploadSessions(RandomGenerator random, Deque<UUID> upcoming, ZonedDateTime now, BulkInsert uploadSessions) {
+        for (UUID appointmentId : upcoming) {
+            long createdMillis = now.toInstant().toEpochMilli() - 60_000L * random.nextInt(60);
+            LocalDateTime created = utc(createdMillis);
+            FileKind kind = pick(random, FILE_KINDS, FileKind::weight);
+            long totalSize = 1_000_000L + random.nextLong(9_000_000L);
+            uploadSessions.add(UuidV7Generator.at(createdMillis, random), created, created, 0L,
+                    kind.name() + "." + kind.extension(), kind.contentType(), totalSize,
+                    totalSize / (1 + random.nextInt(4)) / 262_144 * 262_144,
+                    now.plusHours(1 + random.nextInt(24)).toOffsetDateTime(), appointmentId);
+        }
+    }
+
+    private static AppointmentStatus status(RandomGenerator random, boolean past) {
+        int roll = random.nextInt(100);
+        if (past) {
+            // A few confirmed bookings are never closed by the admin
+            return roll < 80 ? AppointmentStatus.COMPLETED : roll < 90 ? AppointmentStatus.CANCELLED
+                    : roll < 95 ? AppointmentStatus.NO_SHOW : AppointmentStatus.CONFIRMED;
+        }
+        return roll < 85 ? AppointmentStatus.CONFIRMED : roll < 95 ? AppointmentStatus.PENDING : AppointmentStatus.CANCELLED;
+    }
+
+    // Fixed per client, so a returning client keeps their country and timezone
+    private static Origin origin(int client) {
+        int point = (int) Math.floorMod(client * 0x9E3779B97F4A7C15L >>> 16, (long) ORIGIN_WEIGHT);
+        for (Origin origin : ORIGINS) {
+            point -= origin.weight();
+            if (point < 0) {
+                return origin;
+            }
+        }
+        throw new IllegalStateException("Origin weights do not add up");
+    }
+
+    private static <T> T pick(RandomGenerator random, List<T> items, ToIntFunction<T> weight) {
+        int point = random.nextInt(items.stream().mapToInt(weight).sum());
+        for (T item : items) {
+            point -= weight.applyAsInt(item);
+            if (point < 0) {
+                return item;
+            }
+        }
+        throw new IllegalStateException("Weights do not add up");
+    }
+
+    private static LocalDateTime utc(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+
+    private static void flush(Connection connection, List<BulkInsert> tables) throws SQLException {
+        for (BulkInsert table : tables) {
+            table.flush();
+        }
+        connection.commit();
+    }
+
+    // Without monthly partitions for the whole period, all history would land in the default one
+    private void createPartitions(ZonedDateTime first, ZonedDateTime last) {
+        boolean postgres = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())));
+        if (!postgres || !Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'blocked_periods'::regclass)",
+                Boolean.class))) {
+            return;
+        }
+        for (YearMonth month = YearMonth.from(first.minusDays(1)); !month.isAfter(YearMonth.from(last)); month = month.plusMonths(1)) {
+            jdbcTemplate.queryForList("SELECT create_blocked_periods_partition(?)", month.atDay(1));
+        }
+    }
+
+    /**
+     * Buffers rows for one table and writes them as INSERTs of {@value #ROWS_PER_STATEMENT} rows
+     * each, all sent in one JDBC batch per flush.
+     */
+    private static final class BulkInsert implements AutoCloseable {
+
+        private static final int ROWS_PER_STATEMENT = 100;
+
+        private final Connection connection;
+        private final String table;
+        private final String columns;
+        private final int width;
+        private final List<Object[]> rows = new ArrayList<>();
+        private PreparedStatement multiRow;
+        private PreparedStatement singleRow;
+        private long written;
+
+        BulkInsert(Connection connection, String table, String columns) {
+            this.connection = connection;
+            this.table = table;
+            this.columns = columns;
+            this.width = columns.split(",").length;
+        }
+
+        void add(Object... row) {
+            rows.add(row);
+        }
+
+        int pending() {
+            return rows.size();
+        }
+
+        long count() {
+            return written + rows.size();
+        }
+
+        void flush() throws SQLException {
+            int full = rows.size() / ROWS_PER_STATEMENT * ROWS_PER_STATEMENT;
+            if (full > 0) {
+                if (multiRow == null) {
+                    multiRow = connection.prepareStatement(sql(ROWS_PER_STATEMENT));
+                }
+                for (int from = 0; from < full; from += ROWS_PER_STATEMENT) {
+                    bind(multiRow, from, ROWS_PER_STATEMENT);
+                    multiRow.addBatch();
+                }
+                multiRow.executeBatch();
+            }
+            if (full < rows.size()) {
+                if (singleRow == null) {
+                    singleRow = connection.prepareStatement(sql(1));
+                }
+                for (int from = full; from < rows.size(); from++) {
+                    bind(singleRow, from, 1);
+                    singleRow.addBatch();
+                }
+                singleRow.executeBatch();
+            }
+            written += rows.size();
+            rows.clear();
+        }
+
+        private void bind(PreparedStatement statement, int from, int count) throws SQLException {
+            int parameter = 1;
+            for (int row = from; row < from + count; row++) {
+                for (Object value : rows.get(row)) {
+                    statement.setObject(parameter++, value);
+                }
+            }
+        }
+
+        private String sql(int rowCount) {
+            String row = "(" + String.join(", ", Collections.nCopies(width, "?")) + ")";
+            return "INSERT INTO " + table + " (" + columns + ") VALUES "
+                    + String.join(", ", Collections.nCopies(rowCount, row));
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (multiRow != null) {
+                multiRow.close();
+            }
+            if (singleRow != null) {
+                singleRow.close();
+            }
+        }
+    }
+}
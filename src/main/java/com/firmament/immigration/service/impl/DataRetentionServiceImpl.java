@@ -0,0 +1,146 @@
+package com.firmament.immigration.service.impl;
+
+import com.firmament.immigration.entity.AppointmentStatus;
+import com.firmament.immigration.service.DataRetentionService;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keeps the hot tables small. On Postgres, blocked_periods is range partitioned by month of
+ * start_date_time (Liquibase changeset 11): partitions are created ahead of time and old ones
+ * are detached into the archive schema. Appointments are referenced by several foreign keys,
+ * which a partitioned table cannot have on its id alone, so finished appointments are moved
+ * row by row into appointments_archive together with their documents instead.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DataRetentionServiceImpl implements DataRetentionService {
+
+    private static final String PARTITION_PREFIX = "blocked_periods_";
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private static final String APPOINTMENT_COLUMNS = "id, created_at, updated_at, version, first_name, last_name, "
+            + "email, phone, country, appointment_date, duration, consultation_type, client_presentation, "
+            + "user_timezone, amount, currency, payment_intent_id, status, admin_notes, reminder_sent, reminder_sent_at";
+    private static final String DOCUMENT_COLUMNS = "id, created_at, updated_at, version, file_name, file_type, "
+            + "file_path, file_size, public_id, appointment_id, content_hash, thumbnail_public_id, thumbnail_path";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Value("${app.retention.partitions-ahead-months:6}")
+    private int partitionsAheadMonths;
+
+    @Value("${app.retention.blocked-periods-months:12}")
+    private int blockedPeriodsMonths;
+
+    @Value("${app.retention.appointments-months:24}")
+    private int appointmentsMonths;
+
+    @Value("${app.retention.batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void maintainPartitions() {
+        if (!blockedPeriodsPartitioned()) {
+            log.debug("blocked_periods is not partitioned (not Postgres), nothing to maintain");
+            return;
+        }
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        for (int i = 0; i <= partitionsAheadMonths; i++) {
+            jdbcTemplate.queryForList("SELECT create_blocked_periods_partition(?)", current.plusMonths(i).atDay(1));
+        }
+
+        YearMonth oldestKept = current.minusMonths(blockedPeriodsMonths);
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE i.inhparent = 'blocked_periods'::regclass", String.class);
+        for (String partition : partitions) {
+            YearMonth month = partitionMonth(partition);
+            if (month != null && month.isBefore(oldestKept)) {
+                jdbcTemplate.queryForList("SELECT archive_blocked_periods_partition(?)", partition);
+                log.info("Detached {} into the archive schema", partition);
+            }
+        }
+    }
+
+    @Override
+    public int archiveAppointments() {
+        OffsetDateTime cutoff = LocalDate.now(ZoneOffset.UTC).minusMonths(appointmentsMonths).atStartOfDay().atOffset(ZoneOffset.UTC);
+        int archived = 0;
+        List<UUID> batch;
+        do {
+            batch = jdbcTemplate.queryForList(
+                    "SELECT id FROM appointments WHERE status IN (?, ?) AND appointment_date < ? "
+                            + "ORDER BY appointment_date FETCH FIRST " + batchSize + " ROWS ONLY",
+                    UUID.class, AppointmentStatus.COMPLETED.name(), AppointmentStatus.CANCELLED.name(), cutoff);
+            if (!batch.isEmpty()) {
+                List<UUID> ids = batch;
+                transactionTemplate.executeWithoutResult(status -> archive(ids));
+                archived += batch.size();
+            }
+        } while (batch.size() == batchSize);
+
+        if (archived > 0) {
+            // Rows were moved behind Hibernate's back: drop cached entities and query results
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+            log.info("Archived {} appointment(s) that ended before {}", archived, cutoff.toLocalDate());
+        }
+        return archived;
+    }
+
+    private void archive(List<UUID> appointmentIds) {
+        MapSqlParameterSource ids = new MapSqlParameterSource("ids", appointmentIds);
+        namedJdbcTemplate.update("INSERT INTO appointments_archive (" + APPOINTMENT_COLUMNS + ", archived_at) "
+                + "SELECT " + APPOINTMENT_COLUMNS + ", CURRENT_TIMESTAMP FROM appointments WHERE id IN (:ids)", ids);
+        namedJdbcTemplate.update("INSERT INTO documents_archive (" + DOCUMENT_COLUMNS + ", archived_at) "
+                + "SELECT " + DOCUMENT_COLUMNS + ", CURRENT_TIMESTAMP FROM documents WHERE appointment_id IN (:ids)", ids);
+        // Stored files stay where they are: archived rows keep their public_id, and count as
+        // references when a live document sharing the blob is deleted
+        namedJdbcTemplate.update("DELETE FROM document_derivative_jobs WHERE document_id IN "
+                + "(SELECT id FROM documents WHERE appointment_id IN (:ids))", ids);
+        namedJdbcTemplate.update("DELETE FROM documents WHERE appointment_id IN (:ids)", ids);
+        namedJdbcTemplate.update("DELETE FROM upload_sessions WHERE appointment_id IN (:ids)", ids);
+        namedJdbcTemplate.update("DELETE FROM blocked_periods WHERE appointment_id IN (:ids)", ids);
+        namedJdbcTemplate.update("DELETE FROM appointments WHERE id IN (:ids)", ids);
+    }
+
+    private boolean blockedPeriodsPartitioned() {
+        boolean postgres = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())));
+        return postgres && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'blocked_periods'::regclass)",
+                Boolean.class));
+    }
+
+    private static YearMonth partitionMonth(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null; // blocked_periods_default
+        }
+        try {
+            return YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_MONTH);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.firmament.immigration.service.impl;
+
+import com.firmament.immigration.entity.DerivativeJobStatus;
+import com.firmament.immigration.entity.Document;
+import com.firmament.immigration.entity.DocumentDerivativeJob;
+import com.firmament.immigration.repository.DocumentDerivativeJobRepository;
+import com.firmament.immigration.repository.DocumentRepository;
+import com.firmament.immigration.service.DocumentDerivativeService;
+import com.firmament.immigration.service.DocumentStorage;
+import com.firmament.immigration.service.DocumentStorage.StoredObject;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Generates thumbnails for images and first-page previews for PDFs in the background.
+ * Jobs live in document_derivative_jobs so they survive restarts, and are handed to the
+ * bounded derivativeExecutor only when it has room.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentDerivativeServiceImpl implements DocumentDerivativeService {
+
+    private static final List<String> IMAGE_EXTENSIONS = List.of("jpg", "jpeg", "png", "gif");
+    private static final String THUMBNAIL_FOLDER = "immigration_documents/thumbnails";
+    private static final Duration STALE_AFTER = Duration.ofMinutes(10);
+
+    private final DocumentDerivativeJobRepository jobRepository;
+    private final DocumentRepository documentRepository;
+    private final DocumentStorage documentStorage;
+    private final ThreadPoolTaskExecutor derivativeExecutor;
+    private final ObservationRegistry observationRegistry;
+
+    @Value("${app.documents.derivatives.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.documents.derivatives.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.documents.derivatives.thumbnail-size:320}")
+    private int thumbnailSize;
+
+    @Value("${app.documents.derivatives.retention:7d}")
+    private Duration retention;
+
+    @Value("${app.upload.temp-path}")
+    private String tempPath;
+
+    @Override
+    public void enqueue(Document document) {
+        if (!enabled || !supports(document.getFileName())) {
+            return;
+        }
+        jobRepository.save(DocumentDerivativeJob.builder()
+                .documentId(document.getId())
+                .status(DerivativeJobStatus.PENDING)
+                .attempts(0)
+                .availableAt(ZonedDateTime.now(ZoneOffset.UTC))
+                .build());
+    }
+
+    @Override
+    public void dispatchPendingJobs() {
+        int released = jobRepository.releaseStale(LocalDateTime.now().minus(STALE_AFTER));
+        if (released > 0) {
+            log.warn("Released {} stale derivative job(s)", released);
+        }
+
+        ThreadPoolExecutor pool = derivativeExecutor.getThreadPoolExecutor();
+        int capacity = pool.getQueue().remainingCapacity() + pool.getMaximumPoolSize() - pool.getActiveCount();
+        if (capacity <= 0) {
+            return;
+        }
+
+        List<DocumentDerivativeJob> ready = jobRepository.findReady(
+                DerivativeJobStatus.PENDING, ZonedDateTime.now(ZoneOffset.UTC), PageRequest.of(0, capacity));
+
+        for (DocumentDerivativeJob job : ready) {
+            job.setStatus(DerivativeJobStatus.RUNNING);
+            try {
+                job = jobRepository.save(job);
+            } catch (ObjectOptimisticLockingFailureException e) {
+                continue; // Claimed by another node
+            }
+
+            String jobId = job.getId();
+            try {
+                derivativeExecutor.execute(() -> Observation.createNotStarted("immigration.documents.derivative", observationRegistry)
+                        .contextualName("derivative job")
+                        .observe(() -> runJob(jobId)));
+            } catch (TaskRejectedException e) {
+                job.setStatus(DerivativeJobStatus.PENDING);
+                jobRepository.save(job);
+                break;
+            }
+        }
+    }
+
+    @Override
+    public void purgeFinishedJobs() {
+        int deleted = jobRepository.deleteFinished(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Removed {} finished derivative job(s)", deleted);
+        }
+    }
+
+    private void runJob(String jobId) {
+        DocumentDerivativeJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+
+        try {
+            // The document may have been deleted while queued, nothing to do then
+            documentRepository.findById(job.getDocumentId()).ifPresent(this::generateThumbnail);
+            job.setStatus(DerivativeJobStatus.DONE);
+            job.setLastError(null);
+        } catch (Exception e) {
+            int attempts = job.getAttempts() + 1;
+            job.setAttempts(attempts);
+            job.setLastError(truncate(e.toString()));
+            if (attempts >= maxAttempts) {
+                job.setStatus(DerivativeJobStatus.FAILED);
+                log.error("Giving up on derivatives for document {} after {} attempts", job.getDocumentId(), attempts, e);
+            } else {
+                job.setStatus(DerivativeJobStatus.PENDING);
+                job.setAvailableAt(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(30L << attempts));
+                log.warn("Derivative generation failed for document {}, will retry", job.getDocumentId(), e);
+            }
+        }
+        jobRepository.save(job);
+    }
+
+    private void generateThumbnail(Document document) {
+        if (document.getThumbnailPublicId() != null) {
+            return; // Shared blob already has one
+        }
+
+        Path tempFile = null;
+        try {
+            Resource source = documentStorage.load(document.getPublicId(), document.getFilePath());
+            BufferedImage image = render(source, getFileExtension(document.getFileName()).toLowerCase());
+            if (image == null) {
+                throw new IOException("Unreadable image: " + document.getFileName());
+            }
+
+            Path dir = Paths.get(tempPath);
+            Files.createDirectories(dir);
+            tempFile = Files.createTempFile(dir, "thumb-", ".jpg");
+            ImageIO.write(scale(image), "jpg", tempFile.toFile());
+
+            // Named after the blob so documents sharing content share the thumbnail
+            String name = (document.getContentHash() != null ? document.getContentHash() : document.getId()) + ".jpg";
+            StoredObject stored = documentStorage.store(THUMBNAIL_FOLDER, name, "image/jpeg", tempFile);
+
+            documentRepository.setThumbnailForBlob(document.getPublicId(), stored.key(),
+                    stored.url() != null ? stored.url() : stored.key());
+            log.info("Thumbnail generated for document {}: {} bytes", document.getId(), stored.size());
+        } catch (IOException e) {
+            throw new IllegalStateException("Thumbnail generation failed for document " + document.getId(), e);
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException ignored) {
+                    // Storage normally consumes the file already
+                }
+            }
+        }
+    }
+
+    private BufferedImage render(Resource source, String extension) throws IOException {
+        if (!"pdf".equals(extension)) {
+            try (InputStream in = source.getInputStream()) {
+                return ImageIO.read(in);
+            }
+        }
+
+        // Only the first page is rendered, at screen resolution
+        try (PDDocument pdf = source.isFile()
+                ? Loader.loadPDF(source.getFile())
+                : Loader.loadPDF(new RandomAccessReadBuffer(source.getInputStream()))) {
+            return new PDFRenderer(pdf).renderImageWithDPI(0, 72, ImageType.RGB);
+        }
+    }
+
+    private BufferedImage scale(BufferedImage image) {
+        double ratio = Math.min(1.0, (double) thumbnailSize / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+
+        BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        graphics.setColor(Color.WHITE); // JPEG has no alpha, flatten transparent images on white
+        graphics.fillRect(0, 0, width, height);
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(image, 0, 0, width, height, null);
+        graphics.dispose();
+        return thumbnail;
+    }
+
+    private boolean supports(String fileName) {
+        String extension = getFileExtension(fileName).toLowerCase();
+        return "pdf".equals(extension) || IMAGE_EXTENSIONS.contains(extension);
+    }
+
+    private String getFileExtension(String fileName) {
+        if (fileName == null || !fileName.contains(".")) return "";
+        return fileName.substring(fileName.lastIndexOf(".") + 1);
+    }
+
+    private String truncate(String message) {
+        return message.length() <= 500 ? message : message.substring(0, 500);
+    }
+}
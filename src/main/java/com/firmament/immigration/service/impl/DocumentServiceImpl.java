@@ -1,26 +1,45 @@
 package com.firmament.immigration.service.impl;
 
-import com.cloudinary.Cloudinary;
-import com.cloudinary.utils.ObjectUtils;
+import com.firmament.immigration.dto.request.ConfirmUploadRequest;
 import com.firmament.immigration.dto.response.DocumentResponse;
+import com.firmament.immigration.dto.response.UploadTicketResponse;
 import com.firmament.immigration.entity.Appointment;
 import com.firmament.immigration.entity.Document;
 import com.firmament.immigration.exception.BusinessException;
 import com.firmament.immigration.exception.ResourceNotFoundException;
 import com.firmament.immigration.repository.AppointmentRepository;
 import com.firmament.immigration.repository.DocumentRepository;
+import com.firmament.immigration.service.DocumentDerivativeService;
 import com.firmament.immigration.service.DocumentService;
+import com.firmament.immigration.service.DocumentStorage;
+import com.firmament.immigration.service.DocumentStorage.StoredObject;
 import com.firmament.immigration.service.EmailService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,10 +51,18 @@ public class DocumentServiceImpl implements DocumentService {
     private final DocumentRepository documentRepository;
     private final AppointmentRepository appointmentRepository;
     private final EmailService emailService;
-    private final Cloudinary cloudinary;
+    private final DocumentStorage documentStorage;
+    private final DocumentDerivativeService documentDerivativeService;
 
     private static final List<String> ALLOWED_EXTENSIONS = List.of("pdf", "doc", "docx", "jpg", "jpeg", "png", "gif");
     private static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB
+    private static final String BLOB_FOLDER = "immigration_documents/blobs";
+
+    @Value("${app.upload.ticket-ttl-minutes:15}")
+    private long ticketTtlMinutes;
+
+    @Value("${app.upload.temp-path}")
+    private String tempPath;
 
     @Override
     public List<DocumentResponse> uploadDocuments(String appointmentId, List<MultipartFile> files) {
@@ -47,45 +74,22 @@ public class DocumentServiceImpl implements DocumentService {
 
         for (MultipartFile file : files) {
             validateFile(file);
+            Path spooled = null;
             try {
-                String resourceType = getResourceType(file.getOriginalFilename());
-
-                Map uploadResult = cloudinary.uploader().upload(file.getBytes(), ObjectUtils.asMap(
-                        "resource_type", resourceType,
-                        "folder", "immigration_documents/" + appointmentId,
-                        // NEW: Tell Cloudinary to use the original filename as the public ID basis
-                        "use_filename", true,
-                        "unique_filename", false
-                ));
-
-                String fileUrl = (String) uploadResult.get("secure_url");
-                String publicId = (String) uploadResult.get("public_id");
-
-                // --- CRITICAL CHANGE: Modify the URL for non-image files ---
-                if ("raw".equals(resourceType)) {
-                    // This injects a special flag into the URL.
-                    // "fl_attachment" tells Cloudinary to send headers that force a download
-                    // with the original filename.
-                    fileUrl = fileUrl.replace("/upload/", "/upload/fl_attachment/");
-                }
-
-                Document document = Document.builder()
-                        .fileName(file.getOriginalFilename())
-                        .fileType(file.getContentType())
-                        .filePath(fileUrl)
-                        .publicId(publicId)
-                        .fileSize(file.getSize())
-                        .appointment(appointment)
-                        .build();
+                // Spool to disk instead of file.getBytes() so large files never sit in the heap,
+                // hashing on the way through
+                spooled = createTempFile();
+                String contentHash = spoolAndHash(file, spooled);
 
-                documents.add(documentRepository.save(document));
+                documents.add(storeDocument(appointment, file.getOriginalFilename(), file.getContentType(),
+                        file.getSize(), spooled, contentHash));
                 uploadedFileNames.add(file.getOriginalFilename());
 
-                log.info("Document uploaded to Cloudinary: {} for appointment: {}", fileUrl, appointmentId);
-
             } catch (IOException e) {
-                log.error("Failed to upload file to Cloudinary: {}", file.getOriginalFilename(), e);
+                log.error("Failed to upload file: {}", file.getOriginalFilename(), e);
                 throw new BusinessException("Failed to upload file: " + file.getOriginalFilename());
+            } finally {
+                deleteTempFile(spooled);
             }
         }
 
@@ -96,36 +100,295 @@ public class DocumentServiceImpl implements DocumentService {
         return documents.stream().map(this::mapToResponse).collect(Collectors.toList());
     }
 
-    // --- NO CHANGES BELOW THIS LINE ---
+    @Override
+    public UploadTicketResponse createUploadTicket(String appointmentId, String fileName) {
+        if (!appointmentRepository.existsById(appointmentId)) {
+            throw new ResourceNotFoundException("Appointment not found");
+        }
+        validateExtension(fileName);
+
+        UploadTicketResponse ticket = documentStorage.createUploadTicket(
+                documentFolder(appointmentId), fileName, MAX_FILE_SIZE, Duration.ofMinutes(ticketTtlMinutes));
+
+        log.info("Issued direct upload ticket for appointment: {} ({})", appointmentId, fileName);
+        return ticket;
+    }
+
+    @Override
+    public DocumentResponse confirmDirectUpload(String appointmentId, ConfirmUploadRequest request) {
+        Appointment appointment = appointmentRepository.findById(appointmentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Appointment not found"));
+
+        if (documentRepository.existsByPublicId(request.getPublicId())) {
+            throw new BusinessException("Upload has already been confirmed");
+        }
+        validateExtension(request.getOriginalFilename());
+
+        StoredObject stored = documentStorage.verifyDirectUpload(documentFolder(appointmentId), request);
+
+        boolean tooLarge = stored.size() > MAX_FILE_SIZE;
+        boolean expired = stored.createdAt().isBefore(Instant.now().minus(Duration.ofMinutes(ticketTtlMinutes)));
+        if (tooLarge || expired) {
+            deleteQuietly(stored.key(), request.getOriginalFilename());
+            throw new BusinessException(tooLarge
+                    ? "File size exceeds 10MB"
+                    : "Upload ticket has expired. Please upload the file again.");
+        }
+
+        Document document = Document.builder()
+                .fileName(request.getOriginalFilename())
+                .fileType(request.getContentType() != null ? request.getContentType() : "application/octet-stream")
+                .filePath(stored.url())
+                .publicId(stored.key())
+                .fileSize(stored.size())
+                .appointment(appointment)
+                .build();
+        document = documentRepository.save(document);
+        documentDerivativeService.enqueue(document);
+
+        log.info("Direct upload confirmed: {} for appointment: {}", stored.key(), appointmentId);
+
+        emailService.sendDocumentUploadConfirmation(appointment, List.of(request.getOriginalFilename()));
+
+        return mapToResponse(document);
+    }
+
+    /**
+     * Runs outside any transaction: sending the file to the storage can take a while, and
+     * must not hold a connection or the content-hash lock meanwhile. Blob names are derived
+     * from the content, so storing content that is already there rewrites the same blob.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public StoredUpload storeUpload(String appointmentId, String fileName, String contentType, Path file) {
+        if (!appointmentRepository.existsById(appointmentId)) {
+            throw new ResourceNotFoundException("Appointment not found");
+        }
+        validateExtension(fileName);
+
+        try {
+            long fileSize = Files.size(file);
+            String contentHash = hashFile(file);
+            StoredObject stored = documentStorage.store(
+                    BLOB_FOLDER, blobName(contentHash, fileName), contentType, file);
+            return new StoredUpload(fileName, contentType, fileSize, contentHash, stored);
+        } catch (IOException e) {
+            log.error("Failed to store assembled upload: {}", fileName, e);
+            throw new BusinessException("Failed to upload file: " + fileName);
+        }
+    }
+
+    @Override
+    public DocumentResponse registerUpload(String appointmentId, StoredUpload upload) {
+        Appointment appointment = appointmentRepository.findById(appointmentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Appointment not found"));
+
+        Document existing = findStoredContent(upload.contentHash(), upload.fileName());
+        Document document = saveDocument(appointment, upload.fileName(), upload.contentType(),
+                upload.fileSize(), upload.contentHash(), existing, existing == null ? upload.stored() : null);
+
+        emailService.sendDocumentUploadConfirmation(appointment, List.of(upload.fileName()));
+        return mapToResponse(document);
+    }
+
+    /**
+     * Remove the blob of an upload whose registration failed, unless a document references it:
+     * a concurrent upload of the same content may have registered the same blob.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void discardUpload(StoredUpload upload) {
+        String key = upload.stored().key();
+        if (documentRepository.existsByPublicId(key) || documentRepository.countArchivedByPublicId(key) > 0) {
+            log.info("Blob {} of the failed upload is referenced, keeping it", key);
+            return;
+        }
+        deleteQuietly(key, upload.fileName());
+    }
+
+    @Override
+    public void validateFileName(String fileName) {
+        validateExtension(fileName);
+    }
+
+    /**
+     * Register a document whose content is already spooled to {@code spooled}. Content is
+     * stored once per SHA-256 digest: when a blob with the same digest exists, the new row
+     * just references it and nothing is transferred to the storage.
+     */
+    private Document storeDocument(Appointment appointment, String fileName, String contentType,
+                                   long fileSize, Path spooled, String contentHash) throws IOException {
+        Document existing = findStoredContent(contentHash, fileName);
+        StoredObject stored = existing == null
+                ? documentStorage.store(BLOB_FOLDER, blobName(contentHash, fileName), contentType, spooled)
+                : null;
+        return saveDocument(appointment, fileName, contentType, fileSize, contentHash, existing, stored);
+    }
+
+    /**
+     * A document already holding this content under the same extension, locked so a
+     * concurrent delete cannot take the blob away before the new row references it.
+     */
+    private Document findStoredContent(String contentHash, String fileName) {
+        String extension = getFileExtension(fileName);
+        return documentRepository.findByContentHashForUpdate(contentHash).stream()
+                .filter(d -> getFileExtension(d.getFileName()).equalsIgnoreCase(extension))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private Document saveDocument(Appointment appointment, String fileName, String contentType, long fileSize,
+                                  String contentHash, Document existing, StoredObject stored) {
+        Document.DocumentBuilder builder = Document.builder()
+                .fileName(fileName)
+                .fileType(contentType)
+                .contentHash(contentHash)
+                .fileSize(fileSize)
+                .appointment(appointment);
 
-    private String getResourceType(String fileName) {
-        String extension = getFileExtension(fileName).toLowerCase();
-        if (List.of("jpg", "jpeg", "png", "gif").contains(extension)) {
-            return "image";
+        if (existing != null) {
+            log.info("Content already stored, reusing blob: {}", existing.getPublicId());
+            builder.publicId(existing.getPublicId())
+                    .filePath(existing.getFilePath())
+                    .thumbnailPublicId(existing.getThumbnailPublicId())
+                    .thumbnailPath(existing.getThumbnailPath());
+        } else {
+            builder.publicId(stored.key())
+                    .filePath(stored.url() != null ? stored.url() : stored.key());
+        }
+
+        Document document = documentRepository.save(builder.build());
+        if (existing == null) {
+            documentDerivativeService.enqueue(document);
+        }
+
+        log.info("Document uploaded: {} for appointment: {}", document.getPublicId(), appointment.getId());
+        return document;
+    }
+
+    private String blobName(String contentHash, String fileName) {
+        return contentHash + "." + getFileExtension(fileName).toLowerCase();
+    }
+
+    private String spoolAndHash(MultipartFile file, Path target) throws IOException {
+        MessageDigest digest = newSha256();
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private String hashFile(Path file) throws IOException {
+        MessageDigest digest = newSha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private String documentFolder(String appointmentId) {
+        return "immigration_documents/" + appointmentId;
+    }
+
+    private Path createTempFile() throws IOException {
+        Path dir = Paths.get(tempPath);
+        Files.createDirectories(dir);
+        return Files.createTempFile(dir, "upload-", ".part");
+    }
+
+    private void deleteTempFile(Path path) {
+        if (path == null) return;
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete temporary upload file: {}", path, e);
+        }
+    }
+
+    private void deleteQuietly(String key, String fileName) {
+        try {
+            documentStorage.delete(key, fileName);
+        } catch (IOException e) {
+            log.warn("Failed to remove rejected upload from storage: {}", key, e);
         }
-        return "raw";
     }
 
     @Override
     public void deleteDocument(String documentId) {
+        Document document = documentRepository.findById(documentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Document not found"));
+        List<Document> references = documentRepository.findByPublicIdForUpdate(document.getPublicId());
+        long archivedReferences = documentRepository.countArchivedByPublicId(document.getPublicId());
+        documentRepository.delete(document);
+        log.info("Successfully deleted document record from database: {}", documentId);
+
+        // Only the last reference takes the stored blob with it, once the delete has committed:
+        // after a rollback the row still points at the blob
+        if (references.size() <= 1 && archivedReferences == 0) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteBlob(document);
+                }
+            });
+        } else {
+            log.info("Blob {} still referenced by {} document(s) and {} archived one(s), keeping it",
+                    document.getPublicId(), references.size() - 1, archivedReferences);
+        }
+    }
+
+    private void deleteBlob(Document document) {
+        // An upload of the same content may have referenced the blob again since the commit,
+        // or the appointment's archival may have copied a reference
+        if (documentRepository.existsByPublicId(document.getPublicId())
+                || documentRepository.countArchivedByPublicId(document.getPublicId()) > 0) {
+            log.info("Blob {} referenced again, keeping it", document.getPublicId());
+            return;
+        }
+        try {
+            documentStorage.delete(document.getPublicId(), document.getFileName());
+            if (document.getThumbnailPublicId() != null) {
+                documentStorage.delete(document.getThumbnailPublicId(), "thumbnail.jpg");
+            }
+        } catch (IOException e) {
+            log.error("Failed to delete file from storage for document {}, blob {} is left behind",
+                    document.getId(), document.getPublicId(), e);
+        }
+    }
+
+    @Override
+    public Resource downloadDocument(String documentId) {
         Document document = documentRepository.findById(documentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Document not found"));
         try {
-            String resourceType = getResourceType(document.getFileName());
-            log.info("Attempting to delete file from Cloudinary with public_id: {} and resource_type: {}", document.getPublicId(), resourceType);
-            cloudinary.uploader().destroy(document.getPublicId(), ObjectUtils.asMap("resource_type", resourceType));
-            log.info("Successfully deleted file from Cloudinary.");
-            documentRepository.delete(document);
-            log.info("Successfully deleted document record from database: {}", documentId);
+            return documentStorage.load(document.getPublicId(), document.getFilePath());
         } catch (IOException e) {
-            log.error("Failed to delete file from Cloudinary for documentId: {}", documentId, e);
-            throw new BusinessException("Error deleting document. Please try again.");
+            log.error("Failed to load document from storage: {}", documentId, e);
+            throw new ResourceNotFoundException("Document content not found");
         }
     }
 
     @Override
-    public byte[] downloadDocument(String documentId) {
-        throw new UnsupportedOperationException("Download is handled via URL on the frontend.");
+    public Resource downloadThumbnail(String documentId) {
+        Document document = documentRepository.findById(documentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Document not found"));
+        if (document.getThumbnailPublicId() == null) {
+            throw new ResourceNotFoundException("Thumbnail not available yet");
+        }
+        try {
+            return documentStorage.load(document.getThumbnailPublicId(), document.getThumbnailPath());
+        } catch (IOException e) {
+            log.error("Failed to load thumbnail from storage: {}", documentId, e);
+            throw new ResourceNotFoundException("Thumbnail not found");
+        }
     }
 
     @Override
@@ -144,7 +407,11 @@ public class DocumentServiceImpl implements DocumentService {
     private void validateFile(MultipartFile file) {
         if (file.isEmpty()) throw new BusinessException("File is empty");
         if (file.getSize() > MAX_FILE_SIZE) throw new BusinessException("File size exceeds 10MB");
-        String extension = getFileExtension(file.getOriginalFilename());
+        validateExtension(file.getOriginalFilename());
+    }
+
+    private void validateExtension(String fileName) {
+        String extension = getFileExtension(fileName);
         if (!ALLOWED_EXTENSIONS.contains(extension.toLowerCase())) {
             throw new BusinessException("File type not allowed. Allowed types: " + String.join(", ", ALLOWED_EXTENSIONS));
         }
@@ -162,7 +429,14 @@ public class DocumentServiceImpl implements DocumentService {
         response.setFileType(document.getFileType());
         response.setFileSize(document.getFileSize());
         response.setUploadedAt(document.getCreatedAt());
-        response.setUrl(document.getFilePath());
+        response.setUrl(documentStorage.servesPublicUrls()
+                ? document.getFilePath()
+                : "/api/documents/download/" + document.getId());
+        if (document.getThumbnailPublicId() != null) {
+            response.setThumbnailUrl(documentStorage.servesPublicUrls()
+                    ? document.getThumbnailPath()
+                    : "/api/documents/thumbnail/" + document.getId());
+        }
         return response;
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,10 @@ package com.firmament.immigration.service.impl;
 
 import com.firmament.immigration.entity.Appointment;
 import com.firmament.immigration.service.EmailService;
+import com.firmament.immigration.util.Observations;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
@@ -26,6 +30,8 @@ public class EmailServiceImpl implements EmailService {
 
     private final JavaMailSender mailSender;
     private final TemplateEngine templateEngine;
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
 
     @Value("${app.email.from}")
     private String fromEmail;
@@ -187,25 +193,33 @@ public class EmailServiceImpl implements EmailService {
         );
     }
 
+    // One span and a timer per template, rendering included; failures are also counted on
+    // their own since they are swallowed here
     private void sendEmail(String to, String subject, String template, Context context) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom(fromEmail, fromName);
-            helper.setTo(to);
-            helper.setSubject(subject);
-
-            String htmlContent = templateEngine.process(template, context);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
+            Observations.observe(Observation.createNotStarted("immigration.email.send", observationRegistry)
+                    .contextualName("email " + template)
+                    .lowCardinalityKeyValue("template", template), () -> {
+                MimeMessage message = mailSender.createMimeMessage();
+                MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+                helper.setFrom(fromEmail, fromName);
+                helper.setTo(to);
+                helper.setSubject(subject);
+
+                String htmlContent = templateEngine.process(template, context);
+                helper.setText(htmlContent, true);
+
+                mailSender.send(message);
+                return message;
+            });
             log.info("Email sent successfully to: {} for timezone: {}",
                     to, context.getVariable("timezone"));
 
         } catch (Exception e) {
+            meterRegistry.counter("immigration.email.failures", "template", template).increment();
             log.error("Failed to send email to: {}", to, e);
             // Don't throw exception to not break the flow
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,87 @@
+package com.firmament.immigration.service.impl;
+
+import com.firmament.immigration.service.DocumentStorage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.Instant;
+
+/**
+ * Stores documents under {@code app.upload.path}. Used for on-prem deployments and tests.
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "local")
+@Slf4j
+public class LocalDocumentStorage implements DocumentStorage {
+
+    private final Path root;
+
+    public LocalDocumentStorage(@Value("${app.upload.path}") String uploadPath) throws IOException {
+        this.root = Paths.get(uploadPath).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        log.info("Local document storage at {}", root);
+    }
+
+    @Override
+    public StoredObject store(String folder, String fileName, String contentType, Path source) throws IOException {
+        String key = folder + "/" + sanitize(fileName);
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+
+        if (Files.exists(target)) {
+            // Keys are content addressed, so an existing file already holds these bytes
+            Files.delete(source);
+            return new StoredObject(key, null, Files.size(target), Instant.now());
+        }
+
+        try {
+            // A rename when the temp file is on the same file system, so no bytes are copied
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        log.info("Document stored locally: {}", key);
+        return new StoredObject(key, null, Files.size(target), Instant.now());
+    }
+
+    @Override
+    public Resource load(String key, String url) throws IOException {
+        Path path = resolve(key);
+        if (!Files.isReadable(path)) {
+            throw new NoSuchFileException(key);
+        }
+        // FileSystemResource reads through a FileChannel, and Spring serves Range requests from it
+        return new FileSystemResource(path);
+    }
+
+    @Override
+    public void delete(String key, String fileName) throws IOException {
+        Files.deleteIfExists(resolve(key));
+        log.info("Deleted local document: {}", key);
+    }
+
+    @Override
+    public boolean servesPublicUrls() {
+        return false;
+    }
+
+    private Path resolve(String key) throws IOException {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root)) {
+            throw new IOException("Invalid storage key: " + key);
+        }
+        return path;
+    }
+
+    private String sanitize(String fileName) {
+        String name = fileName == null ? "file" : Paths.get(fileName).getFileName().toString();
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+}
@@ -0,0 +1,113 @@
+package com.firmament.immigration.service.impl;
+
+import com.firmament.immigration.exception.TooManyRequestsException;
+import com.firmament.immigration.service.LoginAttemptService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Progressive lockout of failed logins, tracked separately per username and per client IP.
+ * After {@code free-attempts} failures each further failure doubles the lockout, up to
+ * {@code max-lockout}. Counters live in a bounded cache and reset after a quiet period.
+ * <p>
+ * A username lockout would otherwise let anyone lock the admin out by failing on purpose, so
+ * it does not apply to an IP that logged in as that user within {@code trusted-for}. Such an
+ * IP is still locked out by its own failures.
+ */
+@Service
+@Slf4j
+public class LoginAttemptServiceImpl implements LoginAttemptService {
+
+    private record Attempts(int failures, long lockedUntilMillis) {}
+
+    private final Cache<String, Attempts> attempts;
+    private final Cache<String, Boolean> trustedClients;
+    private final int freeAttempts;
+    private final Duration baseLockout;
+    private final Duration maxLockout;
+
+    public LoginAttemptServiceImpl(@Value("${app.auth.login.free-attempts:5}") int freeAttempts,
+                                   @Value("${app.auth.login.base-lockout:1s}") Duration baseLockout,
+                                   @Value("${app.auth.login.max-lockout:15m}") Duration maxLockout,
+                                   @Value("${app.auth.login.reset-after:30m}") Duration resetAfter,
+                                   @Value("${app.auth.login.max-tracked:50000}") long maxTracked,
+                                   @Value("${app.auth.login.trusted-for:30d}") Duration trustedFor) {
+        this.freeAttempts = freeAttempts;
+        this.baseLockout = baseLockout;
+        this.maxLockout = maxLockout;
+        this.attempts = Caffeine.newBuilder()
+                .maximumSize(maxTracked)
+                .expireAfterWrite(resetAfter)
+                .build();
+        this.trustedClients = Caffeine.newBuilder()
+                .maximumSize(maxTracked)
+                .expireAfterWrite(trustedFor)
+                .build();
+    }
+
+    @Override
+    public void checkAllowed(String username, String clientIp) {
+        long now = System.currentTimeMillis();
+        long lockedUntil = lockedUntil(ipKey(clientIp));
+        if (trustedClients.getIfPresent(clientKey(username, clientIp)) == null) {
+            lockedUntil = Math.max(lockedUntil, lockedUntil(userKey(username)));
+        }
+        if (lockedUntil > now) {
+            long retryAfter = Math.max(1, (lockedUntil - now + 999) / 1000);
+            throw new TooManyRequestsException(
+                    "Too many failed login attempts. Try again in " + retryAfter + " seconds.", retryAfter);
+        }
+    }
+
+    @Override
+    public void recordFailure(String username, String clientIp) {
+        fail(userKey(username));
+        fail(ipKey(clientIp));
+    }
+
+    @Override
+    public void recordSuccess(String username, String clientIp) {
+        attempts.invalidate(userKey(username));
+        attempts.invalidate(ipKey(clientIp));
+        trustedClients.put(clientKey(username, clientIp), Boolean.TRUE);
+    }
+
+    private void fail(String key) {
+        Attempts updated = attempts.asMap().compute(key, (k, current) -> {
+            int failures = current == null ? 1 : current.failures() + 1;
+            long lockedUntil = 0;
+            if (failures > freeAttempts) {
+                int doublings = Math.min(failures - freeAttempts - 1, 30);
+                long lockout = Math.min(maxLockout.toMillis(), baseLockout.toMillis() << doublings);
+                lockedUntil = System.currentTimeMillis() + lockout;
+            }
+            return new Attempts(failures, lockedUntil);
+        });
+        if (updated.lockedUntilMillis() > 0) {
+            log.warn("Login locked for {} after {} failed attempts", key, updated.failures());
+        }
+    }
+
+    private long lockedUntil(String key) {
+        Attempts current = attempts.getIfPresent(key);
+        return current == null ? 0 : current.lockedUntilMillis();
+    }
+
+    private String userKey(String username) {
+        return "user:" + (username == null ? "" : username.toLowerCase(Locale.ROOT));
+    }
+
+    private String ipKey(String clientIp) {
+        return "ip:" + clientIp;
+    }
+
+    private String clientKey(String username, String clientIp) {
+        return userKey(username) + "|" + ipKey(clientIp);
+    }
+}
@@ -8,12 +8,15 @@ import com.firmament.immigration.exception.ResourceNotFoundException;
 import com.firmament.immigration.repository.AppointmentRepository;
 import com.firmament.immigration.service.EmailService;
 import com.firmament.immigration.service.PaymentService;
+import com.firmament.immigration.util.Observations;
 import com.stripe.exception.SignatureVerificationException;
 import com.stripe.exception.StripeException;
 import com.stripe.model.Event;
 import com.stripe.model.PaymentIntent;
 import com.stripe.net.Webhook;
 import com.stripe.param.PaymentIntentCreateParams;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -28,6 +31,7 @@ public class PaymentServiceImpl implements PaymentService {
 
     private final AppointmentRepository appointmentRepository;
     private final EmailService emailService;
+    private final ObservationRegistry observationRegistry;
 
     @Value("${stripe.webhook.secret}")
     private String webhookSecret;
@@ -56,7 +60,7 @@ public class PaymentServiceImpl implements PaymentService {
                     .putMetadata("clientEmail", appointment.getEmail())
                     .build();
 
-            PaymentIntent intent = PaymentIntent.create(params);
+            PaymentIntent intent = callStripe("payment_intent.create", () -> PaymentIntent.create(params));
 
             // Store payment intent ID
             appointment.setPaymentIntentId(intent.getId());
@@ -77,7 +81,7 @@ public class PaymentServiceImpl implements PaymentService {
     @Override
     public PaymentIntent confirmPayment(String paymentIntentId) {
         try {
-            return PaymentIntent.retrieve(paymentIntentId);
+            return callStripe("payment_intent.retrieve", () -> PaymentIntent.retrieve(paymentIntentId));
         } catch (StripeException e) {
             log.error("Error retrieving payment intent", e);
             throw new BusinessException("Failed to retrieve payment status");
@@ -118,6 +122,13 @@ public class PaymentServiceImpl implements PaymentService {
         }
     }
 
+    // Stripe API calls: a span each, and a timer by operation and outcome
+    private <T> T callStripe(String operation, Observations.Call<T, StripeException> call) throws StripeException {
+        return Observations.observe(Observation.createNotStarted("immigration.stripe.requests", observationRegistry)
+                .contextualName("stripe " + operation)
+                .lowCardinalityKeyValue("operation", operation), call);
+    }
+
     private void handlePaymentSuccess(PaymentIntent paymentIntent) {
         String appointmentId = paymentIntent.getMetadata().get("appointmentId");
         if (appointmentId != null) {
@@ -0,0 +1,298 @@
+package com.firmament.immigration.service.impl;
+
+import com.firmament.immigration.dto.request.CreateUploadSessionRequest;
+import com.firmament.immigration.dto.response.DocumentResponse;
+import com.firmament.immigration.dto.response.UploadSessionResponse;
+import com.firmament.immigration.entity.Appointment;
+import com.firmament.immigration.entity.UploadSession;
+import com.firmament.immigration.exception.BusinessException;
+import com.firmament.immigration.exception.ConflictException;
+import com.firmament.immigration.exception.ResourceNotFoundException;
+import com.firmament.immigration.repository.AppointmentRepository;
+import com.firmament.immigration.repository.UploadSessionRepository;
+import com.firmament.immigration.service.DocumentService;
+import com.firmament.immigration.service.DocumentService.StoredUpload;
+import com.firmament.immigration.service.ResumableUploadService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * tus-style resumable uploads. Each PATCH is written at its offset into a per-session temp
+ * file; the offset only advances once the bytes are on disk, so a client whose connection
+ * drops can ask for the offset and continue from there. Not transactional on purpose: a
+ * slow chunk must not hold a database connection while it streams in.
+ * <p>
+ * The part files live under app.upload.temp-path, which must be storage shared by every node
+ * (NFS, EFS, a shared volume) when more than one runs: a chunk may reach any node. A node that
+ * does not see the earlier chunks answers 409 instead of writing past a gap.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ResumableUploadServiceImpl implements ResumableUploadService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final DocumentService documentService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.upload.resumable.max-file-size:100MB}")
+    private DataSize maxFileSize;
+
+    @Value("${app.upload.resumable.session-ttl-hours:24}")
+    private long sessionTtlHours;
+
+    @Value("${app.upload.temp-path}")
+    private String tempPath;
+
+    @Override
+    public UploadSessionResponse createSession(String appointmentId, CreateUploadSessionRequest request) {
+        Appointment appointment = appointmentRepository.findById(appointmentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Appointment not found"));
+        documentService.validateFileName(request.getFileName());
+        if (request.getFileSize() > maxFileSize.toBytes()) {
+            throw new BusinessException("File size exceeds " + maxFileSize.toMegabytes() + "MB");
+        }
+
+        UploadSession session = UploadSession.builder()
+                .fileName(request.getFileName())
+                .fileType(request.getFileType() != null ? request.getFileType() : "application/octet-stream")
+                .totalSize(request.getFileSize())
+                .uploadedBytes(0L)
+                .expiresAt(ZonedDateTime.now(ZoneOffset.UTC).plusHours(sessionTtlHours))
+                .appointment(appointment)
+                .build();
+        session = uploadSessionRepository.save(session);
+
+        log.info("Created upload session {} for appointment: {} ({} bytes)",
+                session.getId(), appointmentId, session.getTotalSize());
+        return mapToResponse(session, null);
+    }
+
+    @Override
+    public UploadSessionResponse getSession(String sessionId) {
+        return mapToResponse(findActiveSession(sessionId), null);
+    }
+
+    @Override
+    public UploadSessionResponse appendChunk(String sessionId, long offset, InputStream content) {
+        findActiveSession(sessionId);
+
+        Path part = partFile(sessionId);
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock ignored = lockForWriting(channel)) {
+
+            // Re-read under the lock: another chunk may have landed since the first lookup
+            UploadSession session = findActiveSession(sessionId);
+            if (offset != session.getUploadedBytes()) {
+                throw new ConflictException("Upload offset mismatch, expected " + session.getUploadedBytes());
+            }
+            checkPartFile(channel, session);
+
+            ReadableByteChannel source = Channels.newChannel(content);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            long maxBytes = session.getTotalSize() - offset;
+            long written = 0;
+            try {
+                while (written < maxBytes) {
+                    buffer.clear().limit((int) Math.min(BUFFER_SIZE, maxBytes - written));
+                    if (source.read(buffer) < 0) break;
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        written += channel.write(buffer, offset + written);
+                    }
+                }
+                if (content.read() != -1) {
+                    throw new BusinessException("Chunk exceeds the declared upload length");
+                }
+            } catch (IOException | RuntimeException e) {
+                // Keep whatever reached the disk, even when the client dropped mid-chunk
+                if (written > 0) {
+                    try {
+                        recordProgress(channel, session, offset, written);
+                    } catch (IOException | RuntimeException progressFailure) {
+                        e.addSuppressed(progressFailure);
+                    }
+                }
+                throw e;
+            }
+            if (written > 0) {
+                recordProgress(channel, session, offset, written);
+            }
+
+            DocumentResponse document = null;
+            if (session.getUploadedBytes().equals(session.getTotalSize())) {
+                document = complete(session, part);
+            }
+            return mapToResponse(session, document);
+
+        } catch (IOException e) {
+            log.warn("Upload session {} interrupted at offset {}", sessionId, offset, e);
+            throw new BusinessException("Upload interrupted. Query the session offset and resume.");
+        }
+    }
+
+    @Override
+    public void abortSession(String sessionId) {
+        UploadSession session = uploadSessionRepository.findById(sessionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Upload session not found"));
+        discard(session);
+        log.info("Upload session {} aborted", sessionId);
+    }
+
+    @Override
+    public void purgeExpiredSessions() {
+        List<UploadSession> expired = uploadSessionRepository.findByExpiresAtBefore(ZonedDateTime.now(ZoneOffset.UTC));
+        expired.forEach(this::discard);
+        if (!expired.isEmpty()) {
+            log.info("Removed {} expired upload session(s)", expired.size());
+        }
+    }
+
+    /**
+     * Stores the assembled file first, then deletes the session and registers the document in
+     * one short transaction, so the transfer to the storage holds no connection or row lock.
+     * A failure leaves both the session and the part file in place and an empty PATCH at the
+     * final offset retries this step; a blob stored for a registration that then failed is
+     * removed again. The storage may move the file it is given, so it gets a link to the part
+     * rather than the part itself.
+     */
+    private DocumentResponse complete(UploadSession session, Path part) throws IOException {
+        String appointmentId = session.getAppointment().getId();
+        StoredUpload upload;
+        Path assembled = linkForStorage(part);
+        try {
+            upload = documentService.storeUpload(appointmentId, session.getFileName(), session.getFileType(), assembled);
+        } catch (RuntimeException e) {
+            log.error("Failed to store upload session {}", session.getId(), e);
+            throw e;
+        } finally {
+            Files.deleteIfExists(assembled);
+        }
+
+        try {
+            DocumentResponse document = transactionTemplate.execute(status -> {
+                // Deleting first locks the row: a concurrent completion waits, then finds it gone
+                if (uploadSessionRepository.deleteSession(session.getId()) == 0) {
+                    throw new ConflictException("Upload session has already been completed");
+                }
+                return documentService.registerUpload(appointmentId, upload);
+            });
+            Files.deleteIfExists(part);
+            log.info("Upload session {} completed as document {}", session.getId(), document.getId());
+            return document;
+        } catch (RuntimeException e) {
+            log.error("Failed to finalize upload session {}", session.getId(), e);
+            documentService.discardUpload(upload);
+            throw e;
+        }
+    }
+
+    private Path linkForStorage(Path part) throws IOException {
+        Path link = part.resolveSibling(part.getFileName() + ".complete");
+        Files.deleteIfExists(link);
+        try {
+            return Files.createLink(link, part);
+        } catch (UnsupportedOperationException | IOException e) {
+            return Files.copy(part, link);
+        }
+    }
+
+    /**
+     * The part file must hold exactly the bytes the session has recorded. It holds fewer when
+     * this node does not have the file (app.upload.temp-path is not shared between nodes) or
+     * it was lost; writing at the offset would then register a zero-padded document. It holds
+     * more when a chunk reached the disk but its offset was never recorded; those bytes were
+     * not acknowledged and are dropped.
+     */
+    private void checkPartFile(FileChannel channel, UploadSession session) throws IOException {
+        long onDisk = channel.size();
+        if (onDisk < session.getUploadedBytes()) {
+            log.warn("Upload session {} has {} of {} recorded bytes on this node", session.getId(),
+                    onDisk, session.getUploadedBytes());
+            throw new ConflictException("Uploaded data for this session is not available. Please restart the upload.");
+        }
+        if (onDisk > session.getUploadedBytes()) {
+            channel.truncate(session.getUploadedBytes());
+        }
+    }
+
+    private void recordProgress(FileChannel channel, UploadSession session, long offset, long written) throws IOException {
+        channel.force(false);
+        if (uploadSessionRepository.advanceOffset(session.getId(), offset, offset + written) == 0) {
+            throw new ConflictException("Upload offset changed concurrently");
+        }
+        session.setUploadedBytes(offset + written);
+    }
+
+    private FileLock lockForWriting(FileChannel channel) throws IOException {
+        try {
+            FileLock lock = channel.tryLock();
+            if (lock != null) return lock;
+        } catch (OverlappingFileLockException e) {
+            // Held by another request in this JVM
+        }
+        throw new ConflictException("Another chunk is being written to this upload");
+    }
+
+    private UploadSession findActiveSession(String sessionId) {
+        UploadSession session = uploadSessionRepository.findById(sessionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Upload session not found"));
+        if (session.getExpiresAt().isBefore(ZonedDateTime.now(ZoneOffset.UTC))) {
+            throw new ResourceNotFoundException("Upload session has expired");
+        }
+        return session;
+    }
+
+    private void discard(UploadSession session) {
+        try {
+            Files.deleteIfExists(partFile(session.getId()));
+        } catch (IOException e) {
+            log.warn("Failed to delete partial upload for session: {}", session.getId(), e);
+        }
+        uploadSessionRepository.deleteById(session.getId());
+    }
+
+    private Path partFile(String sessionId) {
+        Path dir = Paths.get(tempPath, "sessions");
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create upload session directory: " + dir, e);
+        }
+        return dir.resolve(sessionId + ".part");
+    }
+
+    private UploadSessionResponse mapToResponse(UploadSession session, DocumentResponse document) {
+        return UploadSessionResponse.builder()
+                .id(session.getId())
+                .fileName(session.getFileName())
+                .offset(session.getUploadedBytes())
+                .length(session.getTotalSize())
+                .expiresAt(session.getExpiresAt())
+                .document(document)
+                .build();
+    }
+}
@@ -0,0 +1,96 @@
+package com.firmament.immigration.service.impl;
+
+import com.firmament.immigration.service.TokenRevocationService;
+import com.firmament.immigration.util.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Denylist of revoked token ids (jti). A Bloom filter answers "definitely not revoked" for
+ * almost every request without touching the exact map; only filter hits are confirmed
+ * against the map. Entries are dropped once the token would have expired anyway, and the
+ * filter is rebuilt from the map at the same time since a Bloom filter cannot forget.
+ */
+@Service
+@Slf4j
+public class TokenRevocationServiceImpl implements TokenRevocationService {
+
+    public static final String CHANNEL = "immigration:token-revocations";
+    public static final String KEY_PREFIX = "immigration:revoked-token:";
+
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+    private final ObjectProvider<StringRedisTemplate> redisTemplate;
+    private final int expectedRevocations;
+    private final boolean redisSync;
+    private volatile BloomFilter filter;
+
+    public TokenRevocationServiceImpl(ObjectProvider<StringRedisTemplate> redisTemplate,
+                                      @Value("${app.auth.revocation.expected-revocations:10000}") int expectedRevocations,
+                                      @Value("${app.auth.revocation.redis-sync.enabled:false}") boolean redisSync) {
+        this.redisTemplate = redisTemplate;
+        this.expectedRevocations = expectedRevocations;
+        this.redisSync = redisSync;
+        this.filter = newFilter();
+    }
+
+    @Override
+    public void revoke(String tokenId, Instant expiresAt) {
+        revokeLocally(tokenId, expiresAt);
+        log.info("Token {} revoked until {}", tokenId, expiresAt);
+
+        if (redisSync) {
+            // Other nodes pick the message up now; the key covers nodes that start later
+            try {
+                StringRedisTemplate redis = redisTemplate.getObject();
+                Duration ttl = Duration.between(Instant.now(), expiresAt);
+                if (!ttl.isNegative() && !ttl.isZero()) {
+                    redis.opsForValue().set(KEY_PREFIX + tokenId, String.valueOf(expiresAt.toEpochMilli()), ttl);
+                }
+                redis.convertAndSend(CHANNEL, tokenId + ":" + expiresAt.toEpochMilli());
+            } catch (Exception e) {
+                log.error("Failed to publish revocation of token {}, other nodes will still accept it", tokenId, e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void revokeLocally(String tokenId, Instant expiresAt) {
+        if (tokenId == null || !expiresAt.isAfter(Instant.now())) return;
+        revoked.put(tokenId, expiresAt);
+        filter.put(tokenId);
+    }
+
+    @Override
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null || !filter.mightContain(tokenId)) {
+            return false;
+        }
+        Instant expiresAt = revoked.get(tokenId);
+        return expiresAt != null && expiresAt.isAfter(Instant.now());
+    }
+
+    @Override
+    public synchronized void purgeExpired() {
+        Instant now = Instant.now();
+        int before = revoked.size();
+        revoked.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+        if (revoked.size() == before) return;
+
+        BloomFilter rebuilt = newFilter();
+        revoked.keySet().forEach(rebuilt::put);
+        filter = rebuilt;
+        log.info("Dropped {} expired token revocation(s), {} remaining", before - revoked.size(), revoked.size());
+    }
+
+    private BloomFilter newFilter() {
+        return new BloomFilter(expectedRevocations, 0.01);
+    }
+}
@@ -1,28 +1,81 @@
 package com.firmament.immigration.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtil {
 
-    @Value("${app.jwt.secret}")
-    private String secret;
+    /**
+     * The verified content of a token
+     */
+    public record JwtPrincipal(String tokenId, String username, String role, Instant expiresAt) {
+        public boolean isExpired() {
+            return !expiresAt.isAfter(Instant.now());
+        }
+    }
+
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final Long expiration;
+    private final Cache<String, JwtPrincipal> verifiedTokens;
 
-    @Value("${app.jwt.expiration}")
-    private Long expiration;
+    // One timer per result, registered up front since parse runs on every authenticated request
+    private final Timer cacheHits;
+    private final Timer verified;
+    private final Timer expired;
+    private final Timer rejected;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    public JwtUtil(@Value("${app.jwt.secret}") String secret,
+                   @Value("${app.jwt.expiration}") Long expiration,
+                   @Value("${app.jwt.cache.max-size:10000}") long cacheMaxSize,
+                   MeterRegistry meterRegistry) {
+        // Key and parser are immutable and thread-safe, so build them once
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        this.expiration = expiration;
+        this.verifiedTokens = cacheMaxSize > 0
+                ? Caffeine.newBuilder()
+                        .maximumSize(cacheMaxSize)
+                        .expireAfter(Expiry.<String, JwtPrincipal>creating(
+                                (hash, principal) -> Duration.between(Instant.now(), principal.expiresAt())))
+                        .build()
+                : null;
+        this.cacheHits = verifyTimer(meterRegistry, "cached");
+        this.verified = verifyTimer(meterRegistry, "verified");
+        this.expired = verifyTimer(meterRegistry, "expired");
+        this.rejected = verifyTimer(meterRegistry, "rejected");
+    }
+
+    private static Timer verifyTimer(MeterRegistry registry, String result) {
+        return Timer.builder("immigration.jwt.verify")
+                .description("Token verification, including verified-token cache hits")
+                .tag("result", result)
+                .register(registry);
     }
 
     public String generateToken(String username, String role) {
@@ -34,39 +87,63 @@ public class JwtUtil {
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .claims(claims)
+                .id(UUID.randomUUID().toString()) // jti, lets a single token be revoked
                 .subject(subject)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
-    public Boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
-    }
-
-    public String extractUsername(String token) {
-        return extractAllClaims(token).getSubject();
-    }
-
-    public String extractRole(String token) {
-        return extractAllClaims(token).get("role", String.class);
-    }
-
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    /**
+     * Verify the token once and return its principal. Verified tokens are remembered
+     * until they expire, so repeated requests with the same token skip signature checks.
+     *
+     * @throws JwtException if the token is malformed, forged or expired
+     */
+    public JwtPrincipal parse(String token) {
+        long start = System.nanoTime();
+        Timer timer = rejected;
+        try {
+            if (verifiedTokens == null) {
+                JwtPrincipal principal = verify(token);
+                timer = verified;
+                return principal;
+            }
+            String key = hash(token);
+            JwtPrincipal cached = verifiedTokens.getIfPresent(key);
+            if (cached != null && !cached.isExpired()) {
+                timer = cacheHits;
+                return cached;
+            }
+            JwtPrincipal principal = verify(token);
+            verifiedTokens.put(key, principal);
+            timer = verified;
+            return principal;
+        } catch (ExpiredJwtException e) {
+            timer = expired;
+            throw e;
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private JwtPrincipal verify(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        return new JwtPrincipal(
+                claims.getId(),
+                claims.getSubject(),
+                claims.get("role", String.class),
+                claims.getExpiration().toInstant());
     }
 
-    private Date extractExpiration(String token) {
-        return extractAllClaims(token).getExpiration();
+    // Cache key: the raw token is never kept in memory, only its digest
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
-}
\ No newline at end of file
+}
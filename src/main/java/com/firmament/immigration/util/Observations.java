@@ -0,0 +1,40 @@
+package com.firmament.immigration.util;
+
+import io.micrometer.observation.Observation;
+
+/**
+ * Runs calls to external services (Stripe, Cloudinary, mail) under an observation, so each
+ * gets a span and a timer, all tagged with {@code outcome} the same way: success only when
+ * the call returned, failure for anything it threw.
+ */
+public final class Observations {
+
+    public static final String OUTCOME = "outcome";
+
+    private Observations() {
+    }
+
+    /**
+     * Start {@code observation}, run {@code call} in its scope and stop it with the outcome.
+     * A failure is also recorded as the observation's error and rethrown.
+     */
+    public static <T, E extends Exception> T observe(Observation observation, Call<T, E> call) throws E {
+        observation.start();
+        String outcome = "failure";
+        try (Observation.Scope scope = observation.openScope()) {
+            T result = call.execute();
+            outcome = "success";
+            return result;
+        } catch (Exception e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.lowCardinalityKeyValue(OUTCOME, outcome).stop();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Call<T, E extends Exception> {
+        T execute() throws E;
+    }
+}
@@ -0,0 +1,48 @@
+package com.firmament.immigration.util;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token bucket. The token count and last refill time are swapped together with a
+ * CAS, so concurrent requests never block each other.
+ */
+public class TokenBucket {
+
+    private record State(double tokens, long refilledAt) {}
+
+    private final long capacity;
+    private final double tokensPerNano;
+    private final LongSupplier nanoClock;
+    private final AtomicReference<State> state;
+
+    public TokenBucket(long capacity, long refillPerMinute) {
+        this(capacity, refillPerMinute, System::nanoTime);
+    }
+
+    public TokenBucket(long capacity, long refillPerMinute, LongSupplier nanoClock) {
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerMinute / 60_000_000_000d;
+        this.nanoClock = nanoClock;
+        this.state = new AtomicReference<>(new State(capacity, nanoClock.getAsLong()));
+    }
+
+    /**
+     * Take one token.
+     *
+     * @return 0 if the request may proceed, otherwise nanoseconds until a token is available
+     */
+    public long tryConsume() {
+        while (true) {
+            State current = state.get();
+            long now = nanoClock.getAsLong();
+            double tokens = Math.min(capacity, current.tokens() + (now - current.refilledAt()) * tokensPerNano);
+            if (tokens < 1) {
+                return (long) Math.ceil((1 - tokens) / tokensPerNano);
+            }
+            if (state.compareAndSet(current, new State(tokens - 1, now))) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.firmament.immigration.config;
+
+import com.firmament.immigration.config.TwoLevelCacheProperties.Codec;
+import com.firmament.immigration.dto.response.DayAvailabilityResponse;
+import com.firmament.immigration.dto.response.MonthAvailabilityResponse;
+import com.firmament.immigration.dto.response.TimeSlotDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheValueSerializerTest {
+
+	private static final int THRESHOLD = 1024;
+
+	@ParameterizedTest
+	@EnumSource(value = Codec.class, names = {"JSON", "SMILE"})
+	void smallValueRoundTripsUncompressed(Codec codec) {
+		CacheValueSerializer serializer = new CacheValueSerializer(codec, THRESHOLD, 1);
+		MonthAvailabilityResponse month = month();
+
+		byte[] bytes = serializer.serialize(month);
+
+		assertThat(lz4(bytes)).isFalse();
+		assertThat(serializer.deserialize(bytes)).isEqualTo(month);
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = Codec.class, names = {"JSON", "SMILE"})
+	void valueAboveTheThresholdRoundTripsThroughLz4(Codec codec) {
+		CacheValueSerializer serializer = new CacheValueSerializer(codec, THRESHOLD, 1);
+		DayAvailabilityResponse day = day(200);
+
+		byte[] bytes = serializer.serialize(day);
+
+		assertThat(lz4(bytes)).isTrue();
+		assertThat(bytes.length).isLessThan(new CacheValueSerializer(codec, 0, 1).serialize(day).length);
+		assertThat(serializer.deserialize(bytes)).isEqualTo(day);
+	}
+
+	@Test
+	void entriesAreReadByTheirHeaderNotTheReadersSettings() {
+		DayAvailabilityResponse day = day(200);
+		byte[] json = new CacheValueSerializer(Codec.JSON, 0, 1).serialize(day);
+
+		assertThat(new CacheValueSerializer(Codec.SMILE, THRESHOLD, 1).deserialize(json)).isEqualTo(day);
+	}
+
+	@Test
+	void entryOfAnotherPayloadVersionIsAMiss() {
+		byte[] bytes = new CacheValueSerializer(Codec.SMILE, THRESHOLD, 1).serialize(day(4));
+
+		assertThat(new CacheValueSerializer(Codec.SMILE, THRESHOLD, 2).deserialize(bytes)).isNull();
+	}
+
+	@Test
+	void foreignBytesAreAMiss() {
+		CacheValueSerializer serializer = new CacheValueSerializer(Codec.SMILE, THRESHOLD, 1);
+
+		assertThat(serializer.deserialize(RedisSerializer.java().serialize(day(4)))).isNull();
+		assertThat(serializer.deserialize("{\"date\":[2030,1,7]}".getBytes(StandardCharsets.UTF_8))).isNull();
+		assertThat(serializer.deserialize(new byte[]{(byte) 0xFC, 1, 2})).isNull();
+	}
+
+	@Test
+	void typesOutsideTheApplicationOrNoLongerPresentAreAMiss() {
+		CacheValueSerializer serializer = new CacheValueSerializer(Codec.JSON, 0, 1);
+
+		assertThat(serializer.deserialize(entry("java.util.HashMap", "{}"))).isNull();
+		assertThat(serializer.deserialize(entry("com.firmament.immigration.dto.response.RemovedResponse", "{}"))).isNull();
+		assertThat(serializer.deserialize(entry(MonthAvailabilityResponse.class.getName(), "{\"year\":2030}")))
+				.isInstanceOf(MonthAvailabilityResponse.class);
+	}
+
+	@Test
+	void damagedEntryIsAMiss() {
+		CacheValueSerializer serializer = new CacheValueSerializer(Codec.SMILE, THRESHOLD, 1);
+		byte[] bytes = serializer.serialize(day(200));
+
+		assertThat(serializer.deserialize(Arrays.copyOf(bytes, bytes.length / 2))).isNull();
+	}
+
+	@Test
+	void nullIsStoredAsNoBytes() {
+		CacheValueSerializer serializer = new CacheValueSerializer(Codec.SMILE, THRESHOLD, 1);
+
+		assertThat(serializer.serialize(null)).isEmpty();
+		assertThat(serializer.deserialize(new byte[0])).isNull();
+		assertThat(serializer.deserialize(null)).isNull();
+	}
+
+	// magic, envelope version, format, flags, payload version, type
+	private static byte[] entry(String type, String json) {
+		byte[] typeName = type.getBytes(StandardCharsets.UTF_8);
+		byte[] body = json.getBytes(StandardCharsets.UTF_8);
+		return ByteBuffer.allocate(10 + typeName.length + body.length)
+				.put((byte) 0xFC).put((byte) 1).put((byte) 1).put((byte) 0)
+				.putInt(1)
+				.putShort((short) typeName.length).put(typeName)
+				.put(body)
+				.array();
+	}
+
+	private static boolean lz4(byte[] entry) {
+		return (entry[3] & 1) != 0;
+	}
+
+	private static DayAvailabilityResponse day(int slots) {
+		DayAvailabilityResponse day = new DayAvailabilityResponse();
+		day.setDate(LocalDate.of(2030, 1, 7));
+		day.setTimezone("America/Montreal");
+		day.setAvailableSlots(IntStream.range(0, slots).mapToObj(i -> {
+			TimeSlotDto slot = new TimeSlotDto();
+			slot.setStartTime(LocalTime.of(8, 0).plusMinutes(15L * i));
+			slot.setAvailable30Min(true);
+			slot.setAvailable60Min(i % 2 == 0);
+			return slot;
+		}).toList());
+		return day;
+	}
+
+	private static MonthAvailabilityResponse month() {
+		MonthAvailabilityResponse month = new MonthAvailabilityResponse();
+		month.setYear(2030);
+		month.setMonth(1);
+		month.setTimezone("UTC");
+		month.setDayAvailability(Map.of(7, true, 8, false));
+		return month;
+	}
+}
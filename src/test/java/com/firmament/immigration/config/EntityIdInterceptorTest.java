@@ -0,0 +1,42 @@
+package com.firmament.immigration.config;
+
+import com.firmament.immigration.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EntityIdInterceptorTest {
+
+	private final EntityIdInterceptor interceptor = new EntityIdInterceptor();
+
+	@Test
+	void uuidPathIdsPass() {
+		assertThat(preHandle(Map.of("appointmentId", "0192f1c4-8a7e-7b3d-9f21-5c6d7e8f9a0b"))).isTrue();
+	}
+
+	@Test
+	void malformedPathIdIsNotFound() {
+		assertThatThrownBy(() -> preHandle(Map.of("documentId", "not-a-uuid")))
+				.isInstanceOf(ResourceNotFoundException.class);
+		// UUID.fromString would accept this one
+		assertThatThrownBy(() -> preHandle(Map.of("id", "1-2-3-4-5")))
+				.isInstanceOf(ResourceNotFoundException.class);
+	}
+
+	@Test
+	void otherPathVariablesAreLeftAlone() {
+		assertThat(preHandle(Map.of("year", "2026", "month", "10"))).isTrue();
+	}
+
+	private boolean preHandle(Map<String, String> variables) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, variables);
+		return interceptor.preHandle(request, new MockHttpServletResponse(), new Object());
+	}
+}
@@ -0,0 +1,48 @@
+package com.firmament.immigration.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Metrics export is off in tests unless asked for
+@AutoConfigureObservability(tracing = false)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "management.server.port=0")
+class ManagementSecurityTest {
+
+	@LocalServerPort
+	private int port;
+
+	@LocalManagementPort
+	private int managementPort;
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Test
+	void prometheusIsScrapedOnTheManagementPortOnly() {
+		ResponseEntity<String> scrape = restTemplate.getForEntity(url(managementPort, "/actuator/prometheus"), String.class);
+		assertThat(scrape.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(scrape.getBody()).contains("jvm_memory_used_bytes");
+
+		ResponseEntity<String> publicScrape = restTemplate.getForEntity(url(port, "/actuator/prometheus"), String.class);
+		assertThat(publicScrape.getStatusCode().is4xxClientError()).isTrue();
+	}
+
+	@Test
+	void otherActuatorEndpointsNeedAToken() {
+		ResponseEntity<String> health = restTemplate.getForEntity(url(managementPort, "/actuator/health"), String.class);
+		assertThat(health.getStatusCode().is4xxClientError()).isTrue();
+	}
+
+	private static String url(int port, String path) {
+		return "http://localhost:" + port + path;
+	}
+}
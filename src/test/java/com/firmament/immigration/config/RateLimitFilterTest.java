@@ -0,0 +1,148 @@
+package com.firmament.immigration.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.options;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class RateLimitFilterTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@SuppressWarnings("unchecked")
+	private final ObjectProvider<StringRedisTemplate> redisProvider = mock(ObjectProvider.class);
+
+	@Test
+	void requestsBeyondTheBucketGet429WithRetryAfter() throws Exception {
+		MockMvc mvc = mvc(config(false));
+
+		mvc.perform(post("/api/appointments")).andExpect(status().isOk());
+		mvc.perform(post("/api/appointments")).andExpect(status().isOk());
+		MvcResult rejected = mvc.perform(post("/api/appointments"))
+				.andExpect(status().isTooManyRequests())
+				.andExpect(jsonPath("$.status").value(429))
+				.andReturn();
+
+		// A token a minute, less the time the first requests took
+		long retryAfter = Long.parseLong(rejected.getResponse().getHeader(HttpHeaders.RETRY_AFTER));
+		assertThat(retryAfter).isBetween(50L, 60L);
+		assertThat(rejected.getResponse().getContentAsString())
+				.contains("Rate limit exceeded. Retry in " + retryAfter + " seconds.");
+
+		// Buckets are per client
+		mvc.perform(post("/api/appointments").with(request -> {
+			request.setRemoteAddr("203.0.113.20");
+			return request;
+		})).andExpect(status().isOk());
+		mvc.perform(options("/api/appointments")).andExpect(status().isOk());
+
+		assertThat(meterRegistry.get("immigration.rate_limit.rejected")
+				.tags("rule", "create-appointment", "scope", "local").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void onlyTheFirstMatchingRuleIsApplied() throws Exception {
+		MockMvc mvc = mvc(config(false));
+
+		// Counted by create-appointment alone, so the catch-all bucket of one stays full
+		mvc.perform(post("/api/appointments")).andExpect(status().isOk());
+		mvc.perform(post("/api/appointments")).andExpect(status().isOk());
+
+		// GET does not match create-appointment and falls through to the catch-all rule
+		mvc.perform(get("/api/appointments")).andExpect(status().isOk());
+		mvc.perform(get("/api/appointments")).andExpect(status().isTooManyRequests());
+	}
+
+	@Test
+	void globalLimitIsEnforcedThroughRedis() throws Exception {
+		StringRedisTemplate redis = mock(StringRedisTemplate.class);
+		@SuppressWarnings("unchecked")
+		ValueOperations<String, String> values = mock(ValueOperations.class);
+		when(redisProvider.getObject()).thenReturn(redis);
+		when(redis.opsForValue()).thenReturn(values);
+		when(values.increment(anyString())).thenReturn(1L, 3L);
+		MockMvc mvc = mvc(config(true));
+
+		mvc.perform(post("/api/appointments")).andExpect(status().isOk());
+		mvc.perform(post("/api/appointments"))
+				.andExpect(status().isTooManyRequests())
+				.andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+
+		assertThat(meterRegistry.get("immigration.rate_limit.rejected")
+				.tags("rule", "create-appointment", "scope", "global").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void unavailableRedisFailsOpen() throws Exception {
+		when(redisProvider.getObject()).thenThrow(new RedisConnectionFailureException("Connection refused"));
+		MockMvc mvc = mvc(config(true));
+
+		mvc.perform(post("/api/appointments")).andExpect(status().isOk());
+		mvc.perform(post("/api/appointments")).andExpect(status().isOk());
+		// The local bucket still applies
+		mvc.perform(post("/api/appointments")).andExpect(status().isTooManyRequests());
+	}
+
+	private MockMvc mvc(RateLimitConfig config) {
+		ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+		return MockMvcBuilders.standaloneSetup(new StubController())
+				.addFilters(new RateLimitFilter(config, objectMapper, redisProvider, meterRegistry))
+				.build();
+	}
+
+	// Two bookings a client, refilled once a minute, then a catch-all rule of one request
+	private static RateLimitConfig config(boolean redisEnabled) {
+		RateLimitConfig config = new RateLimitConfig();
+		config.setRedisEnabled(redisEnabled);
+		config.getRules().put("create-appointment", rule("/api/appointments", List.of("POST"), 2, 1, 2));
+		config.getRules().put("api", rule("/api/**", List.of(), 1, 1, 0));
+		return config;
+	}
+
+	private static RateLimitConfig.Rule rule(String pattern, List<String> methods, long capacity,
+											 long refillPerMinute, long globalLimitPerMinute) {
+		RateLimitConfig.Rule rule = new RateLimitConfig.Rule();
+		rule.setPattern(pattern);
+		rule.setMethods(methods);
+		rule.setCapacity(capacity);
+		rule.setRefillPerMinute(refillPerMinute);
+		rule.setGlobalLimitPerMinute(globalLimitPerMinute);
+		return rule;
+	}
+
+	@RestController
+	static class StubController {
+
+		@PostMapping("/api/appointments")
+		void create() {
+		}
+
+		@GetMapping("/api/appointments")
+		void list() {
+		}
+	}
+}
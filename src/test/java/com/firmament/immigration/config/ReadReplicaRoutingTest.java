@@ -0,0 +1,95 @@
+package com.firmament.immigration.config;
+
+import com.firmament.immigration.service.AvailabilityVersionTracker;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two embedded databases: the usual in-memory primary and a second one standing in for the
+ * replica. Queries report which one they ran on.
+ */
+@SpringBootTest(properties = {
+		"app.read-replicas.enabled=true",
+		"app.read-replicas.nodes[0].url=" + ReadReplicaRoutingTest.REPLICA_URL + ";IFEXISTS=TRUE",
+		"app.read-replicas.nodes[0].username=sa",
+		"app.read-replicas.read-your-writes-window-ms=1000"
+})
+class ReadReplicaRoutingTest {
+
+	static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private ReadReplicaRouter readReplicaRouter;
+
+	@Autowired
+	private AvailabilityVersionTracker availabilityVersionTracker;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@BeforeAll
+	static void createReplica() throws SQLException {
+		// Kept open by DB_CLOSE_DELAY; the replica pool only attaches to an existing database
+		DriverManager.getConnection(REPLICA_URL, "sa", "").close();
+	}
+
+	@Test
+	void readOnlyTransactionsGoToTheReplica() {
+		assertThat(databaseName(TransactionDefinition.PROPAGATION_REQUIRED, true)).isEqualTo("REPLICA");
+		assertThat(databaseName(TransactionDefinition.PROPAGATION_SUPPORTS, true)).isEqualTo("REPLICA");
+		assertThat(databaseName(TransactionDefinition.PROPAGATION_REQUIRED, false)).isEqualTo("TESTDB");
+	}
+
+	@Test
+	void readsStayOnThePrimaryRightAfterAnAvailabilityChange() throws InterruptedException {
+		availabilityVersionTracker.bumpLocally(List.of(LocalDate.now()));
+		assertThat(databaseName(TransactionDefinition.PROPAGATION_REQUIRED, true)).isEqualTo("TESTDB");
+
+		Thread.sleep(1100);
+		assertThat(databaseName(TransactionDefinition.PROPAGATION_REQUIRED, true)).isEqualTo("REPLICA");
+	}
+
+	@Test
+	void readsFallBackToThePrimaryWhileTheReplicaIsDown() throws Exception {
+		try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "")) {
+			connection.createStatement().execute("SHUTDOWN");
+		}
+		readReplicaRouter.checkHealth();
+		assertThat(readReplicaRouter.healthyReplicas()).isZero();
+		assertThat(databaseName(TransactionDefinition.PROPAGATION_REQUIRED, true)).isEqualTo("TESTDB");
+
+		createReplica();
+		// The pool drops its connections to the old database one check at a time
+		for (int i = 0; i < 20 && readReplicaRouter.healthyReplicas() == 0; i++) {
+			Thread.sleep(100);
+			readReplicaRouter.checkHealth();
+		}
+		assertThat(databaseName(TransactionDefinition.PROPAGATION_REQUIRED, true)).isEqualTo("REPLICA");
+	}
+
+	private String databaseName(int propagation, boolean readOnly) {
+		TransactionTemplate template = new TransactionTemplate(transactionManager);
+		template.setPropagationBehavior(propagation);
+		template.setReadOnly(readOnly);
+		return template.execute(status ->
+				(String) entityManager.createNativeQuery("SELECT DATABASE()").getSingleResult());
+	}
+}
@@ -0,0 +1,83 @@
+package com.firmament.immigration.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two nodes sharing one Redis tier, stood in for by a map and a counter. Invalidation broadcasts
+ * are not delivered, as when they are still in flight.
+ */
+class TwoLevelCacheTest {
+
+	private final ConcurrentMapCache redis = new ConcurrentMapCache("availability-day", false);
+	private final AtomicLong redisGeneration = new AtomicLong();
+
+	private final TwoLevelCache nodeA = node();
+	private final TwoLevelCache nodeB = node();
+
+	@Test
+	void valueLoadedOnOneNodeIsServedFromRedisOnAnother() {
+		AtomicInteger loads = new AtomicInteger();
+
+		assertThat(nodeA.get("2030-01-07|UTC", () -> "slots-" + loads.incrementAndGet())).isEqualTo("slots-1");
+		assertThat(nodeB.get("2030-01-07|UTC", () -> "slots-" + loads.incrementAndGet())).isEqualTo("slots-1");
+		assertThat(loads).hasValue(1);
+	}
+
+	@Test
+	void loadOverlappingAnotherNodesClearIsNotServedFromRedis() throws Exception {
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch written = new CountDownLatch(1);
+
+		// Node A reads the calendar before node B's booking commits...
+		CompletableFuture<String> staleLoad = CompletableFuture.supplyAsync(() -> nodeA.get("2030-01-07|UTC", () -> {
+			loading.countDown();
+			written.await(5, TimeUnit.SECONDS);
+			return "before booking";
+		}));
+		assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+		// ...node B commits and clears, and only then does A finish and store its value
+		nodeB.clear();
+		written.countDown();
+		assertThat(staleLoad.get(5, TimeUnit.SECONDS)).isEqualTo("before booking");
+
+		assertThat(nodeB.get("2030-01-07|UTC", () -> "after booking")).isEqualTo("after booking");
+		assertThat(node().get("2030-01-07|UTC", () -> "after booking")).isEqualTo("after booking");
+	}
+
+	@Test
+	void redisEntriesFromBeforeAClearAreNotServed() {
+		nodeA.get("2030-01-07|UTC", () -> "before booking");
+		nodeA.clear();
+
+		assertThat(nodeB.get("2030-01-07|UTC", () -> "after booking")).isEqualTo("after booking");
+	}
+
+	private TwoLevelCache node() {
+		TwoLevelCache.Generation generation = new TwoLevelCache.Generation() {
+			@Override
+			public long current() {
+				return redisGeneration.get();
+			}
+
+			@Override
+			public void advance() {
+				redisGeneration.incrementAndGet();
+			}
+		};
+		return new TwoLevelCache("availability-day", Caffeine.newBuilder().build(), redis, generation,
+				key -> {
+				}, new SimpleMeterRegistry());
+	}
+}
@@ -0,0 +1,298 @@
+package com.firmament.immigration.repository;
+
+import com.firmament.immigration.entity.AppointmentStatus;
+import com.firmament.immigration.entity.DerivativeJobStatus;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.repository.Repository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs every repository query against a generated dataset of ten years of bookings, replays each
+ * SQL statement it issued under EXPLAIN and fails on a full table scan or when the query takes
+ * longer than the latency budget. A new repository method fails {@link #everyRepositoryQueryHasACase()}
+ * until it gets a case here.
+ * <p>
+ * The schema comes from the Liquibase changelog and the data from the datagen profile, as in
+ * production but smaller. Runs on the embedded H2 by default; pointing {@code spring.datasource.*}
+ * at an empty Postgres database checks its plans instead.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:queryplans",
+		"spring.jpa.show-sql=false",
+		"spring.jpa.properties.hibernate.generate_statistics=false",
+		// Every call must reach the database
+		"spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+		"spring.jpa.properties.hibernate.cache.use_query_cache=false",
+		"app.datagen.history-years=" + QueryPlanRegressionTest.HISTORY_YEARS,
+		"app.datagen.horizon-days=" + QueryPlanRegressionTest.HORIZON_DAYS,
+		"app.datagen.appointments=20000",
+		"app.datagen.blocked-periods=40000",
+		"app.datagen.documents=40000",
+		"app.datagen.upload-sessions=500",
+		"app.datagen.exit-when-done=false"
+})
+@ActiveProfiles("datagen")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanRegressionTest {
+
+	// The volumes spread this thin give about as many bookings per day as a real calendar
+	static final int HISTORY_YEARS = 10;
+	static final int HORIZON_DAYS = 60;
+
+	private static final Duration LATENCY_BUDGET = Duration.ofMillis(50);
+	private static final int TIMED_RUNS = 5;
+	private static final int WARM_UP_RUNS = 3;
+
+	// H2 (a table scan, or an index walked without a condition) and Postgres
+	private static final Pattern FULL_SCAN = Pattern.compile("tableScan|/\\* [\\w.]+ \\*/|Seq Scan");
+
+	private static final List<Class<? extends Repository<?, ?>>> REPOSITORIES = List.of(
+			AppointmentRepository.class, BlockedPeriodRepository.class, DocumentRepository.class,
+			UploadSessionRepository.class, DocumentDerivativeJobRepository.class);
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	@Autowired
+	private BlockedPeriodRepository blockedPeriodRepository;
+
+	@Autowired
+	private DocumentRepository documentRepository;
+
+	@Autowired
+	private UploadSessionRepository uploadSessionRepository;
+
+	@Autowired
+	private DocumentDerivativeJobRepository derivativeJobRepository;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private final ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.HOURS);
+	private String appointmentId;
+	private String otherAppointmentId;
+	private String email;
+	private String publicId;
+	private String contentHash;
+	private String uploadSessionId;
+
+	record QueryCase(String method, Runnable query, String fullScanReason) {
+
+		static QueryCase of(String method, Runnable query) {
+			return new QueryCase(method, query, null);
+		}
+
+		static QueryCase fullScan(String method, String reason, Runnable query) {
+			return new QueryCase(method, query, reason);
+		}
+	}
+
+	@TestConfiguration
+	static class RecordingConfig {
+
+		@Bean
+		static BeanPostProcessor recordingDataSourcePostProcessor() {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					return "dataSource".equals(beanName) ? new RecordingDataSource((DataSource) bean) : bean;
+				}
+			};
+		}
+	}
+
+	// Keys to look up, read back from the generated data
+	@BeforeAll
+	void sampleKeys() {
+		Map<String, Object> document = jdbcTemplate.queryForMap("SELECT d.appointment_id, d.public_id, d.content_hash, "
+				+ "a.email FROM documents d JOIN appointments a ON a.id = d.appointment_id "
+				+ "ORDER BY d.id OFFSET 10000 ROWS FETCH NEXT 1 ROWS ONLY");
+		appointmentId = document.get("appointment_id").toString();
+		email = (String) document.get("email");
+		publicId = (String) document.get("public_id");
+		contentHash = (String) document.get("content_hash");
+		otherAppointmentId = jdbcTemplate.queryForObject(
+				"SELECT appointment_id FROM documents ORDER BY id FETCH FIRST 1 ROWS ONLY", Object.class).toString();
+		uploadSessionId = jdbcTemplate.queryForObject(
+				"SELECT id FROM upload_sessions ORDER BY id FETCH FIRST 1 ROWS ONLY", Object.class).toString();
+	}
+
+	// Compiles Hibernate's load path first, so the first cases are not timed on a cold JIT
+	@BeforeAll
+	void warmUp() {
+		for (int i = 0; i < WARM_UP_RUNS; i++) {
+			cases().forEach(queryCase -> inTransaction(queryCase.query()));
+		}
+	}
+
+	@Test
+	void everyRepositoryQueryHasACase() {
+		List<String> declared = REPOSITORIES.stream()
+				.flatMap(repository -> Arrays.stream(repository.getDeclaredMethods())
+						.filter(method -> !method.isDefault() && !method.isSynthetic()
+								&& !Modifier.isStatic(method.getModifiers()))
+						.map(method -> name(repository, method)))
+				.toList();
+
+		assertThat(cases().stream().map(QueryCase::method).toList()).containsAll(declared);
+	}
+
+	@TestFactory
+	Stream<DynamicTest> queriesUseIndexesWithinBudget() throws SQLException {
+		RecordingDataSource recorder = dataSource.unwrap(RecordingDataSource.class);
+		return cases().stream().map(queryCase -> DynamicTest.dynamicTest(queryCase.method(), () -> {
+			List<RecordingDataSource.Statement> statements = recorder.record(() -> inTransaction(queryCase.query()));
+			assertThat(statements).as("SQL issued by %s", queryCase.method()).isNotEmpty();
+
+			if (queryCase.fullScanReason() == null) {
+				for (RecordingDataSource.Statement statement : statements) {
+					String plan = explain(statement);
+					assertThat(FULL_SCAN.matcher(plan).find())
+							.as("%s scans a whole table:%n%s%n%s", queryCase.method(), statement.sql(), plan)
+							.isFalse();
+				}
+
+				long best = Long.MAX_VALUE;
+				for (int i = 0; i < TIMED_RUNS; i++) {
+					long start = System.nanoTime();
+					inTransaction(queryCase.query());
+					best = Math.min(best, System.nanoTime() - start);
+				}
+				assertThat(Duration.ofNanos(best)).as("%s latency", queryCase.method()).isLessThan(LATENCY_BUDGET);
+			}
+		}));
+	}
+
+	private List<QueryCase> cases() {
+		LocalDate today = now.toLocalDate();
+		LocalDate nextWeek = today.plusDays(7);
+		YearMonth month = YearMonth.from(today);
+
+		return List.of(
+				QueryCase.of("AppointmentRepository.findByStatus",
+						() -> appointmentRepository.findByStatus(AppointmentStatus.PENDING)),
+				QueryCase.of("AppointmentRepository.findByAppointmentDateBetween",
+						() -> appointmentRepository.findByAppointmentDateBetween(now, now.plusDays(7))),
+				QueryCase.of("AppointmentRepository.existsByEmailAndStatus",
+						() -> appointmentRepository.existsByEmailAndStatus(email, AppointmentStatus.PENDING)),
+				QueryCase.of("AppointmentRepository.findVersionById",
+						() -> appointmentRepository.findVersionById(appointmentId)),
+				QueryCase.of("AppointmentRepository.findUpcomingAppointments",
+						() -> appointmentRepository.findUpcomingAppointments(AppointmentStatus.CONFIRMED, now)),
+				QueryCase.of("AppointmentRepository.findByStatusAndAppointmentDateBetween",
+						() -> appointmentRepository.findByStatusAndAppointmentDateBetween(
+								AppointmentStatus.CONFIRMED, now, now.plusDays(7))),
+				QueryCase.of("AppointmentRepository.findAppointmentsNeedingReminder",
+						() -> appointmentRepository.findAppointmentsNeedingReminder(
+								AppointmentStatus.CONFIRMED, now.plusHours(23), now.plusHours(25))),
+
+				QueryCase.of("BlockedPeriodRepository.findByDate",
+						() -> blockedPeriodRepository.findByDate(nextWeek)),
+				QueryCase.of("BlockedPeriodRepository.findByDateBetween",
+						() -> blockedPeriodRepository.findByDateBetween(today, nextWeek)),
+				QueryCase.of("BlockedPeriodRepository.findByDateBetweenAndStartDateTimeBetween",
+						() -> blockedPeriodRepository.findForCalendar(month.atDay(1), month.atEndOfMonth())),
+				QueryCase.of("BlockedPeriodRepository.findOverlapping",
+						() -> blockedPeriodRepository.findByDateTimeBetween(now, now.plusDays(1))),
+				QueryCase.of("BlockedPeriodRepository.existsOverlapping",
+						() -> blockedPeriodRepository.isTimeBlockedUTC(now.plusDays(2), now.plusDays(2).plusHours(1))),
+				QueryCase.of("BlockedPeriodRepository.findDistinctDatesBetween",
+						() -> blockedPeriodRepository.getDatesWithBlockedPeriods(month.getYear(), month.getMonthValue())),
+				QueryCase.of("BlockedPeriodRepository.findAllByDate",
+						() -> blockedPeriodRepository.findAllByDate(nextWeek)),
+				QueryCase.of("BlockedPeriodRepository.countByDate",
+						() -> blockedPeriodRepository.countByDate(nextWeek)),
+				QueryCase.fullScan("BlockedPeriodRepository.findAllByOrderByDateAscStartDateTimeAsc",
+						"lists the whole table by design",
+						blockedPeriodRepository::findAllByOrderByDateAscStartDateTimeAsc),
+				// Open-ended ranges, with bounds near the end of the data as the admin filters use them
+				QueryCase.of("BlockedPeriodRepository.findByDateGreaterThanEqual",
+						() -> blockedPeriodRepository.findByDateGreaterThanEqual(today.plusDays(HORIZON_DAYS - 7))),
+				QueryCase.of("BlockedPeriodRepository.findByDateLessThanEqual",
+						() -> blockedPeriodRepository.findByDateLessThanEqual(today.minusYears(HISTORY_YEARS).plusDays(7))),
+
+				QueryCase.of("DocumentRepository.findByAppointmentId",
+						() -> documentRepository.findByAppointmentId(appointmentId)),
+				QueryCase.of("DocumentRepository.deleteByAppointmentId",
+						() -> documentRepository.deleteByAppointmentId(otherAppointmentId)),
+				QueryCase.of("DocumentRepository.existsByPublicId",
+						() -> documentRepository.existsByPublicId(publicId)),
+				QueryCase.of("DocumentRepository.findByContentHashForUpdate",
+						() -> documentRepository.findByContentHashForUpdate(contentHash)),
+				QueryCase.of("DocumentRepository.findByPublicIdForUpdate",
+						() -> documentRepository.findByPublicIdForUpdate(publicId)),
+				QueryCase.of("DocumentRepository.countArchivedByPublicId",
+						() -> documentRepository.countArchivedByPublicId(publicId)),
+				QueryCase.of("DocumentRepository.setThumbnailForBlob",
+						() -> documentRepository.setThumbnailForBlob(publicId, publicId + "-thumb", "/thumbs/" + publicId)),
+
+				QueryCase.of("UploadSessionRepository.advanceOffset",
+						() -> uploadSessionRepository.advanceOffset(uploadSessionId, 0, 0)),
+				// An unknown id, so the dataset stays intact for the other cases
+				QueryCase.of("UploadSessionRepository.deleteSession",
+						() -> uploadSessionRepository.deleteSession(UUID.randomUUID().toString())),
+				QueryCase.of("UploadSessionRepository.findByExpiresAtBefore",
+						() -> uploadSessionRepository.findByExpiresAtBefore(now)),
+
+				QueryCase.of("DocumentDerivativeJobRepository.findReady",
+						() -> derivativeJobRepository.findReady(DerivativeJobStatus.PENDING, now, PageRequest.of(0, 10))),
+				QueryCase.of("DocumentDerivativeJobRepository.releaseStale",
+						() -> derivativeJobRepository.releaseStale(now.minusMinutes(10).toLocalDateTime())),
+				QueryCase.of("DocumentDerivativeJobRepository.deleteFinished",
+						() -> derivativeJobRepository.deleteFinished(now.minusDays(7).toLocalDateTime()))
+		);
+	}
+
+	private void inTransaction(Runnable query) {
+		transactionTemplate.executeWithoutResult(status -> query.run());
+	}
+
+	private String explain(RecordingDataSource.Statement statement) {
+		return jdbcTemplate.query("EXPLAIN " + statement.sql(),
+						(row, i) -> row.getString(1), statement.parameters().toArray())
+				.stream()
+				.collect(Collectors.joining("\n"));
+	}
+
+	private static String name(Class<?> repository, Method method) {
+		return repository.getSimpleName() + "." + method.getName();
+	}
+}
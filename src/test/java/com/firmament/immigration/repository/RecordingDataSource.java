@@ -0,0 +1,94 @@
+package com.firmament.immigration.repository;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Records the prepared statements executed on the calling thread, with their parameters, so
+ * they can be replayed under EXPLAIN. Other threads (schedulers) are not recorded.
+ */
+class RecordingDataSource extends DelegatingDataSource {
+
+	record Statement(String sql, List<Object> parameters) {
+	}
+
+	private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate", "addBatch");
+
+	private final ThreadLocal<List<Statement>> recording = new ThreadLocal<>();
+
+	RecordingDataSource(DataSource target) {
+		super(target);
+	}
+
+	List<Statement> record(Runnable action) {
+		List<Statement> statements = new ArrayList<>();
+		recording.set(statements);
+		try {
+			action.run();
+		} finally {
+			recording.remove();
+		}
+		return statements;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return wrap(super.getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return wrap(super.getConnection(username, password));
+	}
+
+	private Connection wrap(Connection connection) {
+		return proxy(Connection.class, (proxy, method, args) -> {
+			Object result = invoke(connection, method, args);
+			if (result instanceof PreparedStatement statement && "prepareStatement".equals(method.getName())) {
+				return wrap(statement, (String) args[0]);
+			}
+			return result;
+		});
+	}
+
+	private PreparedStatement wrap(PreparedStatement statement, String sql) {
+		Map<Integer, Object> parameters = new TreeMap<>();
+		return proxy(PreparedStatement.class, (proxy, method, args) -> {
+			String name = method.getName();
+			if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+				parameters.put(index, "setNull".equals(name) ? null : args[1]);
+			} else if ("clearParameters".equals(name)) {
+				parameters.clear();
+			} else if (EXECUTE_METHODS.contains(name) && args == null && recording.get() != null) {
+				recording.get().add(new Statement(sql, new ArrayList<>(parameters.values())));
+			}
+			return invoke(statement, method, args);
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+		return (T) Proxy.newProxyInstance(RecordingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package com.firmament.immigration.repository;
+
+import com.firmament.immigration.entity.Appointment;
+import com.firmament.immigration.entity.AppointmentStatus;
+import com.firmament.immigration.entity.Document;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SecondLevelCacheTest {
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	@Autowired
+	private DocumentRepository documentRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void repeatedAppointmentLookupsDoNotHitTheDatabase() {
+		String id = appointmentRepository.save(appointment()).getId();
+		statistics.clear();
+
+		// Each call runs in its own transaction and session, like the checkout and webhook flows
+		for (int i = 0; i < 3; i++) {
+			assertThat(appointmentRepository.findById(id)).isPresent();
+		}
+
+		assertThat(statistics.getDomainDataRegionStatistics("appointments").getHitCount()).isEqualTo(3);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+	}
+
+	@Test
+	void documentQueryIsCachedUntilTheTableChanges() {
+		Appointment appointment = appointmentRepository.save(appointment());
+		documentRepository.save(document(appointment, "passport.pdf"));
+		statistics.clear();
+
+		assertThat(documentRepository.findByAppointmentId(appointment.getId())).hasSize(1);
+		assertThat(documentRepository.findByAppointmentId(appointment.getId())).hasSize(1);
+		assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+
+		documentRepository.save(document(appointment, "resume.pdf"));
+
+		assertThat(documentRepository.findByAppointmentId(appointment.getId())).hasSize(2);
+		assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+	}
+
+	private Appointment appointment() {
+		return Appointment.builder()
+				.firstName("Test")
+				.lastName("Client")
+				.email("client@example.com")
+				.phone("+15145550100")
+				.country("Canada")
+				.appointmentDate(ZonedDateTime.now(ZoneOffset.UTC).plusDays(3))
+				.duration(60)
+				.consultationType("Work permit")
+				.userTimezone("America/Montreal")
+				.amount(new BigDecimal("150.00"))
+				.currency("CAD")
+				.status(AppointmentStatus.PENDING)
+				.reminderSent(false)
+				.build();
+	}
+
+	private Document document(Appointment appointment, String fileName) {
+		return Document.builder()
+				.fileName(fileName)
+				.fileType("application/pdf")
+				.filePath("/uploads/" + fileName)
+				.fileSize(1024L)
+				.appointment(appointment)
+				.build();
+	}
+}
@@ -0,0 +1,93 @@
+package com.firmament.immigration.service;
+
+import com.firmament.immigration.dto.request.LoginRequest;
+import com.firmament.immigration.exception.BusinessException;
+import com.firmament.immigration.exception.TooManyRequestsException;
+import com.firmament.immigration.service.impl.AuthServiceImpl;
+import com.firmament.immigration.util.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The BCrypt permits, with one permit and a short wait
+ */
+class AuthServiceTest {
+
+	private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+	private final JwtUtil jwtUtil = mock(JwtUtil.class);
+	private final LoginAttemptService loginAttemptService = mock(LoginAttemptService.class);
+
+	private final AuthServiceImpl authService = new AuthServiceImpl(passwordEncoder, jwtUtil,
+			mock(TokenRevocationService.class), loginAttemptService);
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(authService, "adminUsername", "admin");
+		ReflectionTestUtils.setField(authService, "adminPasswordHash", "hash");
+		ReflectionTestUtils.setField(authService, "jwtExpiration", 3_600_000L);
+		ReflectionTestUtils.setField(authService, "bcryptWaitMillis", 100L);
+		ReflectionTestUtils.invokeMethod(authService, "setBcryptMaxConcurrent", 1);
+		when(jwtUtil.generateToken("admin", "ADMIN")).thenReturn("token");
+	}
+
+	@Test
+	void loginIsRefusedWhileAllPermitsAreHashing() throws Exception {
+		CountDownLatch hashing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(passwordEncoder.matches(eq("slow"), anyString())).thenAnswer(invocation -> {
+			hashing.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return true;
+		});
+		when(passwordEncoder.matches(eq("fast"), anyString())).thenReturn(true);
+
+		CompletableFuture<String> slow = CompletableFuture.supplyAsync(
+				() -> authService.login(request("slow"), "203.0.113.10").getToken());
+		assertThat(hashing.await(5, TimeUnit.SECONDS)).isTrue();
+
+		assertThatThrownBy(() -> authService.login(request("fast"), "203.0.113.11"))
+				.isInstanceOf(TooManyRequestsException.class)
+				.hasMessageContaining("busy");
+		// Refused for load, not a wrong password
+		verify(loginAttemptService, never()).recordFailure(anyString(), eq("203.0.113.11"));
+
+		release.countDown();
+		assertThat(slow.get(5, TimeUnit.SECONDS)).isEqualTo("token");
+		assertThat(authService.login(request("fast"), "203.0.113.11").getToken()).isEqualTo("token");
+	}
+
+	@Test
+	void permitIsReturnedAfterAWrongPassword() {
+		when(passwordEncoder.matches(eq("wrong"), anyString())).thenReturn(false);
+		when(passwordEncoder.matches(eq("right"), anyString())).thenReturn(true);
+
+		assertThatThrownBy(() -> authService.login(request("wrong"), "203.0.113.10"))
+				.isInstanceOf(BusinessException.class);
+		verify(loginAttemptService).recordFailure("admin", "203.0.113.10");
+
+		assertThat(authService.login(request("right"), "203.0.113.10").getToken()).isEqualTo("token");
+		verify(loginAttemptService).recordSuccess("admin", "203.0.113.10");
+	}
+
+	private static LoginRequest request(String password) {
+		LoginRequest request = new LoginRequest();
+		request.setUsername("admin");
+		request.setPassword(password);
+		return request;
+	}
+}
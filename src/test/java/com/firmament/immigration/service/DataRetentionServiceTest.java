@@ -0,0 +1,154 @@
+package com.firmament.immigration.service;
+
+import com.firmament.immigration.dto.response.DocumentResponse;
+import com.firmament.immigration.entity.Appointment;
+import com.firmament.immigration.entity.AppointmentStatus;
+import com.firmament.immigration.entity.BlockedPeriod;
+import com.firmament.immigration.repository.AppointmentRepository;
+import com.firmament.immigration.repository.BlockedPeriodRepository;
+import com.firmament.immigration.repository.DocumentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Archival on the embedded H2, where blocked_periods is a plain table and only the appointment
+ * archive applies
+ */
+@SpringBootTest(properties = {"app.storage.type=local", "app.upload.path=target/test-uploads"})
+class DataRetentionServiceTest {
+
+	@Autowired
+	private DataRetentionService dataRetentionService;
+
+	@Autowired
+	private DocumentService documentService;
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	@Autowired
+	private BlockedPeriodRepository blockedPeriodRepository;
+
+	@Autowired
+	private DocumentRepository documentRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@MockitoSpyBean
+	private DocumentStorage documentStorage;
+
+	@MockitoBean
+	private EmailService emailService;
+
+	@BeforeEach
+	void setUp() {
+		reset(documentStorage);
+	}
+
+	@Test
+	void oldFinishedAppointmentsMoveToTheArchiveWithTheirDocuments() {
+		Appointment old = appointmentRepository.save(appointment(AppointmentStatus.COMPLETED, 25));
+		Appointment oldPending = appointmentRepository.save(appointment(AppointmentStatus.PENDING, 25));
+		Appointment recent = appointmentRepository.save(appointment(AppointmentStatus.COMPLETED, 1));
+		String documentId = upload(old, content()).getId();
+		String blockedPeriodId = blockedPeriodRepository.save(blockedPeriod(old)).getId();
+
+		assertThat(dataRetentionService.archiveAppointments()).isGreaterThanOrEqualTo(1);
+
+		assertThat(archived("appointments_archive", old.getId())).isTrue();
+		assertThat(archived("documents_archive", documentId)).isTrue();
+		assertThat(appointmentRepository.existsById(old.getId())).isFalse();
+		assertThat(documentRepository.existsById(documentId)).isFalse();
+		assertThat(blockedPeriodRepository.existsById(blockedPeriodId)).isFalse();
+
+		assertThat(appointmentRepository.existsById(oldPending.getId())).isTrue();
+		assertThat(appointmentRepository.existsById(recent.getId())).isTrue();
+		assertThat(archived("appointments_archive", recent.getId())).isFalse();
+	}
+
+	@Test
+	void blobStaysWhileAnArchivedDocumentReferencesIt() throws IOException {
+		byte[] content = content();
+		Appointment old = appointmentRepository.save(appointment(AppointmentStatus.COMPLETED, 25));
+		Appointment current = appointmentRepository.save(appointment(AppointmentStatus.CONFIRMED, 0));
+		upload(old, content);
+		DocumentResponse live = upload(current, content);
+		String publicId = documentRepository.findById(live.getId()).orElseThrow().getPublicId();
+
+		dataRetentionService.archiveAppointments();
+		documentService.deleteDocument(live.getId());
+
+		verify(documentStorage, never()).delete(anyString(), anyString());
+		assertThat(documentRepository.countArchivedByPublicId(publicId)).isEqualTo(1);
+		assertThatCode(() -> documentStorage.load(publicId, null).getInputStream().close()).doesNotThrowAnyException();
+	}
+
+	private boolean archived(String table, String id) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE id = ?",
+				Long.class, UUID.fromString(id)) == 1;
+	}
+
+	private DocumentResponse upload(Appointment appointment, byte[] content) {
+		MockMultipartFile file = new MockMultipartFile("files", "letter.docx",
+				"application/vnd.openxmlformats-officedocument.wordprocessingml.document", content);
+		return documentService.uploadDocuments(appointment.getId(), List.of(file)).getFirst();
+	}
+
+	// Random, so every test stores a blob of its own
+	private static byte[] content() {
+		byte[] content = new byte[1000];
+		ThreadLocalRandom.current().nextBytes(content);
+		return content;
+	}
+
+	private Appointment appointment(AppointmentStatus status, int monthsAgo) {
+		return Appointment.builder()
+				.firstName("Test")
+				.lastName("Client")
+				.email("client@example.com")
+				.phone("+15145550100")
+				.country("Canada")
+				.appointmentDate(ZonedDateTime.now(ZoneOffset.UTC).minusMonths(monthsAgo).plusDays(1))
+				.duration(60)
+				.consultationType("Work permit")
+				.userTimezone("America/Montreal")
+				.amount(new BigDecimal("150.00"))
+				.currency("CAD")
+				.status(status)
+				.reminderSent(false)
+				.build();
+	}
+
+	private BlockedPeriod blockedPeriod(Appointment appointment) {
+		return BlockedPeriod.builder()
+				.date(appointment.getAppointmentDate().toLocalDate())
+				.startDateTime(appointment.getAppointmentDate())
+				.endDateTime(appointment.getAppointmentDate().plusHours(1))
+				.originalTimezone("UTC")
+				.reason("Appointment")
+				.appointment(appointment)
+				.build();
+	}
+}
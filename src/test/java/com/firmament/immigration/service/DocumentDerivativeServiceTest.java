@@ -0,0 +1,195 @@
+package com.firmament.immigration.service;
+
+import com.firmament.immigration.entity.DerivativeJobStatus;
+import com.firmament.immigration.entity.Document;
+import com.firmament.immigration.entity.DocumentDerivativeJob;
+import com.firmament.immigration.repository.DocumentDerivativeJobRepository;
+import com.firmament.immigration.repository.DocumentRepository;
+import com.firmament.immigration.service.impl.DocumentDerivativeServiceImpl;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Dispatch and retries against a mocked job table. The worker pool runs each job on the
+ * dispatching thread.
+ */
+class DocumentDerivativeServiceTest {
+
+	private final DocumentDerivativeJobRepository jobRepository = mock(DocumentDerivativeJobRepository.class);
+	private final DocumentRepository documentRepository = mock(DocumentRepository.class);
+	private final DocumentStorage documentStorage = mock(DocumentStorage.class);
+	private final ThreadPoolTaskExecutor derivativeExecutor = mock(ThreadPoolTaskExecutor.class);
+	private final ThreadPoolExecutor pool = new ThreadPoolExecutor(2, 2, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(20));
+
+	private final DocumentDerivativeServiceImpl service = new DocumentDerivativeServiceImpl(
+			jobRepository, documentRepository, documentStorage, derivativeExecutor, ObservationRegistry.NOOP);
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(service, "enabled", true);
+		ReflectionTestUtils.setField(service, "maxAttempts", 3);
+		ReflectionTestUtils.setField(service, "thumbnailSize", 320);
+		ReflectionTestUtils.setField(service, "retention", Duration.ofDays(7));
+		ReflectionTestUtils.setField(service, "tempPath", "target/test-uploads/tmp");
+		when(derivativeExecutor.getThreadPoolExecutor()).thenReturn(pool);
+		doAnswer(invocation -> {
+			invocation.<Runnable>getArgument(0).run();
+			return null;
+		}).when(derivativeExecutor).execute(any(Runnable.class));
+		when(jobRepository.save(any())).then(returnsFirstArg());
+	}
+
+	@Test
+	void jobsAreClaimedUpToTheFreePoolCapacity() {
+		DocumentDerivativeJob claimedElsewhere = job();
+		DocumentDerivativeJob mine = job();
+		ready(claimedElsewhere, mine);
+		when(jobRepository.save(claimedElsewhere))
+				.thenThrow(new ObjectOptimisticLockingFailureException(DocumentDerivativeJob.class, claimedElsewhere.getId()));
+		when(jobRepository.findById(mine.getId())).thenReturn(Optional.of(mine));
+
+		service.dispatchPendingJobs();
+
+		// Two workers and a queue of 20, all free
+		ArgumentCaptor<Pageable> page = ArgumentCaptor.forClass(Pageable.class);
+		verify(jobRepository).findReady(eq(DerivativeJobStatus.PENDING), any(), page.capture());
+		assertThat(page.getValue().getPageSize()).isEqualTo(22);
+
+		verify(derivativeExecutor, times(1)).execute(any(Runnable.class));
+		// The document was deleted in the meantime, which still finishes the job
+		assertThat(mine.getStatus()).isEqualTo(DerivativeJobStatus.DONE);
+	}
+
+	@Test
+	void nothingIsClaimedWhileThePoolIsBusy() throws InterruptedException {
+		ThreadPoolExecutor busy = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1));
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			busy.execute(() -> {
+				running.countDown();
+				awaitQuietly(release);
+			});
+			assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+			busy.execute(() -> {
+			});
+			when(derivativeExecutor.getThreadPoolExecutor()).thenReturn(busy);
+
+			service.dispatchPendingJobs();
+
+			verify(jobRepository, never()).findReady(any(), any(), any());
+		} finally {
+			release.countDown();
+			busy.shutdown();
+		}
+	}
+
+	@Test
+	void rejectedJobIsReturnedToPendingAndDispatchStops() {
+		DocumentDerivativeJob rejected = job();
+		DocumentDerivativeJob next = job();
+		ready(rejected, next);
+		doThrow(new TaskRejectedException("Queue full")).when(derivativeExecutor).execute(any(Runnable.class));
+
+		service.dispatchPendingJobs();
+
+		assertThat(rejected.getStatus()).isEqualTo(DerivativeJobStatus.PENDING);
+		assertThat(next.getStatus()).isEqualTo(DerivativeJobStatus.PENDING);
+		verify(derivativeExecutor, times(1)).execute(any(Runnable.class));
+		verify(jobRepository, times(2)).save(rejected);
+	}
+
+	@Test
+	void failedJobIsRetriedWithBackoffUntilMaxAttempts() throws IOException {
+		DocumentDerivativeJob job = job();
+		Document document = Document.builder().fileName("scan.png").publicId("immigration_documents/scan.png").build();
+		document.setId(job.getDocumentId());
+		when(documentRepository.findById(job.getDocumentId())).thenReturn(Optional.of(document));
+		when(documentStorage.load(anyString(), any())).thenThrow(new IOException("Storage unavailable"));
+		when(jobRepository.findById(job.getId())).thenReturn(Optional.of(job));
+
+		for (int attempt = 1; attempt <= 2; attempt++) {
+			ready(job);
+			service.dispatchPendingJobs();
+
+			assertThat(job.getAttempts()).isEqualTo(attempt);
+			assertThat(job.getStatus()).isEqualTo(DerivativeJobStatus.PENDING);
+			assertThat(job.getLastError()).contains("Thumbnail generation failed");
+			// 30 seconds doubled per attempt
+			assertThat(job.getAvailableAt()).isCloseTo(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(30L << attempt),
+					within(5, ChronoUnit.SECONDS));
+		}
+
+		ready(job);
+		service.dispatchPendingJobs();
+		assertThat(job.getAttempts()).isEqualTo(3);
+		assertThat(job.getStatus()).isEqualTo(DerivativeJobStatus.FAILED);
+	}
+
+	@Test
+	void finishedJobsAreDeletedAfterTheRetention() {
+		service.purgeFinishedJobs();
+
+		ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+		verify(jobRepository).deleteFinished(cutoff.capture());
+		assertThat(cutoff.getValue()).isCloseTo(LocalDateTime.now().minusDays(7), within(5, ChronoUnit.SECONDS));
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void ready(DocumentDerivativeJob... jobs) {
+		when(jobRepository.findReady(eq(DerivativeJobStatus.PENDING), any(), any())).thenReturn(List.of(jobs));
+	}
+
+	private static DocumentDerivativeJob job() {
+		DocumentDerivativeJob job = DocumentDerivativeJob.builder()
+				.documentId(UUID.randomUUID().toString())
+				.status(DerivativeJobStatus.PENDING)
+				.attempts(0)
+				.availableAt(ZonedDateTime.now(ZoneOffset.UTC))
+				.build();
+		job.setId(UUID.randomUUID().toString());
+		return job;
+	}
+}
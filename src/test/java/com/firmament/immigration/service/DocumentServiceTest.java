@@ -0,0 +1,136 @@
+package com.firmament.immigration.service;
+
+import com.firmament.immigration.dto.response.DocumentResponse;
+import com.firmament.immigration.entity.Appointment;
+import com.firmament.immigration.entity.AppointmentStatus;
+import com.firmament.immigration.entity.Document;
+import com.firmament.immigration.repository.AppointmentRepository;
+import com.firmament.immigration.repository.DocumentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = {"app.storage.type=local", "app.upload.path=target/test-uploads"})
+class DocumentServiceTest {
+
+	@Autowired
+	private DocumentService documentService;
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	@Autowired
+	private DocumentRepository documentRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@MockitoSpyBean
+	private DocumentStorage documentStorage;
+
+	@MockitoBean
+	private EmailService emailService;
+
+	private Appointment appointment;
+
+	@BeforeEach
+	void setUp() {
+		reset(documentStorage);
+		appointment = appointmentRepository.save(appointment());
+	}
+
+	@Test
+	void deletingTheLastReferenceRemovesTheBlob() throws IOException {
+		DocumentResponse document = upload(content());
+		String publicId = publicId(document);
+
+		documentService.deleteDocument(document.getId());
+
+		verify(documentStorage).delete(publicId, "letter.docx");
+		assertThat(documentRepository.existsById(document.getId())).isFalse();
+	}
+
+	@Test
+	void blobSurvivesARolledBackDelete() throws IOException {
+		DocumentResponse document = upload(content());
+		String publicId = publicId(document);
+
+		transactionTemplate.executeWithoutResult(status -> {
+			documentService.deleteDocument(document.getId());
+			status.setRollbackOnly();
+		});
+
+		verify(documentStorage, never()).delete(anyString(), anyString());
+		assertThat(documentRepository.existsById(document.getId())).isTrue();
+		assertThatCode(() -> documentStorage.load(publicId, null).getInputStream().close()).doesNotThrowAnyException();
+	}
+
+	@Test
+	void sharedBlobIsKeptUntilItsLastReferenceIsDeleted() throws IOException {
+		byte[] content = content();
+		DocumentResponse first = upload(content);
+		DocumentResponse second = upload(content);
+		String publicId = publicId(first);
+		assertThat(publicId(second)).isEqualTo(publicId);
+
+		documentService.deleteDocument(first.getId());
+		verify(documentStorage, never()).delete(anyString(), anyString());
+
+		documentService.deleteDocument(second.getId());
+		verify(documentStorage).delete(publicId, "letter.docx");
+	}
+
+	private DocumentResponse upload(byte[] content) {
+		MockMultipartFile file = new MockMultipartFile("files", "letter.docx",
+				"application/vnd.openxmlformats-officedocument.wordprocessingml.document", content);
+		return documentService.uploadDocuments(appointment.getId(), List.of(file)).getFirst();
+	}
+
+	private String publicId(DocumentResponse document) {
+		return documentRepository.findById(document.getId()).map(Document::getPublicId).orElseThrow();
+	}
+
+	// Random, so every test stores a blob of its own
+	private static byte[] content() {
+		byte[] content = new byte[1000];
+		ThreadLocalRandom.current().nextBytes(content);
+		return content;
+	}
+
+	private Appointment appointment() {
+		return Appointment.builder()
+				.firstName("Test")
+				.lastName("Client")
+				.email("client@example.com")
+				.phone("+15145550100")
+				.country("Canada")
+				.appointmentDate(ZonedDateTime.now(ZoneOffset.UTC).plusDays(3))
+				.duration(60)
+				.consultationType("Work permit")
+				.userTimezone("America/Montreal")
+				.amount(new BigDecimal("150.00"))
+				.currency("CAD")
+				.status(AppointmentStatus.PENDING)
+				.reminderSent(false)
+				.build();
+	}
+}
@@ -0,0 +1,93 @@
+package com.firmament.immigration.service;
+
+import com.firmament.immigration.exception.TooManyRequestsException;
+import com.firmament.immigration.service.impl.LoginAttemptServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoginAttemptServiceTest {
+
+	private static final String ADMIN = "admin";
+	private static final String ADMIN_IP = "203.0.113.10";
+	private static final String ATTACKER_IP = "198.51.100.7";
+
+	// Lockouts long enough that none runs out while a test checks it
+	private final LoginAttemptService service = new LoginAttemptServiceImpl(
+			3, Duration.ofSeconds(100), Duration.ofSeconds(500), Duration.ofMinutes(30), 1000, Duration.ofDays(30));
+
+	@Test
+	void lockoutStartsAfterTheFreeAttemptsAndDoublesUpToTheMaximum() {
+		fail(ADMIN, ATTACKER_IP, 3);
+		assertThatCode(() -> service.checkAllowed(ADMIN, ATTACKER_IP)).doesNotThrowAnyException();
+
+		fail(ADMIN, ATTACKER_IP, 1);
+		assertThat(retryAfter(ADMIN, ATTACKER_IP)).isBetween(99L, 100L);
+		fail(ADMIN, ATTACKER_IP, 1);
+		assertThat(retryAfter(ADMIN, ATTACKER_IP)).isBetween(199L, 200L);
+		fail(ADMIN, ATTACKER_IP, 1);
+		assertThat(retryAfter(ADMIN, ATTACKER_IP)).isBetween(399L, 400L);
+		fail(ADMIN, ATTACKER_IP, 1);
+		assertThat(retryAfter(ADMIN, ATTACKER_IP)).isBetween(499L, 500L);
+	}
+
+	@Test
+	void successResetsTheCounters() {
+		fail("clerk", ADMIN_IP, 3);
+		service.recordSuccess("clerk", ADMIN_IP);
+
+		fail("clerk", ADMIN_IP, 3);
+		assertThatCode(() -> service.checkAllowed("clerk", ADMIN_IP)).doesNotThrowAnyException();
+	}
+
+	@Test
+	void failuresLockTheClientIpForEveryUsername() {
+		fail("someone", ATTACKER_IP, 4);
+
+		assertThatThrownBy(() -> service.checkAllowed("someone-else", ATTACKER_IP))
+				.isInstanceOf(TooManyRequestsException.class);
+		assertThatCode(() -> service.checkAllowed("someone-else", ADMIN_IP)).doesNotThrowAnyException();
+	}
+
+	@Test
+	void usernameLockoutSparesAnIpThatRecentlyLoggedInAsThatUser() {
+		service.recordSuccess(ADMIN, ADMIN_IP);
+
+		// Failures spread over many IPs, so no single IP is locked
+		for (int i = 0; i < 4; i++) {
+			service.recordFailure(ADMIN, "198.51.100." + (100 + i));
+		}
+
+		assertThatThrownBy(() -> service.checkAllowed(ADMIN, ATTACKER_IP))
+				.isInstanceOf(TooManyRequestsException.class);
+		assertThatCode(() -> service.checkAllowed(ADMIN, ADMIN_IP)).doesNotThrowAnyException();
+	}
+
+	@Test
+	void trustedIpIsStillLockedOutByItsOwnFailures() {
+		service.recordSuccess(ADMIN, ADMIN_IP);
+		fail(ADMIN, ADMIN_IP, 4);
+
+		assertThatThrownBy(() -> service.checkAllowed(ADMIN, ADMIN_IP))
+				.isInstanceOf(TooManyRequestsException.class);
+	}
+
+	private void fail(String username, String clientIp, int times) {
+		for (int i = 0; i < times; i++) {
+			service.recordFailure(username, clientIp);
+		}
+	}
+
+	private long retryAfter(String username, String clientIp) {
+		try {
+			service.checkAllowed(username, clientIp);
+		} catch (TooManyRequestsException e) {
+			return e.getRetryAfterSeconds();
+		}
+		throw new AssertionError("Expected " + username + " from " + clientIp + " to be locked out");
+	}
+}
@@ -0,0 +1,250 @@
+package com.firmament.immigration.service;
+
+import com.firmament.immigration.dto.request.CreateUploadSessionRequest;
+import com.firmament.immigration.dto.response.UploadSessionResponse;
+import com.firmament.immigration.entity.Appointment;
+import com.firmament.immigration.entity.AppointmentStatus;
+import com.firmament.immigration.exception.BusinessException;
+import com.firmament.immigration.exception.ConflictException;
+import com.firmament.immigration.repository.AppointmentRepository;
+import com.firmament.immigration.repository.DocumentRepository;
+import com.firmament.immigration.repository.UploadSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+
+@SpringBootTest(properties = {"app.storage.type=local", "app.upload.path=target/test-uploads"})
+class ResumableUploadServiceTest {
+
+	@Autowired
+	private ResumableUploadService resumableUploadService;
+
+	@Autowired
+	private UploadSessionRepository uploadSessionRepository;
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	@Autowired
+	private DocumentRepository documentRepository;
+
+	@MockitoSpyBean
+	private DocumentStorage documentStorage;
+
+	@MockitoBean
+	private EmailService emailService;
+
+	@Value("${app.upload.temp-path}")
+	private String tempPath;
+
+	private Appointment appointment;
+
+	@BeforeEach
+	void setUp() {
+		reset(documentStorage);
+		appointment = appointmentRepository.save(appointment());
+	}
+
+	@Test
+	void chunksAssembleIntoTheDocument() throws IOException {
+		byte[] content = content(200_000);
+		UploadSessionResponse session = createSession(content.length);
+
+		UploadSessionResponse afterFirst = resumableUploadService.appendChunk(session.getId(), 0, chunk(content, 0, 70_000));
+		assertThat(afterFirst.getOffset()).isEqualTo(70_000);
+		assertThat(afterFirst.getDocument()).isNull();
+
+		UploadSessionResponse afterLast = resumableUploadService.appendChunk(session.getId(), 70_000, chunk(content, 70_000, content.length));
+		assertThat(afterLast.getOffset()).isEqualTo(content.length);
+		assertThat(afterLast.getDocument()).isNotNull();
+
+		assertThat(storedBytes(afterLast.getDocument().getId())).isEqualTo(content);
+		assertThat(uploadSessionRepository.existsById(session.getId())).isFalse();
+		assertThat(partFile(session.getId())).doesNotExist();
+	}
+
+	@Test
+	void chunkAtAStaleOffsetIsRejected() {
+		byte[] content = content(1000);
+		UploadSessionResponse session = createSession(content.length);
+		resumableUploadService.appendChunk(session.getId(), 0, chunk(content, 0, 400));
+
+		assertThatThrownBy(() -> resumableUploadService.appendChunk(session.getId(), 0, chunk(content, 0, 400)))
+				.isInstanceOf(ConflictException.class)
+				.hasMessageContaining("expected 400");
+		assertThat(resumableUploadService.getSession(session.getId()).getOffset()).isEqualTo(400);
+	}
+
+	@Test
+	void chunkIsRejectedWhileAnotherHoldsTheLock() throws IOException {
+		byte[] content = content(1000);
+		UploadSessionResponse session = createSession(content.length);
+		resumableUploadService.appendChunk(session.getId(), 0, chunk(content, 0, 400));
+
+		try (FileChannel channel = FileChannel.open(partFile(session.getId()), StandardOpenOption.WRITE);
+			 FileLock ignored = channel.lock()) {
+			assertThatThrownBy(() -> resumableUploadService.appendChunk(session.getId(), 400, chunk(content, 400, 1000)))
+					.isInstanceOf(ConflictException.class)
+					.hasMessageContaining("Another chunk");
+		}
+		assertThat(resumableUploadService.getSession(session.getId()).getOffset()).isEqualTo(400);
+	}
+
+	@Test
+	void chunkIsRejectedWhenThePartFileDoesNotHoldTheRecordedBytes() throws IOException {
+		byte[] content = content(1000);
+		UploadSessionResponse session = createSession(content.length);
+		resumableUploadService.appendChunk(session.getId(), 0, chunk(content, 0, 400));
+
+		// What a node without the earlier chunks sees
+		Files.delete(partFile(session.getId()));
+
+		assertThatThrownBy(() -> resumableUploadService.appendChunk(session.getId(), 400, chunk(content, 400, 1000)))
+				.isInstanceOf(ConflictException.class)
+				.hasMessageContaining("restart the upload");
+		assertThat(resumableUploadService.getSession(session.getId()).getOffset()).isEqualTo(400);
+		assertThat(documentRepository.findByAppointmentId(appointment.getId())).isEmpty();
+	}
+
+	@Test
+	void unacknowledgedBytesBeyondTheOffsetAreDropped() throws IOException {
+		byte[] content = content(1000);
+		UploadSessionResponse session = createSession(content.length);
+		resumableUploadService.appendChunk(session.getId(), 0, chunk(content, 0, 400));
+
+		// Written before a crash that kept the offset from advancing
+		Files.write(partFile(session.getId()), new byte[100], StandardOpenOption.APPEND);
+
+		UploadSessionResponse completed = resumableUploadService.appendChunk(session.getId(), 400, chunk(content, 400, 1000));
+		assertThat(storedBytes(completed.getDocument().getId())).isEqualTo(content);
+	}
+
+	@Test
+	void oversizedChunkKeepsItsOwnErrorAndTheBytesWithinTheLength() throws IOException {
+		byte[] content = content(1000);
+		UploadSessionResponse session = createSession(content.length);
+
+		byte[] tooLong = Arrays.copyOf(content, 1200);
+		assertThatThrownBy(() -> resumableUploadService.appendChunk(session.getId(), 0, new ByteArrayInputStream(tooLong)))
+				.isInstanceOf(BusinessException.class)
+				.hasMessage("Chunk exceeds the declared upload length");
+		assertThat(resumableUploadService.getSession(session.getId()).getOffset()).isEqualTo(1000);
+
+		// All bytes are there; an empty chunk at the final offset completes the upload
+		UploadSessionResponse completed = resumableUploadService.appendChunk(session.getId(), 1000, InputStream.nullInputStream());
+		assertThat(storedBytes(completed.getDocument().getId())).isEqualTo(content);
+	}
+
+	@Test
+	void failedCompletionCanBeRetried() throws IOException {
+		byte[] content = content(1000);
+		UploadSessionResponse session = createSession(content.length);
+		doThrow(new IOException("Storage unavailable")).doCallRealMethod()
+				.when(documentStorage).store(anyString(), anyString(), any(), any(Path.class));
+
+		assertThatThrownBy(() -> resumableUploadService.appendChunk(session.getId(), 0, chunk(content, 0, 1000)))
+				.isInstanceOf(BusinessException.class);
+		assertThat(resumableUploadService.getSession(session.getId()).getOffset()).isEqualTo(1000);
+		assertThat(partFile(session.getId())).hasBinaryContent(content);
+		assertThat(documentRepository.findByAppointmentId(appointment.getId())).isEmpty();
+
+		UploadSessionResponse completed = resumableUploadService.appendChunk(session.getId(), 1000, InputStream.nullInputStream());
+		assertThat(storedBytes(completed.getDocument().getId())).isEqualTo(content);
+		assertThat(documentRepository.findByAppointmentId(appointment.getId())).hasSize(1);
+		assertThat(uploadSessionRepository.existsById(session.getId())).isFalse();
+	}
+
+	@Test
+	void blobOfAFailedRegistrationIsRemoved() throws IOException {
+		byte[] content = content(1000);
+		UploadSessionResponse session = createSession(content.length);
+		AtomicReference<DocumentStorage.StoredObject> stored = new AtomicReference<>();
+		// The session disappears while the file is transferred, as with a concurrent completion
+		doAnswer(invocation -> {
+			uploadSessionRepository.deleteById(session.getId());
+			stored.set((DocumentStorage.StoredObject) invocation.callRealMethod());
+			return stored.get();
+		}).when(documentStorage).store(anyString(), anyString(), any(), any(Path.class));
+
+		assertThatThrownBy(() -> resumableUploadService.appendChunk(session.getId(), 0, chunk(content, 0, 1000)))
+				.isInstanceOf(ConflictException.class);
+		assertThat(documentRepository.findByAppointmentId(appointment.getId())).isEmpty();
+		assertThatThrownBy(() -> documentStorage.load(stored.get().key(), null))
+				.isInstanceOf(IOException.class);
+	}
+
+	private UploadSessionResponse createSession(long size) {
+		CreateUploadSessionRequest request = new CreateUploadSessionRequest();
+		request.setFileName("passport.pdf");
+		request.setFileType("application/pdf");
+		request.setFileSize(size);
+		return resumableUploadService.createSession(appointment.getId(), request);
+	}
+
+	private byte[] storedBytes(String documentId) throws IOException {
+		try (InputStream in = documentStorage.load(documentRepository.findById(documentId).orElseThrow().getPublicId(), null).getInputStream()) {
+			return in.readAllBytes();
+		}
+	}
+
+	private Path partFile(String sessionId) {
+		return Paths.get(tempPath, "sessions", sessionId + ".part");
+	}
+
+	// Random, so every test stores a blob of its own
+	private static byte[] content(int size) {
+		byte[] content = new byte[size];
+		ThreadLocalRandom.current().nextBytes(content);
+		return content;
+	}
+
+	private static InputStream chunk(byte[] content, int from, int to) {
+		return new ByteArrayInputStream(content, from, to - from);
+	}
+
+	private Appointment appointment() {
+		return Appointment.builder()
+				.firstName("Test")
+				.lastName("Client")
+				.email("client@example.com")
+				.phone("+15145550100")
+				.country("Canada")
+				.appointmentDate(ZonedDateTime.now(ZoneOffset.UTC).plusDays(3))
+				.duration(60)
+				.consultationType("Work permit")
+				.userTimezone("America/Montreal")
+				.amount(new BigDecimal("150.00"))
+				.currency("CAD")
+				.status(AppointmentStatus.PENDING)
+				.reminderSent(false)
+				.build();
+	}
+}
@@ -0,0 +1,70 @@
+package com.firmament.immigration.service;
+
+import com.firmament.immigration.service.impl.TokenRevocationServiceImpl;
+import com.firmament.immigration.util.BloomFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class TokenRevocationServiceTest {
+
+	@SuppressWarnings("unchecked")
+	private final ObjectProvider<StringRedisTemplate> redisTemplate = mock(ObjectProvider.class);
+
+	@Test
+	void revokedTokensAreReportedUntilTheyExpire() throws InterruptedException {
+		TokenRevocationService service = new TokenRevocationServiceImpl(redisTemplate, 100, false);
+		service.revokeLocally("short", Instant.now().plusMillis(500));
+		service.revokeLocally("long", Instant.now().plus(Duration.ofHours(1)));
+		service.revokeLocally("already-expired", Instant.now().minusSeconds(1));
+
+		assertThat(service.isRevoked("short")).isTrue();
+		assertThat(service.isRevoked("long")).isTrue();
+		assertThat(service.isRevoked("already-expired")).isFalse();
+		assertThat(service.isRevoked("never-revoked")).isFalse();
+		assertThat(service.isRevoked(null)).isFalse();
+
+		Thread.sleep(600);
+		assertThat(service.isRevoked("short")).isFalse();
+	}
+
+	@Test
+	void purgeKeepsRevocationsThatHaveNotExpired() throws InterruptedException {
+		TokenRevocationService service = new TokenRevocationServiceImpl(redisTemplate, 100, false);
+		IntStream.range(0, 50).forEach(i -> service.revokeLocally("expiring-" + i, Instant.now().plusMillis(500)));
+		IntStream.range(0, 50).forEach(i -> service.revokeLocally("active-" + i, Instant.now().plus(Duration.ofHours(1))));
+
+		Thread.sleep(600);
+		service.purgeExpired();
+
+		// The rebuilt filter still holds every remaining revocation
+		IntStream.range(0, 50).forEach(i -> assertThat(service.isRevoked("active-" + i)).as("active-" + i).isTrue());
+		IntStream.range(0, 50).forEach(i -> assertThat(service.isRevoked("expiring-" + i)).as("expiring-" + i).isFalse());
+	}
+
+	@Test
+	void filterHitsAreConfirmedAgainstTheExactSet() {
+		// Sized for one entry, so with 200 the filter claims nearly everything
+		TokenRevocationService service = new TokenRevocationServiceImpl(redisTemplate, 1, false);
+		BloomFilter sameFilter = new BloomFilter(1, 0.01);
+		IntStream.range(0, 200).forEach(i -> {
+			service.revokeLocally("revoked-" + i, Instant.now().plus(Duration.ofHours(1)));
+			sameFilter.put("revoked-" + i);
+		});
+
+		String falsePositive = IntStream.range(0, 1000).mapToObj(i -> "valid-" + i)
+				.filter(sameFilter::mightContain)
+				.findFirst()
+				.orElseThrow();
+
+		assertThat(service.isRevoked(falsePositive)).isFalse();
+		assertThat(service.isRevoked("revoked-7")).isTrue();
+	}
+}
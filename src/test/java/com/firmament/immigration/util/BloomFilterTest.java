@@ -0,0 +1,44 @@
+package com.firmament.immigration.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+	@Test
+	void everyAddedValueIsFound() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		String[] values = IntStream.range(0, 10_000).mapToObj(i -> UUID.randomUUID().toString()).toArray(String[]::new);
+
+		for (String value : values) {
+			filter.put(value);
+		}
+
+		for (String value : values) {
+			assertThat(filter.mightContain(value)).as(value).isTrue();
+		}
+	}
+
+	@Test
+	void concurrentPutsDoNotLoseBits() {
+		BloomFilter filter = new BloomFilter(50_000, 0.01);
+
+		IntStream.range(0, 50_000).parallel().forEach(i -> filter.put("token-" + i));
+
+		IntStream.range(0, 50_000).forEach(i -> assertThat(filter.mightContain("token-" + i)).as("token-" + i).isTrue());
+	}
+
+	@Test
+	void falsePositiveRateStaysNearTheConfiguredRate() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		IntStream.range(0, 10_000).forEach(i -> filter.put("revoked-" + i));
+
+		long falsePositives = IntStream.range(0, 100_000).filter(i -> filter.mightContain("valid-" + i)).count();
+
+		assertThat(falsePositives).isLessThan(2_000);
+	}
+}
@@ -0,0 +1,67 @@
+package com.firmament.immigration.util;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ObservationsTest {
+
+	private final ObservationRegistry registry = ObservationRegistry.create();
+	private final List<Observation.Context> stopped = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		registry.observationConfig().observationHandler(new ObservationHandler<>() {
+			@Override
+			public void onStop(Observation.Context context) {
+				stopped.add(context);
+			}
+
+			@Override
+			public boolean supportsContext(Observation.Context context) {
+				return true;
+			}
+		});
+	}
+
+	@Test
+	void returnedCallIsASuccess() {
+		assertThat(Observations.observe(Observation.createNotStarted("test.call", registry), () -> "done")).isEqualTo("done");
+
+		assertThat(outcome()).isEqualTo("success");
+		assertThat(stopped.get(0).getError()).isNull();
+	}
+
+	@Test
+	void thrownExceptionIsAFailure() {
+		IOException failure = new IOException("unavailable");
+
+		assertThatThrownBy(() -> Observations.observe(Observation.createNotStarted("test.call", registry), () -> {
+			throw failure;
+		})).isSameAs(failure);
+		assertThat(outcome()).isEqualTo("failure");
+		assertThat(stopped.get(0).getError()).isSameAs(failure);
+	}
+
+	@Test
+	void thrownErrorIsAFailure() {
+		assertThatThrownBy(() -> Observations.observe(Observation.createNotStarted("test.call", registry), () -> {
+			throw new AssertionError("boom");
+		})).isInstanceOf(AssertionError.class);
+		assertThat(outcome()).isEqualTo("failure");
+	}
+
+	private String outcome() {
+		assertThat(stopped).hasSize(1);
+		return stopped.get(0).getLowCardinalityKeyValue(Observations.OUTCOME).getValue();
+	}
+}
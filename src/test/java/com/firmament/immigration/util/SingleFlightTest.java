@@ -0,0 +1,125 @@
+package com.firmament.immigration.util;
+
+import com.firmament.immigration.exception.BusinessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+	private final SingleFlight<String, String> flights = new SingleFlight<>();
+	private final ExecutorService executor = Executors.newFixedThreadPool(8);
+	private final AtomicInteger loads = new AtomicInteger();
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void callersArrivingDuringALoadShareItsResult() throws Exception {
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		CompletableFuture<String> leader = call("2030-01-07", () -> blockedLoad(loading, release, "slots"));
+		assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+		List<CompletableFuture<String>> followers = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			followers.add(call("2030-01-07", () -> "follower-" + loads.incrementAndGet()));
+		}
+		// Give the followers time to join the load in flight
+		Thread.sleep(200);
+		assertThat(followers).noneMatch(CompletableFuture::isDone);
+
+		release.countDown();
+
+		assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("slots");
+		for (CompletableFuture<String> follower : followers) {
+			assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("slots");
+		}
+		assertThat(loads).hasValue(1);
+	}
+
+	@Test
+	void resultIsReleasedOnceTheLoadFinishes() {
+		assertThat(flights.execute("2030-01-07", () -> "first-" + loads.incrementAndGet())).isEqualTo("first-1");
+		assertThat(flights.execute("2030-01-07", () -> "second-" + loads.incrementAndGet())).isEqualTo("second-2");
+	}
+
+	@Test
+	void loadFromBeforeAWriteIsNotServedAfterIt() throws Exception {
+		AtomicLong version = new AtomicLong();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		// A read starts before the booking commits...
+		CompletableFuture<String> before = call(key(version), () -> blockedLoad(loading, release, "before booking"));
+		assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+		// ...the booking bumps the version, so a read after it does not join the stale load
+		version.incrementAndGet();
+		CompletableFuture<String> after = call(key(version), () -> "after booking");
+		assertThat(after.get(5, TimeUnit.SECONDS)).isEqualTo("after booking");
+
+		release.countDown();
+		assertThat(before.get(5, TimeUnit.SECONDS)).isEqualTo("before booking");
+		assertThat(flights.execute(key(version), () -> "after booking")).isEqualTo("after booking");
+	}
+
+	@Test
+	void followersGetTheLeadersExceptionAndTheNextCallRetries() throws Exception {
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		CompletableFuture<String> leader = call("bad-range", () -> {
+			blockedLoad(loading, release, null);
+			throw new BusinessException("Invalid date range");
+		});
+		assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+		CompletableFuture<String> follower = call("bad-range", () -> "follower");
+		Thread.sleep(200);
+		release.countDown();
+
+		for (CompletableFuture<String> call : List.of(leader, follower)) {
+			assertThatThrownBy(() -> call.get(5, TimeUnit.SECONDS))
+					.isInstanceOf(ExecutionException.class)
+					.cause()
+					.isInstanceOf(BusinessException.class)
+					.hasMessage("Invalid date range");
+		}
+		assertThat(flights.execute("bad-range", () -> "retried")).isEqualTo("retried");
+	}
+
+	private CompletableFuture<String> call(String key, Supplier<String> load) {
+		return CompletableFuture.supplyAsync(() -> flights.execute(key, load), executor);
+	}
+
+	private String blockedLoad(CountDownLatch loading, CountDownLatch release, String value) {
+		loads.incrementAndGet();
+		loading.countDown();
+		try {
+			release.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return value;
+	}
+
+	private static String key(AtomicLong version) {
+		return "2030-01-07|" + version.get();
+	}
+}
@@ -0,0 +1,82 @@
+package com.firmament.immigration.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+	// Advanced by hand, so waits are exact
+	private final AtomicLong clock = new AtomicLong();
+
+	@Test
+	void burstUpToTheCapacityThenWaitForTheNextToken() {
+		TokenBucket bucket = new TokenBucket(3, 60, clock::get);
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(bucket.tryConsume()).isZero();
+		}
+		// One token a second
+		assertThat(bucket.tryConsume()).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(400));
+		assertThat(bucket.tryConsume()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(600));
+	}
+
+	@Test
+	void tokensRefillOverTimeButNotBeyondTheCapacity() {
+		TokenBucket bucket = new TokenBucket(2, 60, clock::get);
+		bucket.tryConsume();
+		bucket.tryConsume();
+
+		// Ten seconds would be ten tokens, the bucket holds two
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+		assertThat(bucket.tryConsume()).isZero();
+		assertThat(bucket.tryConsume()).isZero();
+		assertThat(bucket.tryConsume()).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+	}
+
+	@Test
+	void concurrentConsumersNeverTakeMoreThanTheCapacity() throws Exception {
+		// Refills less than a token during the test
+		TokenBucket bucket = new TokenBucket(1000, 1);
+		AtomicInteger granted = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		try {
+			List<CompletableFuture<Void>> consumers = new ArrayList<>();
+			for (int t = 0; t < 16; t++) {
+				consumers.add(CompletableFuture.runAsync(() -> {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+					for (int i = 0; i < 200; i++) {
+						if (bucket.tryConsume() == 0) {
+							granted.incrementAndGet();
+						}
+					}
+				}, executor));
+			}
+			start.countDown();
+			CompletableFuture.allOf(consumers.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(granted).hasValue(1000);
+	}
+}